@@ -0,0 +1,136 @@
+package benchmark.de.hadizadeh.positioning.content;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Runs benchmark operations with warmup and reports throughput, allocation rate and latency percentiles
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Operation which is measured
+     */
+    public interface Operation {
+        /**
+         * Executes the operation once
+         *
+         * @param iteration number of the execution, starting with 0 for warmup and measurement
+         * @throws Exception if the operation fails
+         */
+        void run(int iteration) throws Exception;
+    }
+
+    private final int warmupIterations;
+    private final int iterations;
+
+    /**
+     * Creates a runner
+     *
+     * @param warmupIterations number of executions before measuring
+     * @param iterations       number of measured executions
+     */
+    public BenchmarkRunner(int warmupIterations, int iterations) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Measures an operation and prints the result
+     *
+     * @param name      name of the benchmark
+     * @param operation operation
+     * @return measured result
+     * @throws Exception if the operation fails
+     */
+    public Result run(String name, Operation operation) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            operation.run(i);
+        }
+        long[] latencies = new long[iterations];
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long operationStart = System.nanoTime();
+            operation.run(warmupIterations + i);
+            latencies[i] = System.nanoTime() - operationStart;
+        }
+        long time = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        Result result = new Result(name, iterations, time, allocatedBefore >= 0 ? allocated : -1, latencies);
+        System.out.println(result);
+        return result;
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Result of a benchmark
+     */
+    public static class Result {
+        private final String name;
+        private final int operations;
+        private final long time;
+        private final long allocatedBytes;
+        private final long[] latencies;
+
+        private Result(String name, int operations, long time, long allocatedBytes, long[] latencies) {
+            this.name = name;
+            this.operations = operations;
+            this.time = time;
+            this.allocatedBytes = allocatedBytes;
+            this.latencies = latencies.clone();
+            Arrays.sort(this.latencies);
+        }
+
+        /**
+         * Returns the throughput
+         *
+         * @return operations per second
+         */
+        public double getOperationsPerSecond() {
+            return time > 0 ? operations * 1000000000.0 / time : 0;
+        }
+
+        /**
+         * Returns the allocation rate
+         *
+         * @return allocated bytes per operation or -1, if the JVM does not measure allocations
+         */
+        public double getAllocatedBytesPerOperation() {
+            return allocatedBytes >= 0 && operations > 0 ? (double) allocatedBytes / operations : -1;
+        }
+
+        /**
+         * Returns a latency percentile
+         *
+         * @param percentile percentile between 0 and 100
+         * @return latency in nanoseconds
+         */
+        public long getLatency(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-45s %12.1f ops/s %12.1f B/op  p50 %9.1f us  p90 %9.1f us  p99 %9.1f us  max %9.1f us",
+                    name, getOperationsPerSecond(), getAllocatedBytesPerOperation(), getLatency(50) / 1000.0,
+                    getLatency(90) / 1000.0, getLatency(99) / 1000.0, getLatency(100) / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package benchmark.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.*;
+import de.hadizadeh.positioning.model.MappingPoint;
+import de.hadizadeh.positioning.model.PositionInformation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks of the content managers with synthetic venues. Options (all optional):
+ * <pre>
+ * --items=1000,10000,100000,1000000  venue sizes
+ * --positions=5                      positions per content
+ * --persistence=indexed              xml, indexed, journaled or sharded (by floor)
+ * --warmup=500 --iterations=2000     executions of every operation
+ * --directory=benchmark              directory of the generated files
+ * </pre>
+ */
+public class ContentBenchmark {
+    private static final long SEED = 42;
+    private static final int POSITIONS_PER_CALL = 10;
+
+    private final String persistence;
+    private final BenchmarkRunner runner;
+    private final BenchmarkRunner loadRunner;
+    private final int iterations;
+
+    private ContentBenchmark(String persistence, int warmupIterations, int iterations) {
+        this.persistence = persistence;
+        this.runner = new BenchmarkRunner(warmupIterations, iterations);
+        this.loadRunner = new BenchmarkRunner(2, 5);
+        this.iterations = warmupIterations + iterations;
+    }
+
+    /**
+     * Runs all benchmarks
+     *
+     * @param args options
+     * @throws Exception if a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        String items = "1000,10000";
+        int positions = 5;
+        String persistence = "indexed";
+        int warmupIterations = 500;
+        int iterations = 2000;
+        File directory = new File("benchmark");
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+            if (option[0].equals("--items")) {
+                items = option[1];
+            } else if (option[0].equals("--positions")) {
+                positions = Integer.parseInt(option[1]);
+            } else if (option[0].equals("--persistence")) {
+                persistence = option[1];
+            } else if (option[0].equals("--warmup")) {
+                warmupIterations = Integer.parseInt(option[1]);
+            } else if (option[0].equals("--iterations")) {
+                iterations = Integer.parseInt(option[1]);
+            } else if (option[0].equals("--directory")) {
+                directory = new File(option[1]);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        directory.mkdirs();
+        ContentBenchmark benchmark = new ContentBenchmark(persistence, warmupIterations, iterations);
+        for (String itemCount : items.split(",")) {
+            benchmark.run(new VenueGenerator(Integer.parseInt(itemCount.trim()), positions, SEED), new File(directory, "venue" + itemCount.trim() + ".xml"));
+        }
+    }
+
+    private void run(final VenueGenerator venue, final File file) throws Exception {
+        System.out.println("# " + venue.getItems() + " contents, persistence " + persistence);
+        delete(file);
+        venue.fill(new IndexedXMLContentPersistenceManager(file));
+
+        loadRunner.run(name(venue, "load"), new BenchmarkRunner.Operation() {
+            @Override
+            public void run(int iteration) throws Exception {
+                ContentPersistenceManager contentPersistenceManager = open(file);
+                new MappedContentManager(contentPersistenceManager);
+                close(contentPersistenceManager);
+            }
+        });
+
+        ContentPersistenceManager contentPersistenceManager = open(file);
+        final MappedContentManager contentManager = new MappedContentManager(contentPersistenceManager);
+        Random random = new Random(SEED);
+        final MappingPoint[] points = new MappingPoint[iterations * POSITIONS_PER_CALL];
+        final PositionInformation[] positions = new PositionInformation[points.length];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = venue.randomMappingPoint(random);
+            positions[i] = new PositionInformation(venue.getPositionName(points[i]), null);
+        }
+
+        runner.run(name(venue, "getContents(PositionInformation)"), new BenchmarkRunner.Operation() {
+            @Override
+            public void run(int iteration) {
+                contentManager.getContents(positions[iteration]);
+            }
+        });
+        runner.run(name(venue, "getContents(MappingPoint)"), new BenchmarkRunner.Operation() {
+            @Override
+            public void run(int iteration) {
+                contentManager.getContents(points[iteration]);
+            }
+        });
+        runner.run(name(venue, "addPosition"), new BenchmarkRunner.Operation() {
+            @Override
+            public void run(int iteration) throws Exception {
+                int item = iteration % venue.getItems();
+                contentManager.addPosition(venue.getContentType(item), venue.getData(item), positions[iteration].getName());
+            }
+        });
+        runner.run(name(venue, "addPositions(" + POSITIONS_PER_CALL + ")"), new BenchmarkRunner.Operation() {
+            @Override
+            public void run(int iteration) throws Exception {
+                List<Content.ContentType> contentTypes = new ArrayList<Content.ContentType>(POSITIONS_PER_CALL);
+                List<String> data = new ArrayList<String>(POSITIONS_PER_CALL);
+                List<String> positionNames = new ArrayList<String>(POSITIONS_PER_CALL);
+                for (int i = 0; i < POSITIONS_PER_CALL; i++) {
+                    int item = (iteration * POSITIONS_PER_CALL + i) % venue.getItems();
+                    contentTypes.add(venue.getContentType(item));
+                    data.add(venue.getData(item));
+                    positionNames.add(positions[iteration * POSITIONS_PER_CALL + i].getName());
+                }
+                contentManager.addPositions(contentTypes, data, positionNames);
+            }
+        });
+        runner.run(name(venue, "removeAllPositions"), new BenchmarkRunner.Operation() {
+            @Override
+            public void run(int iteration) throws Exception {
+                int item = iteration % venue.getItems();
+                contentManager.removeAllPositions(venue.getContentType(item), venue.getData(item));
+            }
+        });
+        runner.run(name(venue, "updateContent"), new BenchmarkRunner.Operation() {
+            @Override
+            public void run(int iteration) throws Exception {
+                int item = iteration % venue.getItems();
+                String data = venue.getData(item);
+                String updatedData = data + " (updated)";
+                if (iteration / venue.getItems() % 2 == 0) {
+                    contentManager.updateContent(venue.getContentType(item), data, venue.getContentType(item), updatedData);
+                } else {
+                    contentManager.updateContent(venue.getContentType(item), updatedData, venue.getContentType(item), data);
+                }
+            }
+        });
+        close(contentPersistenceManager);
+        delete(file);
+    }
+
+    private ContentPersistenceManager open(File file) throws Exception {
+        if (persistence.equals("xml")) {
+            return new XMLContentPersistenceManager(file);
+        } else if (persistence.equals("indexed")) {
+            return new IndexedXMLContentPersistenceManager(file);
+        } else if (persistence.equals("journaled")) {
+            return new JournaledContentPersistenceManager(file);
+        } else if (persistence.equals("sharded")) {
+            return new ShardedContentPersistenceManager(file, ShardedContentPersistenceManager.byFloor());
+        }
+        throw new IllegalArgumentException("Unknown persistence " + persistence);
+    }
+
+    private static void close(ContentPersistenceManager contentPersistenceManager) throws Exception {
+        if (contentPersistenceManager instanceof Closeable) {
+            ((Closeable) contentPersistenceManager).close();
+        }
+    }
+
+    private static void delete(File file) {
+        file.delete();
+        new File(file.getPath() + ".journal").delete();
+        String shardPrefix = file.getName().replaceAll("\\.xml$", "") + ".shard-";
+        File[] files = file.getAbsoluteFile().getParentFile().listFiles();
+        for (File shardFile : files != null ? files : new File[0]) {
+            if (shardFile.getName().startsWith(shardPrefix)) {
+                shardFile.delete();
+            }
+        }
+    }
+
+    private static String name(VenueGenerator venue, String operation) {
+        return venue.getItems() + " " + operation;
+    }
+}
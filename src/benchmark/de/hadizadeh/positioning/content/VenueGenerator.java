@@ -0,0 +1,117 @@
+package benchmark.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentOperation;
+import de.hadizadeh.positioning.content.ContentPersistenceManager;
+import de.hadizadeh.positioning.controller.MappedPositionManager;
+import de.hadizadeh.positioning.model.MappingPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a synthetic venue with contents on a grid of mapped positions on three floors
+ */
+public class VenueGenerator {
+    private static final int FLOORS = 3;
+    private static final int BATCH_SIZE = 10000;
+    private static final Content.ContentType[] TYPES = {Content.ContentType.TITLE, Content.ContentType.DESCRIPTION,
+            Content.ContentType.HTML_TEXT, Content.ContentType.IMAGE};
+
+    private final int items;
+    private final int positionsPerItem;
+    private final int gridSize;
+    private final long seed;
+
+    /**
+     * Creates a generator
+     *
+     * @param items            number of contents
+     * @param positionsPerItem number of positions which every content is connected with
+     * @param seed             seed of the random positions
+     */
+    public VenueGenerator(int items, int positionsPerItem, long seed) {
+        this.items = items;
+        this.positionsPerItem = positionsPerItem;
+        this.gridSize = Math.max(1, (int) Math.ceil(Math.sqrt((double) items / FLOORS)));
+        this.seed = seed;
+    }
+
+    /**
+     * Stores the contents of the venue
+     *
+     * @param contentPersistenceManager empty persistence manager
+     * @throws Exception if the contents could not be stored
+     */
+    public void fill(ContentPersistenceManager contentPersistenceManager) throws Exception {
+        Random random = new Random(seed);
+        List<ContentOperation> operations = new ArrayList<ContentOperation>(BATCH_SIZE + positionsPerItem + 1);
+        for (int i = 0; i < items; i++) {
+            operations.add(ContentOperation.addContent(getContentType(i), getData(i)));
+            for (int j = 0; j < positionsPerItem; j++) {
+                operations.add(ContentOperation.addPosition(getContentType(i), getData(i), getPositionName(randomMappingPoint(random))));
+            }
+            if (operations.size() >= BATCH_SIZE) {
+                contentPersistenceManager.executeBatch(operations);
+                operations.clear();
+            }
+        }
+        contentPersistenceManager.executeBatch(operations);
+    }
+
+    /**
+     * Returns the number of contents
+     *
+     * @return number of contents
+     */
+    public int getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the content type of a content
+     *
+     * @param item number of the content
+     * @return content type
+     */
+    public Content.ContentType getContentType(int item) {
+        return TYPES[item % TYPES.length];
+    }
+
+    /**
+     * Returns the data of a content
+     *
+     * @param item number of the content
+     * @return content data
+     */
+    public String getData(int item) {
+        if (getContentType(item) == Content.ContentType.HTML_TEXT) {
+            return "<p>Exhibit <b>" + item + "</b> of the venue</p>";
+        }
+        if (getContentType(item) == Content.ContentType.IMAGE) {
+            return "images/item" + item + ".png";
+        }
+        return "Item " + item + " of the venue";
+    }
+
+    /**
+     * Returns a random point of the grid
+     *
+     * @param random random generator
+     * @return coordinates
+     */
+    public MappingPoint randomMappingPoint(Random random) {
+        return new MappingPoint(random.nextInt(gridSize), random.nextInt(gridSize), random.nextInt(FLOORS));
+    }
+
+    /**
+     * Returns the position name of a point
+     *
+     * @param mappingPoint coordinates
+     * @return position name
+     */
+    public String getPositionName(MappingPoint mappingPoint) {
+        return MappedPositionManager.mappingPointToName(mappingPoint);
+    }
+}
@@ -0,0 +1,239 @@
+package de.hadizadeh.positioning.content;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Loads the files of asset contents and keeps them in a cache, which is limited by the size of the files and removes
+ * the least recently used files first. A cached file is loaded again, if its modification time or size has changed.
+ * Small files are read into the heap, large files are memory mapped. The loader is thread-safe.
+ */
+public class AssetLoader {
+    /**
+     * Content types whose data is the path of a file
+     */
+    public static final EnumSet<Content.ContentType> ASSET_TYPES = EnumSet.of(Content.ContentType.TEXTFILE,
+            Content.ContentType.HTML_TEXTFILE, Content.ContentType.IMAGE, Content.ContentType.AUDIO, Content.ContentType.MOVIE);
+
+    private static final long DEFAULT_MAP_THRESHOLD = 1024 * 1024;
+
+    private final File assetDirectory;
+    private final long maxBytes;
+    private final long mapThreshold;
+    private final Map<String, Asset> assets;
+    private long cachedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Creates an asset loader, which maps files larger than 1 MB into memory
+     *
+     * @param assetDirectory directory of the asset files with relative paths
+     * @param maxBytes       maximum size of all cached files in bytes
+     */
+    public AssetLoader(File assetDirectory, long maxBytes) {
+        this(assetDirectory, maxBytes, DEFAULT_MAP_THRESHOLD);
+    }
+
+    /**
+     * Creates an asset loader
+     *
+     * @param assetDirectory directory of the asset files with relative paths
+     * @param maxBytes       maximum size of all cached files in bytes
+     * @param mapThreshold   minimum size of files in bytes, which are memory mapped instead of read
+     */
+    public AssetLoader(File assetDirectory, long maxBytes, long mapThreshold) {
+        this.assetDirectory = assetDirectory;
+        this.maxBytes = maxBytes;
+        this.mapThreshold = mapThreshold;
+        this.assets = new LinkedHashMap<String, Asset>(16, 0.75f, true);
+    }
+
+    /**
+     * Checks if the data of a content is the path of an asset file
+     *
+     * @param content content
+     * @return true, if the content is an asset
+     */
+    public static boolean isAsset(Content content) {
+        return ASSET_TYPES.contains(content.getType());
+    }
+
+    /**
+     * Returns the file of an asset content
+     *
+     * @param content asset content
+     * @return file, relative paths are resolved against the asset directory
+     */
+    public File getFile(Content content) {
+        File file = new File(content.getData());
+        return file.isAbsolute() ? file : new File(assetDirectory, content.getData());
+    }
+
+    /**
+     * Returns the bytes of an asset, from the cache if the file has not changed
+     *
+     * @param content asset content
+     * @return read-only buffer with the bytes of the file
+     * @throws IOException if the file could not be read
+     */
+    public ByteBuffer load(Content content) throws IOException {
+        return load(content, true);
+    }
+
+    /**
+     * Loads an asset into the cache, if it is not cached yet. Prefetching is not counted as hit or miss.
+     *
+     * @param content asset content
+     * @throws IOException if the file could not be read
+     */
+    public void prefetch(Content content) throws IOException {
+        load(content, false);
+    }
+
+    /**
+     * Removes all cached files
+     */
+    public synchronized void clear() {
+        assets.clear();
+        cachedBytes = 0;
+    }
+
+    /**
+     * Returns how often a requested asset was cached
+     *
+     * @return number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns how often a requested asset had to be loaded
+     *
+     * @return number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the share of requests which were answered from the cache
+     *
+     * @return hit rate between 0 and 1
+     */
+    public synchronized double getHitRate() {
+        long requests = hits + misses;
+        return requests > 0 ? (double) hits / requests : 0;
+    }
+
+    /**
+     * Returns how many files were removed from the cache for making space
+     *
+     * @return number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns how many cached files were loaded again, because they had changed
+     *
+     * @return number of invalidations
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Returns the size of all cached files
+     *
+     * @return size in bytes
+     */
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    private ByteBuffer load(Content content, boolean request) throws IOException {
+        File file = getFile(content);
+        String path = file.getPath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        synchronized (this) {
+            Asset asset = assets.get(path);
+            if (asset != null) {
+                if (asset.lastModified == lastModified && asset.length == length) {
+                    if (request) {
+                        hits++;
+                    }
+                    return asset.bytes.duplicate();
+                }
+                assets.remove(path);
+                cachedBytes -= asset.bytes.capacity();
+                invalidations++;
+            }
+            if (request) {
+                misses++;
+            }
+        }
+        ByteBuffer bytes = read(file);
+        if (bytes.capacity() <= maxBytes) {
+            synchronized (this) {
+                Asset previous = assets.put(path, new Asset(bytes, lastModified, length));
+                cachedBytes += bytes.capacity() - (previous != null ? previous.bytes.capacity() : 0);
+                Iterator<Asset> eldest = assets.values().iterator();
+                while (cachedBytes > maxBytes && eldest.hasNext()) {
+                    cachedBytes -= eldest.next().bytes.capacity();
+                    eldest.remove();
+                    evictions++;
+                }
+            }
+        }
+        return bytes.duplicate();
+    }
+
+    private ByteBuffer read(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Asset is too large: " + file);
+            }
+            if (size >= mapThreshold) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size).asReadOnlyBuffer();
+            }
+            ByteBuffer bytes = ByteBuffer.allocate((int) size);
+            while (bytes.hasRemaining() && channel.read(bytes) != -1) {
+            }
+            bytes.flip();
+            return bytes.asReadOnlyBuffer();
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Cached file with the modification time and size, when it was loaded
+     */
+    private static class Asset {
+        private final ByteBuffer bytes;
+        private final long lastModified;
+        private final long length;
+
+        private Asset(ByteBuffer bytes, long lastModified, long length) {
+            this.bytes = bytes;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import de.hadizadeh.positioning.model.PositionInformation;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * Read only implementation for the content persistence manager which serves contents from a memory mapped binary
+ * file. The file is created with {@link #convert(ContentPersistenceManager, File)} from any other persistence manager,
+ * e.g. the xml persistence manager. Nothing is parsed while opening the file, lookups read the required values
+ * directly from the mapped file.
+ * <p/>
+ * File layout (big endian, all values are 32 bit integers if not stated otherwise):
+ * <pre>
+ * header:         magic, version, typeCount, stringCount, contentCount, positionCount, linkCount
+ * types:          typeCount x string index of the type name
+ * string offsets: (stringCount + 1) x offset in the string data
+ * contents:       contentCount x (type index, data string index, first content link, content link count)
+ * content links:  linkCount x position index
+ * positions:      positionCount x (name string index, first position link, position link count), sorted by name
+ * position links: linkCount x content index
+ * string data:    utf-8 bytes of all strings
+ * </pre>
+ */
+public class BinaryContentPersistenceManager implements ContentPersistenceManager {
+    private static final int MAGIC = 0x49504342;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 7 * 4;
+    private static final int CONTENT_SIZE = 4 * 4;
+    private static final int POSITION_SIZE = 3 * 4;
+
+    /**
+     * binary file
+     */
+    protected File persistenceFile;
+    private ByteBuffer buffer;
+    private Content.ContentType[] types;
+    private int stringCount;
+    private int contentCount;
+    private int positionCount;
+    private int stringOffsetsStart;
+    private int contentsStart;
+    private int contentLinksStart;
+    private int positionsStart;
+    private int positionLinksStart;
+    private int stringDataStart;
+
+    /**
+     * Opens a binary content file
+     *
+     * @param persistenceFile binary file
+     * @throws ContentPersistenceException if the file could not be opened or has a wrong format
+     */
+    public BinaryContentPersistenceManager(File persistenceFile) throws ContentPersistenceException {
+        this.persistenceFile = persistenceFile;
+        try {
+            RandomAccessFile file = new RandomAccessFile(persistenceFile, "r");
+            try {
+                buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            } finally {
+                file.close();
+            }
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new ContentPersistenceException("Not a binary content file: " + persistenceFile);
+            }
+            int typeCount = buffer.getInt(8);
+            stringCount = buffer.getInt(12);
+            contentCount = buffer.getInt(16);
+            positionCount = buffer.getInt(20);
+            int linkCount = buffer.getInt(24);
+            stringOffsetsStart = HEADER_SIZE + typeCount * 4;
+            contentsStart = stringOffsetsStart + (stringCount + 1) * 4;
+            contentLinksStart = contentsStart + contentCount * CONTENT_SIZE;
+            positionsStart = contentLinksStart + linkCount * 4;
+            positionLinksStart = positionsStart + positionCount * POSITION_SIZE;
+            stringDataStart = positionLinksStart + linkCount * 4;
+            types = new Content.ContentType[typeCount];
+            for (int i = 0; i < typeCount; i++) {
+                types[i] = Content.ContentType.valueOf(readString(buffer.getInt(HEADER_SIZE + i * 4)));
+            }
+        } catch (IOException e) {
+            throw new ContentPersistenceException(e.getMessage());
+        } catch (RuntimeException e) {
+            throw new ContentPersistenceException("Broken binary content file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes all contents of a persistence manager to a binary content file
+     *
+     * @param source persistence manager which holds the contents, e.g. a xml persistence manager
+     * @param target binary file
+     * @throws ContentPersistenceException if the contents could not be loaded or the file could not be written
+     */
+    public static void convert(ContentPersistenceManager source, File target) throws ContentPersistenceException {
+        Map<ContentKey, Set<String>> items = new ContentIndex(source.getAllContents()).getItems();
+        try {
+            write(items, target);
+        } catch (IOException e) {
+            throw new ContentPersistenceException(e.getMessage());
+        }
+    }
+
+    private static void write(Map<ContentKey, Set<String>> items, File target) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<String, Integer>();
+        Map<Content.ContentType, Integer> typeIndices = new LinkedHashMap<Content.ContentType, Integer>();
+        Map<String, byte[]> positionNames = new HashMap<String, byte[]>();
+        int linkCount = 0;
+        for (Map.Entry<ContentKey, Set<String>> item : items.entrySet()) {
+            if (!typeIndices.containsKey(item.getKey().getType())) {
+                typeIndices.put(item.getKey().getType(), typeIndices.size());
+            }
+            for (String position : item.getValue()) {
+                if (!positionNames.containsKey(position)) {
+                    positionNames.put(position, position.getBytes("UTF-8"));
+                }
+            }
+            linkCount += item.getValue().size();
+        }
+        List<String> positions = new ArrayList<String>(positionNames.keySet());
+        final Map<String, byte[]> names = positionNames;
+        Collections.sort(positions, new Comparator<String>() {
+            @Override
+            public int compare(String position1, String position2) {
+                return compareBytes(names.get(position1), names.get(position2));
+            }
+        });
+        Map<String, Integer> positionIndices = new HashMap<String, Integer>();
+        for (String position : positions) {
+            positionIndices.put(position, positionIndices.size());
+        }
+        for (Content.ContentType type : typeIndices.keySet()) {
+            stringIndex(strings, type.name());
+        }
+        for (String position : positions) {
+            stringIndex(strings, position);
+        }
+
+        List<List<Integer>> positionLinks = new ArrayList<List<Integer>>();
+        for (int i = 0; i < positions.size(); i++) {
+            positionLinks.add(new ArrayList<Integer>());
+        }
+        int[] contentData = new int[items.size() * 4];
+        int[] contentLinks = new int[linkCount];
+        int contentIndex = 0;
+        int link = 0;
+        for (Map.Entry<ContentKey, Set<String>> item : items.entrySet()) {
+            contentData[contentIndex * 4] = typeIndices.get(item.getKey().getType());
+            contentData[contentIndex * 4 + 1] = stringIndex(strings, item.getKey().getData());
+            contentData[contentIndex * 4 + 2] = link;
+            contentData[contentIndex * 4 + 3] = item.getValue().size();
+            for (String position : item.getValue()) {
+                int positionIndex = positionIndices.get(position);
+                contentLinks[link++] = positionIndex;
+                positionLinks.get(positionIndex).add(contentIndex);
+            }
+            contentIndex++;
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(target)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(typeIndices.size());
+            out.writeInt(strings.size());
+            out.writeInt(items.size());
+            out.writeInt(positions.size());
+            out.writeInt(linkCount);
+            for (Content.ContentType type : typeIndices.keySet()) {
+                out.writeInt(strings.get(type.name()));
+            }
+            List<byte[]> stringData = new ArrayList<byte[]>(strings.size());
+            int offset = 0;
+            for (String string : strings.keySet()) {
+                byte[] bytes = string.getBytes("UTF-8");
+                stringData.add(bytes);
+                out.writeInt(offset);
+                offset += bytes.length;
+            }
+            out.writeInt(offset);
+            for (int value : contentData) {
+                out.writeInt(value);
+            }
+            for (int value : contentLinks) {
+                out.writeInt(value);
+            }
+            int firstLink = 0;
+            for (int i = 0; i < positions.size(); i++) {
+                out.writeInt(strings.get(positions.get(i)));
+                out.writeInt(firstLink);
+                out.writeInt(positionLinks.get(i).size());
+                firstLink += positionLinks.get(i).size();
+            }
+            for (List<Integer> links : positionLinks) {
+                for (int value : links) {
+                    out.writeInt(value);
+                }
+            }
+            for (byte[] bytes : stringData) {
+                out.write(bytes);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static int stringIndex(Map<String, Integer> strings, String string) {
+        Integer index = strings.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.put(string, index);
+        }
+        return index;
+    }
+
+    private static int compareBytes(byte[] bytes1, byte[] bytes2) {
+        int length = Math.min(bytes1.length, bytes2.length);
+        for (int i = 0; i < length; i++) {
+            int difference = (bytes1[i] & 0xff) - (bytes2[i] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return bytes1.length - bytes2.length;
+    }
+
+    /**
+     * Returns all connected contents of a given position
+     *
+     * @param positionInformation position
+     * @return connected content or null, if there is no content at the position
+     */
+    public ContentList<Content> getContents(PositionInformation positionInformation) {
+        return getContents(positionInformation.getName());
+    }
+
+    /**
+     * Returns all connected contents of a given position
+     *
+     * @param positionName position name
+     * @return connected content or null, if there is no content at the position
+     */
+    public ContentList<Content> getContents(String positionName) {
+        int position = findPosition(positionName);
+        if (position == -1) {
+            return null;
+        }
+        return getPositionContents(position, null);
+    }
+
+    @Override
+    public ContentList<Content> getAllContents() throws ContentPersistenceException {
+        ContentList<Content> contents = new ContentList<Content>();
+        for (int i = 0; i < contentCount; i++) {
+            int content = contentsStart + i * CONTENT_SIZE;
+            int firstLink = buffer.getInt(content + 8);
+            int linkCount = buffer.getInt(content + 12);
+            List<String> positions = new ArrayList<String>(linkCount);
+            for (int link = firstLink; link < firstLink + linkCount; link++) {
+                positions.add(positionName(buffer.getInt(contentLinksStart + link * 4)));
+            }
+            contents.add(new Content(types[buffer.getInt(content)], readString(buffer.getInt(content + 4)), positions));
+        }
+        return contents;
+    }
+
+    @Override
+    public Map<String, ContentList<Content>> getConnectedContents() throws ContentPersistenceException {
+        Map<String, ContentList<Content>> contents = new HashMap<String, ContentList<Content>>();
+        Content[] sharedContents = new Content[contentCount];
+        for (int i = 0; i < positionCount; i++) {
+            contents.put(positionName(i), getPositionContents(i, sharedContents));
+        }
+        return contents;
+    }
+
+    private ContentList<Content> getPositionContents(int position, Content[] sharedContents) {
+        int firstLink = buffer.getInt(positionsStart + position * POSITION_SIZE + 4);
+        int linkCount = buffer.getInt(positionsStart + position * POSITION_SIZE + 8);
+        ContentList<Content> contents = new ContentList<Content>();
+        for (int link = firstLink; link < firstLink + linkCount; link++) {
+            int contentIndex = buffer.getInt(positionLinksStart + link * 4);
+            Content content = sharedContents != null ? sharedContents[contentIndex] : null;
+            if (content == null) {
+                int offset = contentsStart + contentIndex * CONTENT_SIZE;
+                Content.ContentType type = types[buffer.getInt(offset)];
+                String data = readString(buffer.getInt(offset + 4));
+                content = sharedContents != null ? new SharedContent(type, data) : new Content(type, data);
+                if (sharedContents != null) {
+                    sharedContents[contentIndex] = content;
+                }
+            }
+            contents.add(content);
+        }
+        return contents;
+    }
+
+    private int findPosition(String positionName) {
+        byte[] name;
+        try {
+            name = positionName.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        int low = 0;
+        int high = positionCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int difference = compareString(buffer.getInt(positionsStart + middle * POSITION_SIZE), name);
+            if (difference < 0) {
+                low = middle + 1;
+            } else if (difference > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int compareString(int string, byte[] bytes) {
+        int start = stringDataStart + buffer.getInt(stringOffsetsStart + string * 4);
+        int length = stringDataStart + buffer.getInt(stringOffsetsStart + (string + 1) * 4) - start;
+        int commonLength = Math.min(length, bytes.length);
+        for (int i = 0; i < commonLength; i++) {
+            int difference = (buffer.get(start + i) & 0xff) - (bytes[i] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - bytes.length;
+    }
+
+    private String positionName(int position) {
+        return readString(buffer.getInt(positionsStart + position * POSITION_SIZE));
+    }
+
+    private String readString(int string) {
+        if (string < 0 || string >= stringCount) {
+            throw new IndexOutOfBoundsException("String " + string);
+        }
+        int start = buffer.getInt(stringOffsetsStart + string * 4);
+        int end = buffer.getInt(stringOffsetsStart + (string + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer data = buffer.duplicate();
+        data.position(stringDataStart + start);
+        data.get(bytes);
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean addContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean removeContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean addPosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean addPositions(List<Content.ContentType> contentTypes, List<String> multipleData, List<String> positionNames) throws ContentPersistenceException {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean removePosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean removeAllPositions(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean updateContent(Content.ContentType oldContentType, String oldData, Content.ContentType newContentType, String newData) throws ContentPersistenceException {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeAllContent() throws ContentPersistenceException {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeAllPositions() throws ContentPersistenceException {
+        throw readOnly();
+    }
+
+    @Override
+    public List<Boolean> executeBatch(List<ContentOperation> operations) throws ContentPersistenceException {
+        throw readOnly();
+    }
+
+    private ContentPersistenceException readOnly() {
+        return new ContentPersistenceException("Binary content file is read only, convert the changed contents again: " + persistenceFile);
+    }
+}
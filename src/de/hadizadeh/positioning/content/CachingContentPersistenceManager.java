@@ -0,0 +1,327 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.exceptions.ContentAlreadyExistsException;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import de.hadizadeh.positioning.content.exceptions.ContentSameDataException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Persistence manager which keeps the loaded contents of another persistence manager in memory and answers reads
+ * from memory, as long as the persistence file has not changed. A change is detected by the size and the
+ * modification time of the file. If the file was modified shortly before it was checked, a change within the
+ * resolution of the modification time is possible, then the hash of the file is compared as well. Changes made
+ * through this persistence manager are applied to the kept contents directly, unless the file was changed by others
+ * before they were written.
+ */
+public class CachingContentPersistenceManager implements ReloadableContentPersistenceManager, Closeable {
+    /**
+     * Milliseconds in which two changes of the file may have the same modification time, if the file system does not
+     * store milliseconds
+     */
+    protected static final long MODIFICATION_TIME_RESOLUTION = 2000;
+
+    private final ContentPersistenceManager persistenceManager;
+    private final File persistenceFile;
+    private ContentIndex index;
+    private FileState fileState;
+    private long writeStart;
+    private long hits;
+    private long loads;
+
+    /**
+     * Creates a caching persistence manager
+     *
+     * @param persistenceManager persistence manager whose contents are cached
+     * @param persistenceFile    file of the persistence manager, which is checked for changes
+     */
+    public CachingContentPersistenceManager(ContentPersistenceManager persistenceManager, File persistenceFile) {
+        this.persistenceManager = persistenceManager;
+        this.persistenceFile = persistenceFile;
+    }
+
+    @Override
+    public synchronized ContentList<Content> getAllContents() throws ContentPersistenceException {
+        return getIndex().getAllContents();
+    }
+
+    @Override
+    public synchronized Map<String, ContentList<Content>> getConnectedContents() throws ContentPersistenceException {
+        return getIndex().getConnectedContents();
+    }
+
+    @Override
+    public synchronized boolean addContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        boolean cached = isCached();
+        return changed(cached, ContentOperation.addContent(contentType, data), persistenceManager.addContent(contentType, data));
+    }
+
+    @Override
+    public synchronized boolean removeContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        boolean cached = isCached();
+        return changed(cached, ContentOperation.removeContent(contentType, data), persistenceManager.removeContent(contentType, data));
+    }
+
+    @Override
+    public synchronized boolean addPosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        boolean cached = isCached();
+        return changed(cached, ContentOperation.addPosition(contentType, data, positionName), persistenceManager.addPosition(contentType, data,
+                positionName));
+    }
+
+    @Override
+    public synchronized boolean addPositions(List<Content.ContentType> contentTypes, List<String> multipleData, List<String> positionNames) throws ContentPersistenceException {
+        boolean cached = isCached();
+        boolean result = persistenceManager.addPositions(contentTypes, multipleData, positionNames);
+        List<ContentOperation> operations = new ArrayList<ContentOperation>(contentTypes.size());
+        for (int i = 0; i < contentTypes.size(); i++) {
+            operations.add(ContentOperation.addPosition(contentTypes.get(i), multipleData.get(i), positionNames.get(i)));
+        }
+        // adding an existing position fails without changing anything, so all operations can be applied
+        changed(cached, operations);
+        return result;
+    }
+
+    @Override
+    public synchronized boolean removePosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        boolean cached = isCached();
+        return changed(cached, ContentOperation.removePosition(contentType, data, positionName), persistenceManager.removePosition(contentType,
+                data, positionName));
+    }
+
+    @Override
+    public synchronized boolean removeAllPositions(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        boolean cached = isCached();
+        return changed(cached, ContentOperation.removeAllPositions(contentType, data), persistenceManager.removeAllPositions(contentType, data));
+    }
+
+    @Override
+    public synchronized boolean updateContent(Content.ContentType oldContentType, String oldData, Content.ContentType newContentType, String newData) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        boolean cached = isCached();
+        return changed(cached, ContentOperation.updateContent(oldContentType, oldData, newContentType, newData),
+                persistenceManager.updateContent(oldContentType, oldData, newContentType, newData));
+    }
+
+    @Override
+    public synchronized void removeAllContent() throws ContentPersistenceException {
+        boolean cached = isCached();
+        persistenceManager.removeAllContent();
+        changed(cached, ContentOperation.removeAllContent(), true);
+    }
+
+    @Override
+    public synchronized void removeAllPositions() throws ContentPersistenceException {
+        boolean cached = isCached();
+        persistenceManager.removeAllPositions();
+        changed(cached, ContentOperation.removeAllPositions(), true);
+    }
+
+    @Override
+    public synchronized List<Boolean> executeBatch(List<ContentOperation> operations) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        boolean cached = isCached();
+        List<Boolean> results = persistenceManager.executeBatch(operations);
+        List<ContentOperation> changes = new ArrayList<ContentOperation>();
+        for (int i = 0; i < operations.size(); i++) {
+            if (results.get(i)) {
+                changes.add(operations.get(i));
+            }
+        }
+        changed(cached, changes);
+        return results;
+    }
+
+    /**
+     * Discards the cached contents, they are loaded again by the next read
+     */
+    public synchronized void invalidate() {
+        index = null;
+        fileState = null;
+    }
+
+    /**
+     * Reloads the cached persistence manager, if it can be reloaded, and discards the cached contents
+     *
+     * @throws ContentPersistenceException if the contents could not be loaded
+     */
+    @Override
+    public synchronized void reload() throws ContentPersistenceException {
+        invalidate();
+        if (persistenceManager instanceof ReloadableContentPersistenceManager) {
+            ((ReloadableContentPersistenceManager) persistenceManager).reload();
+        }
+    }
+
+    /**
+     * Returns how often a read was answered from the cached contents
+     *
+     * @return number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns how often the contents were loaded from the persistence manager
+     *
+     * @return number of loads
+     */
+    public synchronized long getLoads() {
+        return loads;
+    }
+
+    /**
+     * Closes the cached persistence manager, if it can be closed
+     *
+     * @throws IOException if the persistence manager could not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        invalidate();
+        if (persistenceManager instanceof Closeable) {
+            ((Closeable) persistenceManager).close();
+        }
+    }
+
+    private ContentIndex getIndex() throws ContentPersistenceException {
+        if (index != null && isUnchanged()) {
+            hits++;
+            return index;
+        }
+        index = null;
+        FileState state = readFileState();
+        ContentIndex loadedIndex = new ContentIndex(persistenceManager.getAllContents());
+        // a change while loading is detected by the next read, because the state was taken before
+        fileState = state;
+        index = loadedIndex;
+        loads++;
+        return index;
+    }
+
+    private boolean isUnchanged() throws ContentPersistenceException {
+        long length = persistenceFile.length();
+        long lastModified = persistenceFile.lastModified();
+        if (fileState == null || length != fileState.length || lastModified != fileState.lastModified) {
+            return false;
+        }
+        if (lastModified < fileState.checkTime - resolution(lastModified)) {
+            return true;
+        }
+        long checkTime = System.currentTimeMillis();
+        if (hash() != fileState.hash || persistenceFile.length() != length || persistenceFile.lastModified() != lastModified) {
+            return false;
+        }
+        fileState = new FileState(length, lastModified, fileState.hash, checkTime);
+        return true;
+    }
+
+    private boolean isCached() throws ContentPersistenceException {
+        writeStart = System.currentTimeMillis();
+        if (index != null && isUnchanged()) {
+            return true;
+        }
+        // the file was changed by others, the changes are only visible after loading it again
+        invalidate();
+        return false;
+    }
+
+    private boolean changed(boolean cached, ContentOperation operation, boolean result) throws ContentPersistenceException {
+        if (result) {
+            changed(cached, Collections.singletonList(operation));
+        }
+        return result;
+    }
+
+    private void changed(boolean cached, List<ContentOperation> operations) throws ContentPersistenceException {
+        if (!cached || operations.isEmpty()) {
+            return;
+        }
+        try {
+            for (ContentOperation operation : operations) {
+                index.apply(operation);
+            }
+        } catch (ContentSameDataException e) {
+            invalidate();
+            return;
+        } catch (ContentAlreadyExistsException e) {
+            invalidate();
+            return;
+        }
+        long length = persistenceFile.length();
+        long lastModified = persistenceFile.lastModified();
+        if (length == fileState.length && lastModified == fileState.lastModified) {
+            // the changes are not written yet, e.g. by a delayed save, the stored state is kept if nobody else wrote
+            if (!isUnchanged()) {
+                invalidate();
+            }
+        } else if (lastModified < writeStart - resolution(lastModified)) {
+            // the file was changed, but not by this write
+            invalidate();
+        } else {
+            fileState = readFileState();
+        }
+    }
+
+    private FileState readFileState() throws ContentPersistenceException {
+        long checkTime = System.currentTimeMillis();
+        long length = persistenceFile.length();
+        long lastModified = persistenceFile.lastModified();
+        // the hash is only compared if a later change could have the same modification time
+        long hash = lastModified >= checkTime - resolution(lastModified) ? hash() : 0;
+        return new FileState(length, lastModified, hash, checkTime);
+    }
+
+    /**
+     * Returns the milliseconds in which two changes of the file may have the same modification time. A modification
+     * time with a millisecond part shows that the file system stores milliseconds.
+     */
+    private static long resolution(long lastModified) {
+        return lastModified % 1000 != 0 ? 1 : MODIFICATION_TIME_RESOLUTION;
+    }
+
+    private long hash() throws ContentPersistenceException {
+        CRC32 crc = new CRC32();
+        if (persistenceFile.exists()) {
+            try {
+                InputStream in = new FileInputStream(persistenceFile);
+                try {
+                    byte[] buffer = new byte[64 * 1024];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        crc.update(buffer, 0, read);
+                    }
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                throw new ContentPersistenceException(e.getMessage());
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Size, modification time and hash of the persistence file at a point of time
+     */
+    private static class FileState {
+        private final long length;
+        private final long lastModified;
+        private final long hash;
+        private final long checkTime;
+
+        private FileState(long length, long lastModified, long hash, long checkTime) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.checkTime = checkTime;
+        }
+    }
+}
@@ -4,7 +4,8 @@ package de.hadizadeh.positioning.content;
 import java.util.List;
 
 /**
- * Model for holding storing data
+ * Model for holding storing data. Contents which are shared by several positions, e.g. the connected contents of the
+ * content manager, cannot be changed.
  */
 public class Content {
 
@@ -0,0 +1,155 @@
+package de.hadizadeh.positioning.content;
+
+/**
+ * A change of the loaded contents, which is published to the subscribers of a content manager after the change is
+ * visible to readers
+ */
+public class ContentChangeEvent {
+
+    /**
+     * Available events
+     */
+    public enum EventType {
+        CONTENT_ADDED,
+        CONTENT_UPDATED,
+        CONTENT_REMOVED,
+        POSITION_LINKED,
+        POSITION_UNLINKED,
+        ALL_CONTENTS_REMOVED,
+        ALL_POSITIONS_REMOVED,
+        CONTENTS_RELOADED
+    }
+
+    private final EventType eventType;
+    private final ContentKey contentKey;
+    private final String positionName;
+    private final ContentKey newContentKey;
+
+    private ContentChangeEvent(EventType eventType, ContentKey contentKey, String positionName, ContentKey newContentKey) {
+        this.eventType = eventType;
+        this.contentKey = contentKey;
+        this.positionName = positionName;
+        this.newContentKey = newContentKey;
+    }
+
+    /**
+     * Creates an event for an added content
+     *
+     * @param contentKey content
+     * @return event
+     */
+    public static ContentChangeEvent contentAdded(ContentKey contentKey) {
+        return new ContentChangeEvent(EventType.CONTENT_ADDED, contentKey, null, null);
+    }
+
+    /**
+     * Creates an event for a content whose type or data has changed, at all of its positions
+     *
+     * @param oldContentKey old content
+     * @param newContentKey new content
+     * @return event
+     */
+    public static ContentChangeEvent contentUpdated(ContentKey oldContentKey, ContentKey newContentKey) {
+        return new ContentChangeEvent(EventType.CONTENT_UPDATED, oldContentKey, null, newContentKey);
+    }
+
+    /**
+     * Creates an event for a removed content, its positions are unlinked by separate events before
+     *
+     * @param contentKey content
+     * @return event
+     */
+    public static ContentChangeEvent contentRemoved(ContentKey contentKey) {
+        return new ContentChangeEvent(EventType.CONTENT_REMOVED, contentKey, null, null);
+    }
+
+    /**
+     * Creates an event for a content which was connected with a position
+     *
+     * @param contentKey   content
+     * @param positionName position name
+     * @return event
+     */
+    public static ContentChangeEvent positionLinked(ContentKey contentKey, String positionName) {
+        return new ContentChangeEvent(EventType.POSITION_LINKED, contentKey, positionName, null);
+    }
+
+    /**
+     * Creates an event for a content which was disconnected from a position
+     *
+     * @param contentKey   content
+     * @param positionName position name
+     * @return event
+     */
+    public static ContentChangeEvent positionUnlinked(ContentKey contentKey, String positionName) {
+        return new ContentChangeEvent(EventType.POSITION_UNLINKED, contentKey, positionName, null);
+    }
+
+    /**
+     * Creates an event for removing all contents
+     *
+     * @return event
+     */
+    public static ContentChangeEvent allContentsRemoved() {
+        return new ContentChangeEvent(EventType.ALL_CONTENTS_REMOVED, null, null, null);
+    }
+
+    /**
+     * Creates an event for removing the positions of all contents
+     *
+     * @return event
+     */
+    public static ContentChangeEvent allPositionsRemoved() {
+        return new ContentChangeEvent(EventType.ALL_POSITIONS_REMOVED, null, null, null);
+    }
+
+    /**
+     * Creates an event for loading all contents again, subscribers have to read all contents again
+     *
+     * @return event
+     */
+    public static ContentChangeEvent contentsReloaded() {
+        return new ContentChangeEvent(EventType.CONTENTS_RELOADED, null, null, null);
+    }
+
+    /**
+     * Returns the event type
+     *
+     * @return event type
+     */
+    public EventType getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Returns the changed content, the old content for updates
+     *
+     * @return content key or null for events of all contents
+     */
+    public ContentKey getContentKey() {
+        return contentKey;
+    }
+
+    /**
+     * Returns the position name of linked and unlinked positions
+     *
+     * @return position name
+     */
+    public String getPositionName() {
+        return positionName;
+    }
+
+    /**
+     * Returns the new content of updates
+     *
+     * @return new content key
+     */
+    public ContentKey getNewContentKey() {
+        return newContentKey;
+    }
+
+    @Override
+    public String toString() {
+        return eventType + "(" + contentKey + ", " + positionName + ", " + newContentKey + ")";
+    }
+}
@@ -0,0 +1,272 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.exceptions.ContentChangeOverflowException;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers change events to subscribers. Every subscriber has its own bounded buffer for the events it has not
+ * requested yet and receives only as many events as it has requested, so a slow subscriber never blocks the content
+ * manager or other subscribers. If the buffer of a subscriber overflows, its subscription ends with a
+ * {@link ContentChangeOverflowException} and it has to read all contents again. Events are delivered by an executor,
+ * the events of a subscriber one after another.
+ */
+public class ContentChangePublisher implements Closeable {
+    /**
+     * Buffer size of subscribers without an own buffer size
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    private final Executor executor;
+    private final boolean ownExecutor;
+    private final List<Subscription> subscriptions;
+    private volatile boolean closed;
+
+    /**
+     * Creates a publisher with an own background thread
+     */
+    public ContentChangePublisher() {
+        this(Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "content-events");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }), true);
+    }
+
+    /**
+     * Creates a publisher
+     *
+     * @param executor executor which delivers the events, it is not shut down by the publisher
+     */
+    public ContentChangePublisher(Executor executor) {
+        this(executor, false);
+    }
+
+    private ContentChangePublisher(Executor executor, boolean ownExecutor) {
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        this.subscriptions = new CopyOnWriteArrayList<Subscription>();
+    }
+
+    /**
+     * Subscribes to the events with the default buffer size
+     *
+     * @param subscriber subscriber
+     */
+    public void subscribe(ContentChangeSubscriber subscriber) {
+        subscribe(subscriber, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Subscribes to the events
+     *
+     * @param subscriber subscriber
+     * @param bufferSize maximum number of events which are buffered until they are requested
+     */
+    public void subscribe(ContentChangeSubscriber subscriber, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive.");
+        }
+        Subscription subscription = new Subscription(subscriber, bufferSize);
+        subscriptions.add(subscription);
+        if (closed) {
+            subscription.complete();
+        } else {
+            subscription.schedule();
+        }
+    }
+
+    /**
+     * Checks if there are subscribers, so events have to be created
+     *
+     * @return true, if there is at least one subscriber
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Returns the number of subscribers
+     *
+     * @return number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Publishes events to all subscribers
+     *
+     * @param events events in the order of the changes
+     */
+    public void publish(List<ContentChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(events);
+        }
+    }
+
+    /**
+     * Completes all subscriptions after their buffered events were delivered. An own background thread is shut down
+     * afterwards.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Subscription subscription : subscriptions) {
+            subscription.complete();
+        }
+        if (ownExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    /**
+     * Subscription with the buffer and the requested number of events of a subscriber
+     */
+    private class Subscription implements ContentChangeSubscription, Runnable {
+        private final ContentChangeSubscriber subscriber;
+        private final int bufferSize;
+        private final ArrayDeque<ContentChangeEvent> buffer;
+        private final AtomicInteger pendingRuns;
+        private long demand;
+        private boolean subscribed;
+        private boolean cancelled;
+        private boolean completed;
+        private Throwable error;
+
+        private Subscription(ContentChangeSubscriber subscriber, int bufferSize) {
+            this.subscriber = subscriber;
+            this.bufferSize = bufferSize;
+            this.buffer = new ArrayDeque<ContentChangeEvent>();
+            this.pendingRuns = new AtomicInteger();
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (n <= 0) {
+                    terminate(new IllegalArgumentException("Number of requested events must be positive."));
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                buffer.clear();
+            }
+            subscriptions.remove(this);
+        }
+
+        private void offer(List<ContentChangeEvent> events) {
+            synchronized (this) {
+                if (cancelled || completed || error != null) {
+                    return;
+                }
+                // buffered events which are already requested are delivered without waiting for the subscriber
+                if ((long) buffer.size() + events.size() - demand > bufferSize) {
+                    terminate(new ContentChangeOverflowException("More than " + bufferSize + " change events were not requested."));
+                } else {
+                    buffer.addAll(events);
+                }
+            }
+            schedule();
+        }
+
+        private void complete() {
+            synchronized (this) {
+                completed = true;
+            }
+            schedule();
+        }
+
+        private void terminate(Throwable error) {
+            if (this.error == null && !cancelled) {
+                this.error = error;
+                buffer.clear();
+            }
+        }
+
+        private void schedule() {
+            if (pendingRuns.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    cancel();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int runs = 1;
+            do {
+                deliver();
+                runs = pendingRuns.addAndGet(-runs);
+            } while (runs != 0);
+        }
+
+        private void deliver() {
+            try {
+                if (!subscribed) {
+                    subscribed = true;
+                    subscriber.onSubscribe(this);
+                }
+                while (true) {
+                    ContentChangeEvent event;
+                    Throwable terminalError = null;
+                    boolean terminalComplete = false;
+                    synchronized (this) {
+                        if (cancelled) {
+                            return;
+                        }
+                        if (error != null) {
+                            terminalError = error;
+                            cancelled = true;
+                            event = null;
+                        } else if (demand > 0 && !buffer.isEmpty()) {
+                            event = buffer.poll();
+                            if (demand != Long.MAX_VALUE) {
+                                demand--;
+                            }
+                        } else if (completed && buffer.isEmpty()) {
+                            terminalComplete = true;
+                            cancelled = true;
+                            event = null;
+                        } else {
+                            return;
+                        }
+                    }
+                    if (terminalError != null) {
+                        subscriptions.remove(this);
+                        subscriber.onError(terminalError);
+                        return;
+                    }
+                    if (terminalComplete) {
+                        subscriptions.remove(this);
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(event);
+                }
+            } catch (RuntimeException e) {
+                // a failing subscriber does not receive further events
+                cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package de.hadizadeh.positioning.content;
+
+/**
+ * Receives the change events of a content manager. All methods of a subscriber are called one after another, never
+ * concurrently, in the thread of the publisher.
+ */
+public interface ContentChangeSubscriber {
+
+    /**
+     * Called once before any other method. Events are only delivered after they were requested by the subscription.
+     *
+     * @param subscription subscription for requesting events or cancelling
+     */
+    void onSubscribe(ContentChangeSubscription subscription);
+
+    /**
+     * Called for every requested event, in the order of the changes
+     *
+     * @param event change event
+     */
+    void onNext(ContentChangeEvent event);
+
+    /**
+     * Called when no more events are delivered because of an error, e.g. because the subscriber has requested too
+     * few events and its buffer overflowed. The subscriber has to read all contents again, if it subscribes again.
+     *
+     * @param error error
+     */
+    void onError(Throwable error);
+
+    /**
+     * Called when no more events are delivered, because the publisher was closed
+     */
+    void onComplete();
+}
@@ -0,0 +1,19 @@
+package de.hadizadeh.positioning.content;
+
+/**
+ * Connection between the publisher and a subscriber of change events
+ */
+public interface ContentChangeSubscription {
+
+    /**
+     * Requests further events. Events which are not requested are buffered up to the buffer size of the subscription.
+     *
+     * @param n number of events, Long.MAX_VALUE for all events
+     */
+    void request(long n);
+
+    /**
+     * Stops the delivery of events, buffered events are discarded
+     */
+    void cancel();
+}
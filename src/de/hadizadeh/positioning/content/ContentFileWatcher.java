@@ -0,0 +1,177 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches the persistence file of a content manager and refreshes the contents in the background, when the file was
+ * changed by others. Changes within the quiet period are collected and refreshed together. Only the differences are
+ * applied to the content manager, so readers keep the lists of unchanged positions and are never blocked. The size and
+ * modification time of the file are taken after every change of the content manager itself, a file which still has
+ * this state is not refreshed.
+ */
+public class ContentFileWatcher implements Closeable, ContentWriteListener {
+    private static final long DEFAULT_QUIET_PERIOD = 200;
+
+    private final ContentManager contentManager;
+    private final Path file;
+    private final Path fileName;
+    private final long quietPeriod;
+    private final WatchService watchService;
+    private final Thread thread;
+    private final AtomicLong refreshes;
+    private final AtomicLong errors;
+    private volatile String writtenState;
+    private volatile boolean closed;
+
+    /**
+     * Creates a watcher with a quiet period of 200 milliseconds and starts watching
+     *
+     * @param contentManager  content manager which is refreshed
+     * @param persistenceFile persistence file of the content manager
+     * @throws IOException if the directory of the file could not be watched
+     */
+    public ContentFileWatcher(ContentManager contentManager, File persistenceFile) throws IOException {
+        this(contentManager, persistenceFile, DEFAULT_QUIET_PERIOD);
+    }
+
+    /**
+     * Creates a watcher and starts watching
+     *
+     * @param contentManager  content manager which is refreshed
+     * @param persistenceFile persistence file of the content manager
+     * @param quietPeriod     milliseconds without further changes, before the contents are refreshed
+     * @throws IOException if the directory of the file could not be watched
+     */
+    public ContentFileWatcher(ContentManager contentManager, File persistenceFile, long quietPeriod) throws IOException {
+        this.contentManager = contentManager;
+        this.quietPeriod = quietPeriod;
+        this.refreshes = new AtomicLong();
+        this.errors = new AtomicLong();
+        this.file = persistenceFile.getAbsoluteFile().toPath();
+        this.fileName = file.getFileName();
+        this.watchService = file.getFileSystem().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "content-watch");
+        thread.setDaemon(true);
+        thread.start();
+        contentManager.addWriteListener(this);
+    }
+
+    /**
+     * Returns how often the contents were refreshed
+     *
+     * @return number of refreshes
+     */
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    /**
+     * Returns how often the contents could not be refreshed, e.g. because the file was not in a correct format
+     *
+     * @return number of failed refreshes
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * Takes the state of the file after a change of the content manager
+     */
+    @Override
+    public void onContentsWritten() {
+        writtenState = readState();
+    }
+
+    /**
+     * Stops watching and waits for a running refresh
+     *
+     * @throws IOException if the watch service could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        contentManager.removeWriteListener(this);
+        watchService.close();
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void watch() {
+        try {
+            while (!closed) {
+                if (!isFileChanged(watchService.take())) {
+                    continue;
+                }
+                WatchKey key;
+                while ((key = watchService.poll(quietPeriod, TimeUnit.MILLISECONDS)) != null) {
+                    isFileChanged(key);
+                }
+                refresh();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // closed
+        } catch (InterruptedException e) {
+            // closed
+        }
+    }
+
+    private boolean isFileChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void refresh() {
+        if (closed) {
+            return;
+        }
+        String state = writtenState;
+        if (state != null && state.equals(readState())) {
+            // the file was written by the content manager itself
+            return;
+        }
+        try {
+            contentManager.refreshContents();
+            refreshes.incrementAndGet();
+        } catch (ContentPersistenceException e) {
+            // the file may be written partly, the next change refreshes the contents again
+            errors.incrementAndGet();
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the size and the modification time of the file, or null if they could not be read
+     */
+    private String readState() {
+        try {
+            return Files.size(file) + ":" + Files.getLastModifiedTime(file).to(TimeUnit.NANOSECONDS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.exceptions.ContentAlreadyExistsException;
+import de.hadizadeh.positioning.content.exceptions.ContentSameDataException;
+
+import java.util.*;
+
+/**
+ * In-memory model of all contents with their connected positions, indexed by type and data. Operations are applied
+ * with the same results as the persistence managers return them. The index is not thread-safe.
+ */
+public class ContentIndex {
+    private final Map<ContentKey, Set<String>> items;
+
+    /**
+     * Creates an empty index
+     */
+    public ContentIndex() {
+        items = new LinkedHashMap<ContentKey, Set<String>>();
+    }
+
+    /**
+     * Creates an index of contents with their positions
+     *
+     * @param contents contents, e.g. from {@link ContentPersistenceManager#getAllContents()}
+     */
+    public ContentIndex(List<Content> contents) {
+        this();
+        addAll(contents);
+    }
+
+    /**
+     * Adds contents with their positions
+     *
+     * @param contents contents, e.g. from {@link ContentPersistenceManager#getAllContents()}
+     */
+    public void addAll(List<Content> contents) {
+        for (Content content : contents) {
+            add(ContentKey.of(content), content.getPositions() != null ? content.getPositions() : Collections.<String>emptyList());
+        }
+    }
+
+    /**
+     * Adds a content with its positions. If the content already exists, the positions are added to it.
+     *
+     * @param key       content
+     * @param positions connected positions
+     */
+    public void add(ContentKey key, Collection<String> positions) {
+        Set<String> contentPositions = items.get(key);
+        if (contentPositions == null) {
+            contentPositions = new LinkedHashSet<String>();
+            items.put(key, contentPositions);
+        }
+        contentPositions.addAll(positions);
+    }
+
+    /**
+     * Checks if a content exists
+     *
+     * @param key content
+     * @return true, if the content exists
+     */
+    public boolean contains(ContentKey key) {
+        return items.containsKey(key);
+    }
+
+    /**
+     * Returns the connected positions of a content
+     *
+     * @param key content
+     * @return unmodifiable connected positions or null, if the content does not exist
+     */
+    public Set<String> getPositions(ContentKey key) {
+        Set<String> positions = items.get(key);
+        return positions != null ? Collections.unmodifiableSet(positions) : null;
+    }
+
+    /**
+     * Returns all contents with their connected positions in the order they were added
+     *
+     * @return unmodifiable view of all contents
+     */
+    public Map<ContentKey, Set<String>> getItems() {
+        return Collections.unmodifiableMap(items);
+    }
+
+    /**
+     * Returns the number of contents
+     *
+     * @return number of contents
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Removes all contents
+     */
+    public void clear() {
+        items.clear();
+    }
+
+    /**
+     * Returns copies of all contents with their positions
+     *
+     * @return all contents
+     */
+    public ContentList<Content> getAllContents() {
+        ContentList<Content> contents = new ContentList<Content>();
+        for (Map.Entry<ContentKey, Set<String>> item : items.entrySet()) {
+            ContentKey key = item.getKey();
+            contents.add(new Content(key.getType(), key.getData(), new ArrayList<String>(item.getValue())));
+        }
+        return contents;
+    }
+
+    /**
+     * Returns all connected contents with positions. Every content is a single object which is shared by all of its
+     * positions and cannot be changed.
+     *
+     * @return contents with position names
+     */
+    public Map<String, ContentList<Content>> getConnectedContents() {
+        Map<String, ContentList<Content>> contents = new HashMap<String, ContentList<Content>>();
+        for (Map.Entry<ContentKey, Set<String>> item : items.entrySet()) {
+            ContentKey key = item.getKey();
+            Content content = new SharedContent(key.getType(), key.getData());
+            for (String position : item.getValue()) {
+                ContentList<Content> positionContents = contents.get(position);
+                if (positionContents == null) {
+                    positionContents = new ContentList<Content>();
+                    contents.put(position, positionContents);
+                }
+                positionContents.add(content);
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * Checks that all updates of a batch will succeed, before anything is changed. Updates are the only operations
+     * which can fail.
+     *
+     * @param operations operations of the batch
+     * @throws ContentSameDataException      new and old data of an update are same
+     * @throws ContentAlreadyExistsException a content with the same new type and data of an update is already existent
+     */
+    public void validate(List<ContentOperation> operations) throws ContentSameDataException, ContentAlreadyExistsException {
+        Map<ContentKey, Boolean> existing = new HashMap<ContentKey, Boolean>();
+        boolean cleared = false;
+        for (ContentOperation operation : operations) {
+            switch (operation.getOperationType()) {
+                case ADD_CONTENT:
+                    existing.put(operation.getContentKey(), Boolean.TRUE);
+                    break;
+                case REMOVE_CONTENT:
+                    existing.put(operation.getContentKey(), Boolean.FALSE);
+                    break;
+                case REMOVE_ALL_CONTENT:
+                    existing.clear();
+                    cleared = true;
+                    break;
+                case UPDATE_CONTENT:
+                    ContentKey oldKey = operation.getContentKey();
+                    ContentKey newKey = new ContentKey(operation.getNewContentType(), operation.getNewData());
+                    if (oldKey.equals(newKey)) {
+                        throw new ContentSameDataException("Same old and new data.");
+                    }
+                    if (exists(existing, cleared, newKey)) {
+                        throw new ContentAlreadyExistsException("A content with same data already exists.");
+                    }
+                    if (exists(existing, cleared, oldKey)) {
+                        existing.put(oldKey, Boolean.FALSE);
+                        existing.put(newKey, Boolean.TRUE);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private boolean exists(Map<ContentKey, Boolean> existing, boolean cleared, ContentKey key) {
+        Boolean exists = existing.get(key);
+        if (exists != null) {
+            return exists;
+        }
+        return !cleared && items.containsKey(key);
+    }
+
+    /**
+     * Executes an operation
+     *
+     * @param operation operation
+     * @return true, if the operation has changed the data, false if it failed or nothing had to be changed
+     * @throws ContentSameDataException      new and old data of an update are same
+     * @throws ContentAlreadyExistsException a content with the same new type and data of an update is already existent
+     */
+    public boolean apply(ContentOperation operation) throws ContentSameDataException, ContentAlreadyExistsException {
+        ContentKey key = operation.getContentKey();
+        Set<String> positions;
+        switch (operation.getOperationType()) {
+            case ADD_CONTENT:
+                if (items.containsKey(key)) {
+                    return false;
+                }
+                items.put(key, new LinkedHashSet<String>());
+                return true;
+            case REMOVE_CONTENT:
+                return items.remove(key) != null;
+            case ADD_POSITION:
+                positions = items.get(key);
+                return positions != null && positions.add(operation.getPositionName());
+            case REMOVE_POSITION:
+                positions = items.get(key);
+                return positions != null && positions.remove(operation.getPositionName());
+            case REMOVE_POSITIONS:
+                positions = items.get(key);
+                if (positions == null || positions.isEmpty()) {
+                    return false;
+                }
+                positions.clear();
+                return true;
+            case UPDATE_CONTENT:
+                ContentKey newKey = new ContentKey(operation.getNewContentType(), operation.getNewData());
+                if (key.equals(newKey)) {
+                    throw new ContentSameDataException("Same old and new data.");
+                }
+                if (items.containsKey(newKey)) {
+                    throw new ContentAlreadyExistsException("A content with same data already exists.");
+                }
+                positions = items.remove(key);
+                if (positions == null) {
+                    return false;
+                }
+                items.put(newKey, positions);
+                return true;
+            case REMOVE_ALL_CONTENT:
+                if (items.isEmpty()) {
+                    return false;
+                }
+                items.clear();
+                return true;
+            case REMOVE_ALL_POSITIONS:
+                boolean changed = false;
+                for (Set<String> contentPositions : items.values()) {
+                    if (!contentPositions.isEmpty()) {
+                        contentPositions.clear();
+                        changed = true;
+                    }
+                }
+                return changed;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation.getOperationType());
+        }
+    }
+}
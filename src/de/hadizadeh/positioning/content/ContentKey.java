@@ -0,0 +1,85 @@
+package de.hadizadeh.positioning.content;
+
+/**
+ * Identity of a content element. Two keys are equal, if type and data are equal.
+ */
+public final class ContentKey {
+    private final Content.ContentType type;
+    private final String data;
+    private final int hash;
+
+    /**
+     * Creates a content key
+     *
+     * @param type content type
+     * @param data content data
+     */
+    public ContentKey(Content.ContentType type, String data) {
+        this.type = type;
+        this.data = data;
+        this.hash = 31 * (type != null ? type.hashCode() : 0) + (data != null ? data.hashCode() : 0);
+    }
+
+    /**
+     * Creates the key of an existing content
+     *
+     * @param content content
+     * @return key of the content
+     */
+    public static ContentKey of(Content content) {
+        return new ContentKey(content.getType(), content.getData());
+    }
+
+    /**
+     * Returns the content type
+     *
+     * @return content type
+     */
+    public Content.ContentType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the content data
+     *
+     * @return content data
+     */
+    public String getData() {
+        return data;
+    }
+
+    /**
+     * Checks if a content has the type and the data of this key
+     *
+     * @param content content
+     * @return true, if type and data are equal
+     */
+    public boolean matches(Content content) {
+        return content != null && type == content.getType() && (data != null ? data.equals(content.getData()) : content.getData() == null);
+    }
+
+    @Override
+    public String toString() {
+        return type + ":" + data;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof ContentKey))
+            return false;
+
+        ContentKey contentKey = (ContentKey) o;
+
+        if (hash != contentKey.hash || type != contentKey.type)
+            return false;
+
+        return data != null ? data.equals(contentKey.data) : contentKey.data == null;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
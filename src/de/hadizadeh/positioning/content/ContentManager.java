@@ -6,8 +6,8 @@ import de.hadizadeh.positioning.content.exceptions.ContentSameDataException;
 import de.hadizadeh.positioning.model.PositionInformation;
 
 import java.io.File;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Manages all actions for contents
@@ -18,9 +18,31 @@ public class ContentManager {
      */
     protected ContentPersistenceManager contentPersistenceManager;
     /**
-     * All persisted and loaded content
+     * All persisted and loaded content. The map and its lists are never changed after they were published, every
+     * change publishes a new map which shares all unchanged lists and most of its structure with the previous one.
      */
-    protected Map<String, ContentList<Content>> contents;
+    protected volatile PersistentHashMap<String, ContentList<Content>> contents;
+    /**
+     * Connected positions of every loaded content, the reverse of the contents of every position. Used for applying
+     * changes only to the affected positions and for looking up the positions of a content.
+     */
+    protected Map<ContentKey, Set<String>> contentPositions;
+    /**
+     * Shared content objects of all loaded contents, every content is held only once for all of its positions
+     */
+    protected ContentRegistry contentRegistry;
+    /**
+     * Listener which receives the durations of lookups, reloads and published changes, null if nothing is measured
+     */
+    protected volatile ContentMetricsListener metricsListener;
+    private PersistentHashMap<String, ContentList<Content>> unchangedContents;
+    private Map<String, ContentList<Content>> changedContents;
+    private List<Undo> undoLog;
+    private boolean allPositionsChanged;
+    private volatile ContentSearchIndex searchIndex;
+    private ContentChangePublisher changePublisher;
+    private List<ContentChangeEvent> changeEvents;
+    private final List<ContentWriteListener> writeListeners = new CopyOnWriteArrayList<ContentWriteListener>();
 
     /**
      * Creates the content manager
@@ -49,7 +71,7 @@ public class ContentManager {
      */
     public ContentManager(ContentPersistenceManager contentPersistenceManager) throws ContentPersistenceException {
         this.contentPersistenceManager = contentPersistenceManager;
-        contents = this.contentPersistenceManager.getConnectedContents();
+        reloadContents();
     }
 
     /**
@@ -63,17 +85,26 @@ public class ContentManager {
     }
 
     /**
-     * Returns all connected contents of a given position
+     * Returns all connected contents of a given position. Can be called from any thread without blocking, the
+     * returned list must not be changed. Contents of a type are read from the list without searching it.
      *
      * @param positionInformation position
      * @return connected content
      */
     public ContentList<Content> getContents(PositionInformation positionInformation) {
-        return contents.get(positionInformation.getName());
+        ContentMetricsListener listener = metricsListener;
+        if (listener == null) {
+            return contents.get(positionInformation.getName());
+        }
+        long start = System.nanoTime();
+        ContentList<Content> positionContents = contents.get(positionInformation.getName());
+        listener.onOperation("getContents", System.nanoTime() - start, false);
+        return positionContents;
     }
 
     /**
-     * Returns all connected contents of all positions
+     * Returns all connected contents of all positions. The returned map is an unmodifiable snapshot, which is not
+     * affected by later changes.
      *
      * @return contents with position names
      * @throws ContentPersistenceException if content could not be loaded from file
@@ -82,6 +113,143 @@ public class ContentManager {
         return contents;
     }
 
+    /**
+     * Returns the connected positions of a content
+     *
+     * @param contentType content type
+     * @param data        content data
+     * @return unmodifiable copy of the position names, empty if the content is not connected or does not exist
+     */
+    public synchronized Set<String> getPositions(Content.ContentType contentType, String data) {
+        Set<String> positions = contentPositions.get(new ContentKey(contentType, data));
+        return positions != null ? Collections.unmodifiableSet(new HashSet<String>(positions)) : Collections.<String>emptySet();
+    }
+
+    /**
+     * Returns the connected contents of multiple positions. Can be called from any thread without blocking, the
+     * returned lists must not be changed.
+     *
+     * @param positionNames names of the positions
+     * @return contents with position names, positions without contents are left out
+     */
+    public Map<String, ContentList<Content>> getContentsForPositions(Collection<String> positionNames) {
+        Map<String, ContentList<Content>> currentContents = contents;
+        Map<String, ContentList<Content>> positionContents = new LinkedHashMap<String, ContentList<Content>>();
+        for (String positionName : positionNames) {
+            ContentList<Content> connectedContents = currentContents.get(positionName);
+            if (connectedContents != null) {
+                positionContents.put(positionName, connectedContents);
+            }
+        }
+        return positionContents;
+    }
+
+    /**
+     * Returns the registry of the shared content objects, e.g. for reporting its heap size. The registry must not be
+     * changed.
+     *
+     * @return content registry
+     */
+    public ContentRegistry getContentRegistry() {
+        return contentRegistry;
+    }
+
+    /**
+     * Sets the listener which receives the durations of lookups, reloads and published changes. Operations of the
+     * persistence manager can be measured with an {@link InstrumentedContentPersistenceManager}.
+     *
+     * @param metricsListener listener or null, for not measuring anything
+     */
+    public void setMetricsListener(ContentMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Returns the listener which receives the measurements
+     *
+     * @return listener or null, if nothing is measured
+     */
+    public ContentMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Adds a listener which is called after changes of the content manager were stored, e.g. for recognizing own
+     * changes of the persistence file
+     *
+     * @param writeListener listener
+     */
+    public void addWriteListener(ContentWriteListener writeListener) {
+        writeListeners.add(writeListener);
+    }
+
+    /**
+     * Removes a listener which is called after changes were stored
+     *
+     * @param writeListener listener
+     */
+    public void removeWriteListener(ContentWriteListener writeListener) {
+        writeListeners.remove(writeListener);
+    }
+
+    /**
+     * Subscribes to the changes of the loaded contents. Events are delivered in the order of the changes, after the
+     * changes are visible to readers.
+     *
+     * @param subscriber subscriber
+     */
+    public void subscribe(ContentChangeSubscriber subscriber) {
+        getChangePublisher().subscribe(subscriber);
+    }
+
+    /**
+     * Returns the publisher of the change events, which is created with an own background thread by the first call
+     *
+     * @return publisher of the change events
+     */
+    public synchronized ContentChangePublisher getChangePublisher() {
+        if (changePublisher == null) {
+            changePublisher = new ContentChangePublisher();
+        }
+        return changePublisher;
+    }
+
+    /**
+     * Sets the publisher of the change events, e.g. for delivering events with an own executor. Subscribers of the
+     * previous publisher receive no further events.
+     *
+     * @param changePublisher publisher of the change events
+     */
+    public synchronized void setChangePublisher(ContentChangePublisher changePublisher) {
+        this.changePublisher = changePublisher;
+    }
+
+    /**
+     * Searches the textual contents for words of a query. The search index is built by the first search and updated
+     * by every change afterwards.
+     *
+     * @param query        words which are searched
+     * @param contentTypes content types which are searched, null for all textual types
+     * @param limit        maximum number of results
+     * @return matching contents with their connected positions, the best matches first
+     * @throws ContentPersistenceException if the contents could not be loaded for building the index
+     */
+    public synchronized ContentList<Content> search(String query, EnumSet<Content.ContentType> contentTypes, int limit) throws ContentPersistenceException {
+        if (searchIndex == null) {
+            ContentSearchIndex index = new ContentSearchIndex();
+            for (Content content : getAllContents()) {
+                index.add(ContentKey.of(content));
+            }
+            searchIndex = index;
+        }
+        ContentList<Content> results = new ContentList<Content>();
+        for (ContentKey key : searchIndex.search(query, contentTypes, limit)) {
+            Set<String> positions = contentPositions.get(key);
+            results.add(new Content(key.getType(), key.getData(), positions != null ? new ArrayList<String>(positions) : new ArrayList<String>()));
+        }
+        return results;
+    }
+
     /**
      * Adds a new content
      *
@@ -90,9 +258,11 @@ public class ContentManager {
      * @return true, if the operation was successful, false if it failed
      * @throws ContentPersistenceException if content could not saved to file
      */
-    public boolean addContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+    public synchronized boolean addContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
         boolean result = contentPersistenceManager.addContent(contentType, data);
-        contents = contentPersistenceManager.getConnectedContents();
+        if (result) {
+            applyChanges(Collections.singletonList(ContentOperation.addContent(contentType, data)));
+        }
         return result;
     }
 
@@ -104,9 +274,11 @@ public class ContentManager {
      * @return true, if the operation was successful, false if it failed
      * @throws ContentPersistenceException if content could not be removed from file
      */
-    public boolean removeContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+    public synchronized boolean removeContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
         boolean result = contentPersistenceManager.removeContent(contentType, data);
-        contents = contentPersistenceManager.getConnectedContents();
+        if (result) {
+            applyChanges(Collections.singletonList(ContentOperation.removeContent(contentType, data)));
+        }
         return result;
     }
 
@@ -119,9 +291,11 @@ public class ContentManager {
      * @return true, if the operation was successful, false if it failed
      * @throws ContentPersistenceException if position could not be saved to file
      */
-    public boolean addPosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+    public synchronized boolean addPosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
         boolean result = contentPersistenceManager.addPosition(contentType, data, positionName);
-        contents = contentPersistenceManager.getConnectedContents();
+        if (result) {
+            applyChanges(Collections.singletonList(ContentOperation.addPosition(contentType, data, positionName)));
+        }
         return result;
     }
 
@@ -134,10 +308,18 @@ public class ContentManager {
      * @return true, if the operation was successful, false if it failed
      * @throws ContentPersistenceException if positions could not be saved to file
      */
-    public boolean addPositions(List<Content.ContentType> contentTypes, List<String> multipleData, List<String> positionNames) throws ContentPersistenceException {
-        boolean result = contentPersistenceManager.addPositions(contentTypes, multipleData, positionNames);
-        contents = contentPersistenceManager.getConnectedContents();
-        return result;
+    public synchronized boolean addPositions(List<Content.ContentType> contentTypes, List<String> multipleData, List<String> positionNames) throws ContentPersistenceException {
+        List<ContentOperation> operations = new ArrayList<ContentOperation>(contentTypes.size());
+        for (int i = 0; i < contentTypes.size(); i++) {
+            operations.add(ContentOperation.addPosition(contentTypes.get(i), multipleData.get(i), positionNames.get(i)));
+        }
+        try {
+            return !executeBatch(operations).contains(false);
+        } catch (ContentSameDataException e) {
+            throw new IllegalStateException(e);
+        } catch (ContentAlreadyExistsException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
@@ -149,9 +331,11 @@ public class ContentManager {
      * @return true, if the operation was successful, false if it failed
      * @throws ContentPersistenceException if changes could not be saved to file
      */
-    public boolean removePosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+    public synchronized boolean removePosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
         boolean result = contentPersistenceManager.removePosition(contentType, data, positionName);
-        contents = contentPersistenceManager.getConnectedContents();
+        if (result) {
+            applyChanges(Collections.singletonList(ContentOperation.removePosition(contentType, data, positionName)));
+        }
         return result;
     }
 
@@ -160,12 +344,14 @@ public class ContentManager {
      *
      * @param contentType content type
      * @param data        content data
-     * @return true, if the operation was successful, false if it failed
+     * @return true, if positions were removed, false if the content does not exist or has no positions
      * @throws ContentPersistenceException if changes could not be saved to file
      */
-    public boolean removeAllPositions(Content.ContentType contentType, String data) throws ContentPersistenceException {
+    public synchronized boolean removeAllPositions(Content.ContentType contentType, String data) throws ContentPersistenceException {
         boolean result = contentPersistenceManager.removeAllPositions(contentType, data);
-        contents = contentPersistenceManager.getConnectedContents();
+        if (result) {
+            applyChanges(Collections.singletonList(ContentOperation.removeAllPositions(contentType, data)));
+        }
         return result;
     }
 
@@ -181,9 +367,11 @@ public class ContentManager {
      * @throws ContentSameDataException      new and old data are same
      * @throws ContentAlreadyExistsException a content with the same new type and data is already existent
      */
-    public boolean updateContent(Content.ContentType oldContentType, String oldData, Content.ContentType newContentType, String newData) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+    public synchronized boolean updateContent(Content.ContentType oldContentType, String oldData, Content.ContentType newContentType, String newData) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
         boolean result = contentPersistenceManager.updateContent(oldContentType, oldData, newContentType, newData);
-        contents = contentPersistenceManager.getConnectedContents();
+        if (result) {
+            applyChanges(Collections.singletonList(ContentOperation.updateContent(oldContentType, oldData, newContentType, newData)));
+        }
         return result;
     }
 
@@ -192,9 +380,9 @@ public class ContentManager {
      *
      * @throws ContentPersistenceException if changes could not be saved to file
      */
-    public void removeAllContent() throws ContentPersistenceException {
+    public synchronized void removeAllContent() throws ContentPersistenceException {
         contentPersistenceManager.removeAllContent();
-        contents = contentPersistenceManager.getConnectedContents();
+        applyChanges(Collections.singletonList(ContentOperation.removeAllContent()));
     }
 
     /**
@@ -202,8 +390,515 @@ public class ContentManager {
      *
      * @throws ContentPersistenceException if changes could not be saved to file
      */
-    public void removeAllPositions() throws ContentPersistenceException {
+    public synchronized void removeAllPositions() throws ContentPersistenceException {
         contentPersistenceManager.removeAllPositions();
-        contents = contentPersistenceManager.getConnectedContents();
+        applyChanges(Collections.singletonList(ContentOperation.removeAllPositions()));
+    }
+
+    /**
+     * Executes multiple operations at once. Either all operations are executed and persisted together or, if one of
+     * them fails, none of them.
+     *
+     * @param operations operations in the order of execution
+     * @return result of every operation in the same order, true if the operation was successful, false if it failed
+     * @throws ContentPersistenceException   if changes could not be saved to file
+     * @throws ContentSameDataException      new and old data of an update are same
+     * @throws ContentAlreadyExistsException a content with the same new type and data of an update is already existent
+     */
+    public synchronized List<Boolean> executeBatch(List<ContentOperation> operations) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        List<Boolean> results = contentPersistenceManager.executeBatch(operations);
+        List<ContentOperation> changes = new ArrayList<ContentOperation>();
+        for (int i = 0; i < operations.size(); i++) {
+            if (results.get(i)) {
+                changes.add(operations.get(i));
+            }
+        }
+        applyChanges(changes);
+        return results;
+    }
+
+    /**
+     * Applies successfully executed operations to the loaded contents and publishes the changed contents. Only the
+     * lists of the affected positions are copied, the new map shares everything else with the previous one. If
+     * applying fails before the contents are published, the changes of the position lookup are reverted.
+     *
+     * @param operations successfully executed operations
+     */
+    protected void applyChanges(List<ContentOperation> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        unchangedContents = contents;
+        changedContents = new HashMap<String, ContentList<Content>>();
+        undoLog = new ArrayList<Undo>();
+        allPositionsChanged = false;
+        changeEvents = changePublisher != null && changePublisher.hasSubscribers() ? new ArrayList<ContentChangeEvent>() : null;
+        try {
+            for (ContentOperation operation : operations) {
+                applyChange(operation);
+            }
+            PersistentHashMap<String, ContentList<Content>> publishedContents = unchangedContents;
+            for (Map.Entry<String, ContentList<Content>> positionContents : changedContents.entrySet()) {
+                if (positionContents.getValue() != null) {
+                    publishedContents = publishedContents.with(positionContents.getKey(), positionContents.getValue());
+                } else {
+                    publishedContents = publishedContents.without(positionContents.getKey());
+                }
+            }
+            contents = publishedContents;
+            undoLog = null;
+            contentsChanged(allPositionsChanged ? null : changedContents.keySet());
+            if (changeEvents != null) {
+                changePublisher.publish(changeEvents);
+            }
+            for (ContentWriteListener writeListener : writeListeners) {
+                writeListener.onContentsWritten();
+            }
+            failed = false;
+        } finally {
+            if (undoLog != null) {
+                revertChanges();
+            }
+            unchangedContents = null;
+            changedContents = null;
+            undoLog = null;
+            changeEvents = null;
+            recordOperation("publish", start, failed);
+        }
+    }
+
+    private void revertChanges() {
+        for (int i = undoLog.size() - 1; i >= 0; i--) {
+            undoLog.get(i).undo();
+        }
+        // the search index is built again by the next search
+        searchIndex = null;
+    }
+
+    /**
+     * Applies a successfully executed operation to the contents which are about to be published
+     *
+     * @param operation operation
+     */
+    protected void applyChange(ContentOperation operation) {
+        if (searchIndex != null) {
+            updateSearchIndex(operation);
+        }
+        switch (operation.getOperationType()) {
+            case ADD_CONTENT:
+                changed(ContentChangeEvent.contentAdded(operation.getContentKey()));
+                break;
+            case REMOVE_CONTENT:
+                unlinkPositions(operation.getContentKey());
+                changed(ContentChangeEvent.contentRemoved(operation.getContentKey()));
+                break;
+            case REMOVE_POSITIONS:
+                unlinkPositions(operation.getContentKey());
+                break;
+            case ADD_POSITION:
+                linkPosition(operation.getContentKey(), operation.getPositionName());
+                break;
+            case REMOVE_POSITION:
+                unlinkPosition(operation.getContentKey(), operation.getPositionName());
+                break;
+            case UPDATE_CONTENT:
+                ContentKey newKey = new ContentKey(operation.getNewContentType(), operation.getNewData());
+                replaceContent(operation.getContentKey(), newKey);
+                changed(ContentChangeEvent.contentUpdated(operation.getContentKey(), newKey));
+                break;
+            case REMOVE_ALL_CONTENT:
+            case REMOVE_ALL_POSITIONS:
+                unchangedContents = PersistentHashMap.empty();
+                changedContents.clear();
+                unlinkAll();
+                allPositionsChanged = true;
+                changed(operation.getOperationType() == ContentOperation.OperationType.REMOVE_ALL_CONTENT
+                        ? ContentChangeEvent.allContentsRemoved() : ContentChangeEvent.allPositionsRemoved());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void updateSearchIndex(ContentOperation operation) {
+        switch (operation.getOperationType()) {
+            case ADD_CONTENT:
+                searchIndex.add(operation.getContentKey());
+                break;
+            case REMOVE_CONTENT:
+                searchIndex.remove(operation.getContentKey());
+                break;
+            case UPDATE_CONTENT:
+                searchIndex.remove(operation.getContentKey());
+                searchIndex.add(new ContentKey(operation.getNewContentType(), operation.getNewData()));
+                break;
+            case REMOVE_ALL_CONTENT:
+                searchIndex.clear();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Loads all connected contents from the persistence manager and rebuilds the position lookup
+     *
+     * @throws ContentPersistenceException if content could not be loaded from file
+     */
+    protected synchronized void reloadContents() throws ContentPersistenceException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            loadContents();
+            if (changePublisher != null && changePublisher.hasSubscribers()) {
+                changePublisher.publish(Collections.singletonList(ContentChangeEvent.contentsReloaded()));
+            }
+            failed = false;
+        } finally {
+            recordOperation("reload", start, failed);
+        }
+    }
+
+    /**
+     * Loads all connected contents from the persistence manager again and applies only the differences to the loaded
+     * contents, e.g. after the persistence file was edited by others. The contents are loaded and compared without
+     * locking the content manager, positions whose contents have not changed keep their lists and the search index is
+     * updated with the differences.
+     *
+     * @return number of added and removed connections between contents and positions
+     * @throws ContentPersistenceException if content could not be loaded from file
+     */
+    public int refreshContents() throws ContentPersistenceException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Map<String, ContentList<Content>> previousContents = contents;
+            if (contentPersistenceManager instanceof ReloadableContentPersistenceManager) {
+                ((ReloadableContentPersistenceManager) contentPersistenceManager).reload();
+            }
+            Map<String, ContentList<Content>> loadedContents = contentPersistenceManager.getConnectedContents();
+            Set<ContentKey> loadedKeys = searchIndex != null ? getKeys(contentPersistenceManager.getAllContents()) : null;
+            List<ContentOperation> changes = getDifferences(previousContents, loadedContents);
+            synchronized (this) {
+                if (contents != previousContents) {
+                    // changed while loading, the loaded contents may not contain the changes
+                    loadedContents = contentPersistenceManager.getConnectedContents();
+                    loadedKeys = searchIndex != null ? getKeys(contentPersistenceManager.getAllContents()) : null;
+                    changes = getDifferences(contents, loadedContents);
+                }
+                if (searchIndex != null) {
+                    if (loadedKeys != null) {
+                        // contents without positions are not part of the differences
+                        for (ContentKey key : new ArrayList<ContentKey>(searchIndex.getKeys())) {
+                            if (!loadedKeys.contains(key)) {
+                                searchIndex.remove(key);
+                            }
+                        }
+                        for (ContentKey key : loadedKeys) {
+                            searchIndex.add(key);
+                        }
+                    } else {
+                        searchIndex = null;
+                    }
+                }
+                applyChanges(changes);
+            }
+            failed = false;
+            return changes.size();
+        } finally {
+            recordOperation("refresh", start, failed);
+        }
+    }
+
+    private static List<ContentOperation> getDifferences(Map<String, ContentList<Content>> currentContents, Map<String, ContentList<Content>> loadedContents) {
+        List<ContentOperation> changes = new ArrayList<ContentOperation>();
+        for (Map.Entry<String, ContentList<Content>> positionContents : currentContents.entrySet()) {
+            ContentList<Content> loadedPositionContents = loadedContents.get(positionContents.getKey());
+            Set<ContentKey> loadedKeys = loadedPositionContents != null ? getKeys(loadedPositionContents) : Collections.<ContentKey>emptySet();
+            for (Content content : positionContents.getValue()) {
+                if (!loadedKeys.contains(ContentKey.of(content))) {
+                    changes.add(ContentOperation.removePosition(content.getType(), content.getData(), positionContents.getKey()));
+                }
+            }
+        }
+        for (Map.Entry<String, ContentList<Content>> positionContents : loadedContents.entrySet()) {
+            ContentList<Content> currentPositionContents = currentContents.get(positionContents.getKey());
+            Set<ContentKey> currentKeys = currentPositionContents != null ? getKeys(currentPositionContents) : Collections.<ContentKey>emptySet();
+            for (Content content : positionContents.getValue()) {
+                if (!currentKeys.contains(ContentKey.of(content))) {
+                    changes.add(ContentOperation.addPosition(content.getType(), content.getData(), positionContents.getKey()));
+                }
+            }
+        }
+        return changes;
+    }
+
+    private static Set<ContentKey> getKeys(List<Content> contents) {
+        Set<ContentKey> keys = new HashSet<ContentKey>();
+        for (Content content : contents) {
+            keys.add(ContentKey.of(content));
+        }
+        return keys;
+    }
+
+    private void loadContents() throws ContentPersistenceException {
+        Map<String, ContentList<Content>> loadedContents = new HashMap<String, ContentList<Content>>();
+        contentPositions = new HashMap<ContentKey, Set<String>>();
+        contentRegistry = new ContentRegistry();
+        for (Map.Entry<String, ContentList<Content>> positionContents : contentPersistenceManager.getConnectedContents().entrySet()) {
+            TypedContentList sharedContents = new TypedContentList();
+            loadedContents.put(positionContents.getKey(), sharedContents);
+            for (Content content : positionContents.getValue()) {
+                ContentKey key = ContentKey.of(content);
+                sharedContents.add(contentRegistry.intern(key));
+                Set<String> positions = contentPositions.get(key);
+                if (positions == null) {
+                    positions = new HashSet<String>();
+                    contentPositions.put(key, positions);
+                }
+                positions.add(positionContents.getKey());
+            }
+        }
+        contents = PersistentHashMap.copyOf(loadedContents);
+        searchIndex = null;
+        contentsChanged(null);
+    }
+
+    /**
+     * Reports the duration of an operation and the number of positions with contents to the metrics listener, if
+     * there is one
+     *
+     * @param operation name of the operation
+     * @param start     start time of the operation from {@link System#nanoTime()}
+     * @param failed    true, if the operation failed
+     */
+    protected void recordOperation(String operation, long start, boolean failed) {
+        ContentMetricsListener listener = metricsListener;
+        if (listener != null) {
+            listener.onOperation(operation, System.nanoTime() - start, failed);
+            if (!failed) {
+                listener.onPositionCount(contents.size());
+            }
+        }
+    }
+
+    /**
+     * Called after changed contents were published, while the content manager is locked
+     *
+     * @param positionNames names of the positions whose contents have changed or were removed, null if all positions
+     *                      may have changed
+     */
+    protected void contentsChanged(Set<String> positionNames) {
+    }
+
+    /**
+     * Connects a content with a position
+     *
+     * @param key          content
+     * @param positionName position name
+     */
+    protected void linkPosition(final ContentKey key, final String positionName) {
+        Set<String> positions = contentPositions.get(key);
+        if (positions == null) {
+            positions = new HashSet<String>();
+            contentPositions.put(key, positions);
+        }
+        if (positions.add(positionName)) {
+            undo(new Undo() {
+                @Override
+                public void undo() {
+                    Set<String> linkedPositions = contentPositions.get(key);
+                    linkedPositions.remove(positionName);
+                    if (linkedPositions.isEmpty()) {
+                        contentPositions.remove(key);
+                    }
+                }
+            });
+            registryChanged(key);
+            changedPosition(positionName).add(contentRegistry.intern(key));
+            changed(ContentChangeEvent.positionLinked(key, positionName));
+        }
+    }
+
+    /**
+     * Disconnects a content from a position
+     *
+     * @param key          content
+     * @param positionName position name
+     */
+    protected void unlinkPosition(final ContentKey key, final String positionName) {
+        Set<String> positions = contentPositions.get(key);
+        if (positions != null && positions.remove(positionName)) {
+            undo(new Undo() {
+                @Override
+                public void undo() {
+                    Set<String> linkedPositions = contentPositions.get(key);
+                    if (linkedPositions == null) {
+                        linkedPositions = new HashSet<String>();
+                        contentPositions.put(key, linkedPositions);
+                    }
+                    linkedPositions.add(positionName);
+                }
+            });
+            if (positions.isEmpty()) {
+                contentPositions.remove(key);
+                registryChanged(key);
+                contentRegistry.remove(key);
+            }
+            removeFromPosition(key, positionName);
+            changed(ContentChangeEvent.positionUnlinked(key, positionName));
+        }
+    }
+
+    /**
+     * Disconnects a content from all of its positions
+     *
+     * @param key content
+     */
+    protected void unlinkPositions(final ContentKey key) {
+        final Set<String> positions = contentPositions.remove(key);
+        registryChanged(key);
+        contentRegistry.remove(key);
+        if (positions != null) {
+            undo(new Undo() {
+                @Override
+                public void undo() {
+                    contentPositions.put(key, positions);
+                }
+            });
+            for (String positionName : positions) {
+                removeFromPosition(key, positionName);
+                changed(ContentChangeEvent.positionUnlinked(key, positionName));
+            }
+        }
+    }
+
+    /**
+     * Replaces a content at all of its positions
+     *
+     * @param oldKey content which will be replaced
+     * @param newKey new content
+     */
+    protected void replaceContent(final ContentKey oldKey, final ContentKey newKey) {
+        final Set<String> positions = contentPositions.remove(oldKey);
+        registryChanged(oldKey);
+        contentRegistry.remove(oldKey);
+        if (positions != null) {
+            contentPositions.put(newKey, positions);
+            undo(new Undo() {
+                @Override
+                public void undo() {
+                    contentPositions.remove(newKey);
+                    contentPositions.put(oldKey, positions);
+                }
+            });
+            registryChanged(newKey);
+            Content newContent = contentRegistry.intern(newKey);
+            for (String positionName : positions) {
+                ContentList<Content> positionContents = changedPosition(positionName);
+                int index = indexOf(positionContents, oldKey);
+                if (index != -1) {
+                    positionContents.set(index, newContent);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects an event, which is published together with the changed contents
+     *
+     * @param event change event
+     */
+    protected void changed(ContentChangeEvent event) {
+        if (changeEvents != null) {
+            changeEvents.add(event);
+        }
+    }
+
+    /**
+     * Disconnects all contents from all positions
+     */
+    private void unlinkAll() {
+        final Map<ContentKey, Set<String>> previousPositions = contentPositions;
+        final ContentRegistry previousRegistry = contentRegistry;
+        contentPositions = new HashMap<ContentKey, Set<String>>();
+        contentRegistry = new ContentRegistry();
+        undo(new Undo() {
+            @Override
+            public void undo() {
+                contentPositions = previousPositions;
+                contentRegistry = previousRegistry;
+            }
+        });
+    }
+
+    /**
+     * Remembers the shared content of a key before it is changed in the registry
+     */
+    private void registryChanged(final ContentKey key) {
+        final Content previousContent = contentRegistry.get(key);
+        final ContentRegistry registry = contentRegistry;
+        undo(new Undo() {
+            @Override
+            public void undo() {
+                if (previousContent != null) {
+                    registry.restore(key, previousContent);
+                } else {
+                    registry.remove(key);
+                }
+            }
+        });
+    }
+
+    private void undo(Undo undo) {
+        if (undoLog != null) {
+            undoLog.add(undo);
+        }
+    }
+
+    private void removeFromPosition(ContentKey key, String positionName) {
+        ContentList<Content> positionContents = changedPosition(positionName);
+        int index = indexOf(positionContents, key);
+        if (index != -1) {
+            positionContents.remove(index);
+        }
+        if (positionContents.isEmpty()) {
+            // removed from the published map
+            changedContents.put(positionName, null);
+        }
+    }
+
+    /**
+     * Returns a private copy of the content list of a position, which can be changed before publishing
+     *
+     * @param positionName position name
+     * @return changeable content list
+     */
+    private ContentList<Content> changedPosition(String positionName) {
+        ContentList<Content> positionContents = changedContents.get(positionName);
+        if (positionContents == null) {
+            ContentList<Content> publishedContents = changedContents.containsKey(positionName) ? null : unchangedContents.get(positionName);
+            positionContents = publishedContents != null ? new TypedContentList(publishedContents) : new TypedContentList();
+            changedContents.put(positionName, positionContents);
+        }
+        return positionContents;
+    }
+
+    /**
+     * Reverts a change of the position lookup or the registry, if the changed contents could not be published
+     */
+    private interface Undo {
+        void undo();
+    }
+
+    private static int indexOf(ContentList<Content> positionContents, ContentKey key) {
+        for (int i = 0; i < positionContents.size(); i++) {
+            if (key.matches(positionContents.get(i))) {
+                return i;
+            }
+        }
+        return -1;
     }
 }
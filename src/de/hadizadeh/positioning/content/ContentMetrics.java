@@ -0,0 +1,224 @@
+package de.hadizadeh.positioning.content;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects the measurements of content managers and persistence managers. The measurements can be read directly or
+ * over JMX, after the metrics were registered at the platform MBean server. Every measurement is passed on to the
+ * added listeners, e.g. for reporting to an external monitoring system.
+ */
+public class ContentMetrics implements ContentMetricsListener, ContentMetricsMBean {
+    /**
+     * JMX domain of the registered MBeans
+     */
+    public static final String JMX_DOMAIN = "de.hadizadeh.positioning.content";
+
+    private final ConcurrentMap<String, OperationMetrics> operations;
+    private final List<ContentMetricsListener> listeners;
+    private volatile long fileSize;
+    private volatile int itemCount;
+    private volatile int positionCount;
+    private String jmxName;
+
+    /**
+     * Creates empty metrics
+     */
+    public ContentMetrics() {
+        operations = new ConcurrentHashMap<String, OperationMetrics>();
+        listeners = new CopyOnWriteArrayList<ContentMetricsListener>();
+        fileSize = -1;
+        itemCount = -1;
+        positionCount = -1;
+    }
+
+    /**
+     * Adds a listener which receives every measurement
+     *
+     * @param listener listener
+     */
+    public void addListener(ContentMetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener
+     *
+     * @param listener listener
+     */
+    public void removeListener(ContentMetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void onOperation(String operation, long durationNanos, boolean failed) {
+        getOperationMetrics(operation).record(durationNanos, failed);
+        for (ContentMetricsListener listener : listeners) {
+            listener.onOperation(operation, durationNanos, failed);
+        }
+    }
+
+    @Override
+    public void onFileSize(long bytes) {
+        fileSize = bytes;
+        for (ContentMetricsListener listener : listeners) {
+            listener.onFileSize(bytes);
+        }
+    }
+
+    @Override
+    public void onItemCount(int items) {
+        itemCount = items;
+        for (ContentMetricsListener listener : listeners) {
+            listener.onItemCount(items);
+        }
+    }
+
+    @Override
+    public void onPositionCount(int positions) {
+        positionCount = positions;
+        for (ContentMetricsListener listener : listeners) {
+            listener.onPositionCount(positions);
+        }
+    }
+
+    /**
+     * Returns the measurements of an operation
+     *
+     * @param operation name of the operation
+     * @return measurements, empty if the operation was not executed yet
+     */
+    public OperationMetrics getOperationMetrics(String operation) {
+        OperationMetrics metrics = operations.get(operation);
+        if (metrics == null) {
+            metrics = new OperationMetrics(operation);
+            OperationMetrics existing = operations.putIfAbsent(operation, metrics);
+            if (existing != null) {
+                metrics = existing;
+            } else {
+                registerOperation(metrics);
+            }
+        }
+        return metrics;
+    }
+
+    @Override
+    public String[] getOperations() {
+        String[] names = operations.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+        return names;
+    }
+
+    @Override
+    public long getOperationCount() {
+        long count = 0;
+        for (OperationMetrics metrics : operations.values()) {
+            count += metrics.getCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getErrorCount() {
+        long count = 0;
+        for (OperationMetrics metrics : operations.values()) {
+            count += metrics.getErrorCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    @Override
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    @Override
+    public int getPositionCount() {
+        return positionCount;
+    }
+
+    @Override
+    public synchronized void resetStatistics() {
+        for (OperationMetrics metrics : operations.values()) {
+            unregisterOperation(metrics);
+        }
+        operations.clear();
+    }
+
+    /**
+     * Registers the metrics and the measurements of every operation at the platform MBean server
+     *
+     * @param name name which distinguishes the metrics of different content managers
+     * @throws JMException if the MBeans could not be registered
+     */
+    public synchronized void registerMBeans(String name) throws JMException {
+        if (jmxName != null) {
+            unregisterMBeans();
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, new ObjectName(JMX_DOMAIN + ":type=ContentMetrics,name=" + ObjectName.quote(name)));
+        jmxName = name;
+        for (OperationMetrics metrics : operations.values()) {
+            registerOperation(metrics);
+        }
+    }
+
+    /**
+     * Removes the metrics and the measurements of every operation from the platform MBean server
+     */
+    public synchronized void unregisterMBeans() {
+        if (jmxName == null) {
+            return;
+        }
+        for (OperationMetrics metrics : operations.values()) {
+            unregisterOperation(metrics);
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(JMX_DOMAIN + ":type=ContentMetrics,name="
+                    + ObjectName.quote(jmxName)));
+        } catch (JMException e) {
+            // already unregistered
+        }
+        jmxName = null;
+    }
+
+    private synchronized void registerOperation(OperationMetrics metrics) {
+        if (jmxName == null || !operations.containsKey(metrics.getOperation())) {
+            return;
+        }
+        try {
+            ObjectName objectName = operationName(metrics);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metrics, objectName);
+            }
+        } catch (JMException e) {
+            // the measurements are still available directly
+        }
+    }
+
+    private void unregisterOperation(OperationMetrics metrics) {
+        if (jmxName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(operationName(metrics));
+        } catch (JMException e) {
+            // already unregistered
+        }
+    }
+
+    private ObjectName operationName(OperationMetrics metrics) throws MalformedObjectNameException {
+        return new ObjectName(JMX_DOMAIN + ":type=ContentOperation,name=" + ObjectName.quote(jmxName) + ",operation="
+                + ObjectName.quote(metrics.getOperation()));
+    }
+}
@@ -0,0 +1,38 @@
+package de.hadizadeh.positioning.content;
+
+/**
+ * Receives measurements of the content managers and persistence managers. Methods are called in the thread which
+ * executed the operation and have to return quickly.
+ */
+public interface ContentMetricsListener {
+
+    /**
+     * Called after an operation was executed
+     *
+     * @param operation     name of the operation, e.g. a method name or "parse" and "save" of xml files
+     * @param durationNanos duration in nanoseconds
+     * @param failed        true, if the operation threw an exception
+     */
+    void onOperation(String operation, long durationNanos, boolean failed);
+
+    /**
+     * Called after a persistence file was written
+     *
+     * @param bytes size of the file
+     */
+    void onFileSize(long bytes);
+
+    /**
+     * Called when the number of contents is known, e.g. after all contents were loaded
+     *
+     * @param items number of contents
+     */
+    void onItemCount(int items);
+
+    /**
+     * Called when the number of positions with contents is known, e.g. after contents were changed
+     *
+     * @param positions number of positions
+     */
+    void onPositionCount(int positions);
+}
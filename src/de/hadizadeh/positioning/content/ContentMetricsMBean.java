@@ -0,0 +1,54 @@
+package de.hadizadeh.positioning.content;
+
+/**
+ * JMX view of the measurements of a content manager and its persistence manager
+ */
+public interface ContentMetricsMBean {
+
+    /**
+     * Returns the names of all measured operations
+     *
+     * @return operation names
+     */
+    String[] getOperations();
+
+    /**
+     * Returns the number of executions of all operations
+     *
+     * @return number of executions
+     */
+    long getOperationCount();
+
+    /**
+     * Returns the number of failed executions of all operations
+     *
+     * @return number of failures
+     */
+    long getErrorCount();
+
+    /**
+     * Returns the size of the persistence file after it was written the last time
+     *
+     * @return size in bytes or -1, if it is unknown
+     */
+    long getFileSize();
+
+    /**
+     * Returns the last known number of contents
+     *
+     * @return number of contents or -1, if it is unknown
+     */
+    int getItemCount();
+
+    /**
+     * Returns the last known number of positions with contents
+     *
+     * @return number of positions or -1, if it is unknown
+     */
+    int getPositionCount();
+
+    /**
+     * Removes the measurements of all operations
+     */
+    void resetStatistics();
+}
@@ -0,0 +1,193 @@
+package de.hadizadeh.positioning.content;
+
+/**
+ * A single change of the contents, which can be executed together with other changes as a batch
+ */
+public class ContentOperation {
+
+    /**
+     * Available operations, every operation matches the method of the content persistence manager with the same name
+     */
+    public enum OperationType {
+        ADD_CONTENT,
+        REMOVE_CONTENT,
+        ADD_POSITION,
+        REMOVE_POSITION,
+        REMOVE_POSITIONS,
+        UPDATE_CONTENT,
+        REMOVE_ALL_CONTENT,
+        REMOVE_ALL_POSITIONS
+    }
+
+    private final OperationType operationType;
+    private final Content.ContentType contentType;
+    private final String data;
+    private final String positionName;
+    private final Content.ContentType newContentType;
+    private final String newData;
+
+    private ContentOperation(OperationType operationType, Content.ContentType contentType, String data, String positionName, Content.ContentType newContentType, String newData) {
+        this.operationType = operationType;
+        this.contentType = contentType;
+        this.data = data;
+        this.positionName = positionName;
+        this.newContentType = newContentType;
+        this.newData = newData;
+    }
+
+    /**
+     * Creates an operation which adds a content
+     *
+     * @param contentType content type
+     * @param data        content data
+     * @return operation
+     */
+    public static ContentOperation addContent(Content.ContentType contentType, String data) {
+        return new ContentOperation(OperationType.ADD_CONTENT, contentType, data, null, null, null);
+    }
+
+    /**
+     * Creates an operation which removes a content
+     *
+     * @param contentType content type
+     * @param data        content data
+     * @return operation
+     */
+    public static ContentOperation removeContent(Content.ContentType contentType, String data) {
+        return new ContentOperation(OperationType.REMOVE_CONTENT, contentType, data, null, null, null);
+    }
+
+    /**
+     * Creates an operation which adds a single position to a content (connects)
+     *
+     * @param contentType  content type
+     * @param data         content data
+     * @param positionName name of the position
+     * @return operation
+     */
+    public static ContentOperation addPosition(Content.ContentType contentType, String data, String positionName) {
+        return new ContentOperation(OperationType.ADD_POSITION, contentType, data, positionName, null, null);
+    }
+
+    /**
+     * Creates an operation which removes a single connected position of a content
+     *
+     * @param contentType  content type
+     * @param data         content data
+     * @param positionName name of the position
+     * @return operation
+     */
+    public static ContentOperation removePosition(Content.ContentType contentType, String data, String positionName) {
+        return new ContentOperation(OperationType.REMOVE_POSITION, contentType, data, positionName, null, null);
+    }
+
+    /**
+     * Creates an operation which removes all connected positions of a content
+     *
+     * @param contentType content type
+     * @param data        content data
+     * @return operation
+     */
+    public static ContentOperation removeAllPositions(Content.ContentType contentType, String data) {
+        return new ContentOperation(OperationType.REMOVE_POSITIONS, contentType, data, null, null, null);
+    }
+
+    /**
+     * Creates an operation which updates the type and the data of an existing content
+     *
+     * @param oldContentType content type which will be changed
+     * @param oldData        content data which will be changed
+     * @param newContentType new content type
+     * @param newData        new content data
+     * @return operation
+     */
+    public static ContentOperation updateContent(Content.ContentType oldContentType, String oldData, Content.ContentType newContentType, String newData) {
+        return new ContentOperation(OperationType.UPDATE_CONTENT, oldContentType, oldData, null, newContentType, newData);
+    }
+
+    /**
+     * Creates an operation which removes all contents
+     *
+     * @return operation
+     */
+    public static ContentOperation removeAllContent() {
+        return new ContentOperation(OperationType.REMOVE_ALL_CONTENT, null, null, null, null, null);
+    }
+
+    /**
+     * Creates an operation which removes all connected positions of every content element
+     *
+     * @return operation
+     */
+    public static ContentOperation removeAllPositions() {
+        return new ContentOperation(OperationType.REMOVE_ALL_POSITIONS, null, null, null, null, null);
+    }
+
+    /**
+     * Returns the operation type
+     *
+     * @return operation type
+     */
+    public OperationType getOperationType() {
+        return operationType;
+    }
+
+    /**
+     * Returns the content type, the old content type for updates
+     *
+     * @return content type
+     */
+    public Content.ContentType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the content data, the old content data for updates
+     *
+     * @return content data
+     */
+    public String getData() {
+        return data;
+    }
+
+    /**
+     * Returns the position name of position operations
+     *
+     * @return position name
+     */
+    public String getPositionName() {
+        return positionName;
+    }
+
+    /**
+     * Returns the new content type of updates
+     *
+     * @return new content type
+     */
+    public Content.ContentType getNewContentType() {
+        return newContentType;
+    }
+
+    /**
+     * Returns the new content data of updates
+     *
+     * @return new content data
+     */
+    public String getNewData() {
+        return newData;
+    }
+
+    /**
+     * Returns the key of the content which is changed, the old content for updates
+     *
+     * @return content key or null for operations on all contents
+     */
+    public ContentKey getContentKey() {
+        return contentType != null ? new ContentKey(contentType, data) : null;
+    }
+
+    @Override
+    public String toString() {
+        return operationType + "(" + contentType + ", " + data + ", " + positionName + ", " + newContentType + ", " + newData + ")";
+    }
+}
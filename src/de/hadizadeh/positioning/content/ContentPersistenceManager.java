@@ -82,7 +82,7 @@ public interface ContentPersistenceManager {
      *
      * @param contentType content type
      * @param data        content data
-     * @return true, if the operation was successful, false if it failed
+     * @return true, if positions were removed, false if the content does not exist or has no positions
      * @throws ContentPersistenceException error while accessing to the persistence file
      */
     boolean removeAllPositions(Content.ContentType contentType, String data) throws ContentPersistenceException;
@@ -114,4 +114,16 @@ public interface ContentPersistenceManager {
      * @throws ContentPersistenceException error while accessing to the persistence file
      */
     void removeAllPositions() throws ContentPersistenceException;
+
+    /**
+     * Executes multiple operations at once. Either all operations are executed and persisted together or, if one of
+     * them fails, none of them.
+     *
+     * @param operations operations in the order of execution
+     * @return result of every operation in the same order, true if the operation was successful, false if it failed
+     * @throws ContentPersistenceException   error while accessing to the persistence file
+     * @throws ContentSameDataException      new and old data of an update are same
+     * @throws ContentAlreadyExistsException a content with the same new type and data of an update is already existent
+     */
+    List<Boolean> executeBatch(List<ContentOperation> operations) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException;
 }
@@ -0,0 +1,175 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.controller.MappedPositionManager;
+import de.hadizadeh.positioning.model.MappingPoint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the asset files of the positions around a moving user in the background into the cache of an asset loader.
+ * The next position is predicted from the last movement, the mapped positions nearest to it are prefetched.
+ */
+public class ContentPrefetcher implements Closeable {
+    private static final int HISTORY_SIZE = 3;
+
+    private final MappedContentManager contentManager;
+    private final AssetLoader assetLoader;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final int maxPositions;
+    private final LinkedList<MappingPoint> history;
+    private final Map<String, Boolean> prefetchedPositions;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private Future<?> prefetch;
+
+    /**
+     * Creates a prefetcher with an own background thread, which prefetches 8 positions after a movement
+     *
+     * @param contentManager content manager of the mapped positions
+     * @param assetLoader    asset loader whose cache is filled
+     */
+    public ContentPrefetcher(MappedContentManager contentManager, AssetLoader assetLoader) {
+        this(contentManager, assetLoader, Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "content-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }), true, 8);
+    }
+
+    /**
+     * Creates a prefetcher
+     *
+     * @param contentManager content manager of the mapped positions
+     * @param assetLoader    asset loader whose cache is filled
+     * @param executor       executor for prefetching, which is not shut down by the prefetcher
+     * @param maxPositions   maximum number of positions which are prefetched after a movement
+     */
+    public ContentPrefetcher(MappedContentManager contentManager, AssetLoader assetLoader, ExecutorService executor, int maxPositions) {
+        this(contentManager, assetLoader, executor, false, maxPositions);
+    }
+
+    private ContentPrefetcher(MappedContentManager contentManager, AssetLoader assetLoader, ExecutorService executor, boolean ownExecutor, int maxPositions) {
+        this.contentManager = contentManager;
+        this.assetLoader = assetLoader;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        this.maxPositions = maxPositions;
+        this.history = new LinkedList<MappingPoint>();
+        this.prefetchedPositions = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > 4 * ContentPrefetcher.this.maxPositions;
+            }
+        };
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Records the movement of the user to a point, returns its contents and starts prefetching the positions which
+     * are predicted next
+     *
+     * @param mappingPoint current coordinates of the user
+     * @return contents of the point or null, if there are no contents
+     */
+    public ContentList<Content> moveTo(MappingPoint mappingPoint) {
+        ContentList<Content> contents = contentManager.getContents(mappingPoint);
+        if (contents != null) {
+            boolean prefetched;
+            synchronized (this) {
+                prefetched = prefetchedPositions.containsKey(MappedPositionManager.mappingPointToName(mappingPoint));
+            }
+            (prefetched ? hits : misses).incrementAndGet();
+        }
+        final MappingPoint predictedPoint;
+        synchronized (this) {
+            history.addLast(mappingPoint);
+            if (history.size() > HISTORY_SIZE) {
+                history.removeFirst();
+            }
+            predictedPoint = predict();
+            if (prefetch != null) {
+                prefetch.cancel(true);
+            }
+            try {
+                prefetch = executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        prefetch(predictedPoint);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                prefetch = null;
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * Returns how often a user moved to a position with contents, which were prefetched
+     *
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns how often a user moved to a position with contents, which were not prefetched
+     *
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Stops prefetching, an own background thread is shut down
+     */
+    @Override
+    public synchronized void close() {
+        if (prefetch != null) {
+            prefetch.cancel(true);
+        }
+        if (ownExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private MappingPoint predict() {
+        MappingPoint current = history.getLast();
+        if (history.size() < 2) {
+            return current;
+        }
+        MappingPoint previous = history.get(history.size() - 2);
+        return new MappingPoint(2 * current.getX() - previous.getX(), 2 * current.getY() - previous.getY(), 2 * current.getZ() - previous.getZ());
+    }
+
+    private void prefetch(MappingPoint predictedPoint) {
+        for (Map.Entry<String, ContentList<Content>> position : contentManager.getNearestContents(predictedPoint, maxPositions).entrySet()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            for (Content content : position.getValue()) {
+                if (AssetLoader.isAsset(content)) {
+                    try {
+                        assetLoader.prefetch(content);
+                    } catch (IOException e) {
+                        // missing assets are reported when they are requested
+                    }
+                }
+            }
+            synchronized (this) {
+                prefetchedPositions.put(position.getKey(), Boolean.TRUE);
+            }
+        }
+    }
+}
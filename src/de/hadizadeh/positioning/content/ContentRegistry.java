@@ -0,0 +1,144 @@
+package de.hadizadeh.positioning.content;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry which keeps a single shared content object for every content type and data. Contents which are connected
+ * with many positions are held only once in memory. The shared contents have no positions and cannot be changed,
+ * their setters throw an {@link UnsupportedOperationException}. The registry is thread-safe.
+ */
+public class ContentRegistry {
+    private static final int OBJECT_HEADER = 12;
+    private static final int REFERENCE = 4;
+    private static final int ARRAY_HEADER = 16;
+
+    private final ConcurrentMap<ContentKey, Content> contents;
+
+    /**
+     * Creates an empty registry
+     */
+    public ContentRegistry() {
+        contents = new ConcurrentHashMap<ContentKey, Content>();
+    }
+
+    /**
+     * Returns the shared content for a type and data and registers it, if it is not registered yet
+     *
+     * @param contentType content type
+     * @param data        content data
+     * @return shared content
+     */
+    public Content intern(Content.ContentType contentType, String data) {
+        return intern(new ContentKey(contentType, data));
+    }
+
+    /**
+     * Returns the shared content of a key and registers it, if it is not registered yet
+     *
+     * @param key content
+     * @return shared content
+     */
+    public Content intern(ContentKey key) {
+        Content content = contents.get(key);
+        if (content == null) {
+            content = new SharedContent(key.getType(), key.getData());
+            Content registered = contents.putIfAbsent(key, content);
+            if (registered != null) {
+                content = registered;
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Returns the shared content with the same type and data as the given content. The positions of the given content
+     * are not taken over.
+     *
+     * @param content content
+     * @return shared content
+     */
+    public Content intern(Content content) {
+        return intern(ContentKey.of(content));
+    }
+
+    /**
+     * Returns a registered content
+     *
+     * @param key content
+     * @return shared content or null, if it is not registered
+     */
+    public Content get(ContentKey key) {
+        return contents.get(key);
+    }
+
+    /**
+     * Removes a content from the registry, lists which contain the shared content keep it
+     *
+     * @param key content
+     */
+    public void remove(ContentKey key) {
+        contents.remove(key);
+    }
+
+    /**
+     * Registers a shared content again, e.g. if its removal is reverted
+     *
+     * @param key     content
+     * @param content shared content
+     */
+    void restore(ContentKey key, Content content) {
+        contents.put(key, content);
+    }
+
+    /**
+     * Removes all contents which are not in the given collection
+     *
+     * @param keys contents which are kept
+     */
+    public void retainAll(Collection<ContentKey> keys) {
+        contents.keySet().retainAll(keys);
+    }
+
+    /**
+     * Removes all contents
+     */
+    public void clear() {
+        contents.clear();
+    }
+
+    /**
+     * Returns the number of registered contents
+     *
+     * @return number of contents
+     */
+    public int size() {
+        return contents.size();
+    }
+
+    /**
+     * Estimates the heap size of the registry with all shared contents and their data, based on a 64 bit JVM with
+     * compressed references
+     *
+     * @return estimated size in bytes
+     */
+    public long getHeapSize() {
+        long entrySize = align(OBJECT_HEADER + 3 * REFERENCE + 4) // map entry
+                + align(OBJECT_HEADER + 2 * REFERENCE + 4) // key
+                + align(OBJECT_HEADER + 3 * REFERENCE) // content
+                + REFERENCE * 2; // map table with default load factor
+        long size = align(OBJECT_HEADER + 4 * REFERENCE);
+        for (ContentKey key : contents.keySet()) {
+            size += entrySize;
+            if (key.getData() != null) {
+                size += align(OBJECT_HEADER + REFERENCE + 4) + align(ARRAY_HEADER + 2L * key.getData().length());
+            }
+        }
+        return size;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,217 @@
+package de.hadizadeh.positioning.content;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted full-text index of the textual contents. HTML tags of {@link Content.ContentType#HTML_TEXT} contents are
+ * not indexed. Results are ranked with BM25. The index is changed content by content and is not thread-safe.
+ */
+public class ContentSearchIndex {
+    /**
+     * Content types which are indexed
+     */
+    public static final EnumSet<Content.ContentType> TEXT_TYPES = EnumSet.of(Content.ContentType.TITLE,
+            Content.ContentType.DESCRIPTION, Content.ContentType.HTML_TEXT);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+    private static final String[][] HTML_ENTITIES = {{"&nbsp;", " "}, {"&lt;", "<"}, {"&gt;", ">"}, {"&quot;", "\""},
+            {"&#39;", "'"}, {"&amp;", "&"}};
+
+    private final Map<String, Map<ContentKey, Integer>> postings;
+    private final Map<ContentKey, Integer> lengths;
+    private long totalLength;
+
+    /**
+     * Creates an empty index
+     */
+    public ContentSearchIndex() {
+        postings = new HashMap<String, Map<ContentKey, Integer>>();
+        lengths = new HashMap<ContentKey, Integer>();
+    }
+
+    /**
+     * Adds a content to the index, contents which are not textual are ignored
+     *
+     * @param key content
+     * @return true, if the content was added
+     */
+    public boolean add(ContentKey key) {
+        if (!TEXT_TYPES.contains(key.getType()) || lengths.containsKey(key)) {
+            return false;
+        }
+        int length = 0;
+        for (Map.Entry<String, Integer> term : termFrequencies(key).entrySet()) {
+            Map<ContentKey, Integer> posting = postings.get(term.getKey());
+            if (posting == null) {
+                posting = new HashMap<ContentKey, Integer>(4);
+                postings.put(term.getKey(), posting);
+            }
+            posting.put(key, term.getValue());
+            length += term.getValue();
+        }
+        lengths.put(key, length);
+        totalLength += length;
+        return true;
+    }
+
+    /**
+     * Removes a content from the index
+     *
+     * @param key content
+     * @return true, if the content was removed
+     */
+    public boolean remove(ContentKey key) {
+        Integer length = lengths.remove(key);
+        if (length == null) {
+            return false;
+        }
+        totalLength -= length;
+        for (String term : termFrequencies(key).keySet()) {
+            Map<ContentKey, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(key);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes all contents
+     */
+    public void clear() {
+        postings.clear();
+        lengths.clear();
+        totalLength = 0;
+    }
+
+    /**
+     * Returns the indexed contents
+     *
+     * @return unmodifiable view of the indexed contents
+     */
+    public Set<ContentKey> getKeys() {
+        return Collections.unmodifiableSet(lengths.keySet());
+    }
+
+    /**
+     * Returns the number of indexed contents
+     *
+     * @return number of contents
+     */
+    public int size() {
+        return lengths.size();
+    }
+
+    /**
+     * Searches contents which contain words of the query
+     *
+     * @param query        words which are searched
+     * @param contentTypes content types which are searched, null for all textual types
+     * @param limit        maximum number of results
+     * @return matching contents, the best matches first
+     */
+    public List<ContentKey> search(String query, EnumSet<Content.ContentType> contentTypes, int limit) {
+        if (limit <= 0 || lengths.isEmpty()) {
+            return new ArrayList<ContentKey>();
+        }
+        Map<ContentKey, double[]> scores = new HashMap<ContentKey, double[]>();
+        double averageLength = Math.max(1.0, (double) totalLength / lengths.size());
+        for (String term : new LinkedHashSet<String>(tokenize(query))) {
+            Map<ContentKey, Integer> posting = postings.get(term);
+            if (posting == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (lengths.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+            for (Map.Entry<ContentKey, Integer> entry : posting.entrySet()) {
+                ContentKey key = entry.getKey();
+                if (contentTypes != null && !contentTypes.contains(key.getType())) {
+                    continue;
+                }
+                double frequency = entry.getValue();
+                double norm = K1 * (1 - B + B * lengths.get(key) / averageLength);
+                double[] score = scores.get(key);
+                if (score == null) {
+                    score = new double[1];
+                    scores.put(key, score);
+                }
+                score[0] += idf * frequency * (K1 + 1) / (frequency + norm);
+            }
+        }
+        return best(scores, limit);
+    }
+
+    /**
+     * Splits a text into lower case words, without HTML tags for HTML texts
+     *
+     * @param contentType content type of the text
+     * @param text        text
+     * @return words in the order of the text
+     */
+    public static List<String> tokenize(Content.ContentType contentType, String text) {
+        if (text == null) {
+            return new ArrayList<String>();
+        }
+        if (contentType == Content.ContentType.HTML_TEXT) {
+            text = HTML_TAG.matcher(text).replaceAll(" ");
+            for (String[] entity : HTML_ENTITIES) {
+                text = text.replace(entity[0], entity[1]);
+            }
+        }
+        return tokenize(text);
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<String>();
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            boolean wordCharacter = i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i));
+            if (wordCharacter && start == -1) {
+                start = i;
+            } else if (!wordCharacter && start != -1) {
+                words.add(lowerCase.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static Map<String, Integer> termFrequencies(ContentKey key) {
+        Map<String, Integer> frequencies = new HashMap<String, Integer>();
+        for (String word : tokenize(key.getType(), key.getData())) {
+            Integer frequency = frequencies.get(word);
+            frequencies.put(word, frequency != null ? frequency + 1 : 1);
+        }
+        return frequencies;
+    }
+
+    private static List<ContentKey> best(Map<ContentKey, double[]> scores, int limit) {
+        Comparator<Map.Entry<ContentKey, double[]>> worstFirst = new Comparator<Map.Entry<ContentKey, double[]>>() {
+            @Override
+            public int compare(Map.Entry<ContentKey, double[]> entry1, Map.Entry<ContentKey, double[]> entry2) {
+                int compared = Double.compare(entry1.getValue()[0], entry2.getValue()[0]);
+                return compared != 0 ? compared : entry2.getKey().toString().compareTo(entry1.getKey().toString());
+            }
+        };
+        PriorityQueue<Map.Entry<ContentKey, double[]>> best = new PriorityQueue<Map.Entry<ContentKey, double[]>>(Math.min(limit, Math.max(1, scores.size())), worstFirst);
+        for (Map.Entry<ContentKey, double[]> entry : scores.entrySet()) {
+            if (best.size() < limit) {
+                best.add(entry);
+            } else if (worstFirst.compare(entry, best.peek()) > 0) {
+                best.poll();
+                best.add(entry);
+            }
+        }
+        LinkedList<ContentKey> keys = new LinkedList<ContentKey>();
+        while (!best.isEmpty()) {
+            keys.addFirst(best.poll().getKey());
+        }
+        return new ArrayList<ContentKey>(keys);
+    }
+}
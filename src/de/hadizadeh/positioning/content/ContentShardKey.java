@@ -0,0 +1,16 @@
+package de.hadizadeh.positioning.content;
+
+/**
+ * Assigns positions to shards of a sharded persistence manager. All positions with the same key are stored in the
+ * same file.
+ */
+public interface ContentShardKey {
+
+    /**
+     * Returns the shard of a position
+     *
+     * @param positionName position name
+     * @return shard key, must not be empty
+     */
+    String getShardKey(String positionName);
+}
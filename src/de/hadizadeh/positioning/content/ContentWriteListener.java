@@ -0,0 +1,13 @@
+package de.hadizadeh.positioning.content;
+
+/**
+ * Receives the changes of a content manager after they were stored by its persistence manager. Methods are called
+ * while the content manager is locked and have to return quickly.
+ */
+public interface ContentWriteListener {
+
+    /**
+     * Called after changes were stored and the changed contents were published
+     */
+    void onContentsWritten();
+}
@@ -0,0 +1,298 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.exceptions.ContentAlreadyExistsException;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import de.hadizadeh.positioning.content.exceptions.ContentSameDataException;
+import org.jdom2.CDATA;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Text;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Implementation for the content persistence manager which loads the xml file only once into memory. All contents are
+ * indexed by type and data, reads are answered from memory and the file is only written if the data has changed.
+ */
+public class IndexedXMLContentPersistenceManager extends XMLContentPersistenceManager implements ReloadableContentPersistenceManager {
+    /**
+     * loaded contents with their connected positions in file order
+     */
+    protected ContentIndex index;
+    private boolean unsaved;
+
+    /**
+     * Creates a persistence manager and loads the xml file.
+     *
+     * @param persistenceFile xml file
+     * @throws ContentPersistenceException if the xml file could not be loaded
+     */
+    public IndexedXMLContentPersistenceManager(File persistenceFile) throws ContentPersistenceException {
+        this(persistenceFile, 0);
+    }
+
+    /**
+     * Creates a persistence manager and loads the xml file.
+     *
+     * @param persistenceFile xml file
+     * @param saveDelay       milliseconds for collecting changes before they are written together, 0 for writing
+     *                        every change immediately
+     * @throws ContentPersistenceException if the xml file could not be loaded
+     */
+    public IndexedXMLContentPersistenceManager(File persistenceFile, long saveDelay) throws ContentPersistenceException {
+        super(persistenceFile, saveDelay);
+        index = new ContentIndex();
+        load();
+    }
+
+    /**
+     * Reloads all contents from the xml file and replaces the in-memory data. The file is parsed into a new index,
+     * which only replaces the previous one if the whole file could be loaded.
+     *
+     * @throws ContentPersistenceException if the xml file could not be loaded
+     */
+    @Override
+    public synchronized void reload() throws ContentPersistenceException {
+        flush();
+        ContentIndex previousIndex = index;
+        index = new ContentIndex();
+        boolean loaded = false;
+        try {
+            load();
+            loaded = true;
+        } finally {
+            if (!loaded) {
+                index = previousIndex;
+            }
+        }
+    }
+
+    @Override
+    public synchronized ContentList<Content> getAllContents() throws ContentPersistenceException {
+        return index.getAllContents();
+    }
+
+    @Override
+    public synchronized Map<String, ContentList<Content>> getConnectedContents() throws ContentPersistenceException {
+        return index.getConnectedContents();
+    }
+
+    @Override
+    public synchronized boolean addContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        return execute(ContentOperation.addContent(contentType, data));
+    }
+
+    @Override
+    public synchronized boolean removeContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        return execute(ContentOperation.removeContent(contentType, data));
+    }
+
+    @Override
+    public synchronized boolean addPosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        return execute(ContentOperation.addPosition(contentType, data, positionName));
+    }
+
+    @Override
+    public synchronized boolean addPositions(List<Content.ContentType> contentTypes, List<String> multipleData, List<String> positionNames) throws ContentPersistenceException {
+        boolean result = true;
+        List<ContentOperation> changes = new ArrayList<ContentOperation>();
+        for (int i = 0; i < contentTypes.size(); i++) {
+            ContentOperation operation = ContentOperation.addPosition(contentTypes.get(i), multipleData.get(i), positionNames.get(i));
+            if (execute(operation, false)) {
+                changes.add(operation);
+            } else {
+                result = false;
+            }
+        }
+        if (!changes.isEmpty()) {
+            persistOrReload(changes);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean removePosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        return execute(ContentOperation.removePosition(contentType, data, positionName));
+    }
+
+    @Override
+    public synchronized boolean removeAllPositions(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        return execute(ContentOperation.removeAllPositions(contentType, data));
+    }
+
+    @Override
+    public synchronized boolean updateContent(Content.ContentType oldContentType, String oldData, Content.ContentType newContentType, String newData) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        checkSaveError();
+        ContentOperation operation = ContentOperation.updateContent(oldContentType, oldData, newContentType, newData);
+        boolean result = apply(operation);
+        if (result) {
+            persistOrReload(Collections.singletonList(operation));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void removeAllContent() throws ContentPersistenceException {
+        execute(ContentOperation.removeAllContent());
+    }
+
+    @Override
+    public synchronized void removeAllPositions() throws ContentPersistenceException {
+        execute(ContentOperation.removeAllPositions());
+    }
+
+    @Override
+    public synchronized List<Boolean> executeBatch(List<ContentOperation> operations) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        checkSaveError();
+        index.validate(operations);
+        List<Boolean> results = new ArrayList<Boolean>(operations.size());
+        List<ContentOperation> changes = new ArrayList<ContentOperation>();
+        for (ContentOperation operation : operations) {
+            boolean result = apply(operation);
+            results.add(result);
+            if (result) {
+                changes.add(operation);
+            }
+        }
+        if (!changes.isEmpty()) {
+            persistOrReload(changes);
+        }
+        return results;
+    }
+
+    private boolean execute(ContentOperation operation) throws ContentPersistenceException {
+        return execute(operation, true);
+    }
+
+    private boolean execute(ContentOperation operation, boolean persist) throws ContentPersistenceException {
+        checkSaveError();
+        try {
+            boolean result = apply(operation);
+            if (result && persist) {
+                persistOrReload(Collections.singletonList(operation));
+            }
+            return result;
+        } catch (ContentSameDataException e) {
+            throw new IllegalStateException(e);
+        } catch (ContentAlreadyExistsException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Persists changes which were already applied to the in-memory data. If they could not be persisted, the in-memory
+     * data is replaced by the current state of the file, so later changes do not persist them anyway.
+     */
+    private void persistOrReload(List<ContentOperation> operations) throws ContentPersistenceException {
+        try {
+            persist(operations);
+        } catch (ContentPersistenceException e) {
+            try {
+                reload();
+            } catch (ContentPersistenceException reloadError) {
+                // the next reload replaces the in-memory data
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Executes an operation on the in-memory data without persisting it
+     *
+     * @param operation operation
+     * @return true, if the operation was successful, false if it failed
+     * @throws ContentSameDataException      new and old data of an update are same
+     * @throws ContentAlreadyExistsException a content with the same new type and data of an update is already existent
+     */
+    protected boolean apply(ContentOperation operation) throws ContentSameDataException, ContentAlreadyExistsException {
+        return index.apply(operation);
+    }
+
+    /**
+     * Parses the xml file and adds all items to the in-memory index
+     *
+     * @throws ContentPersistenceException if the xml file could not be loaded
+     */
+    protected void load() throws ContentPersistenceException {
+        try {
+            readItems(new StreamingXMLContentReader.ItemHandler() {
+                @Override
+                public void onItem(Content.ContentType contentType, String data, List<String> positions) {
+                    index.add(new ContentKey(contentType, data), positions);
+                }
+            });
+        } catch (Exception e) {
+            throw new ContentPersistenceException(e.getMessage());
+        }
+    }
+
+    /**
+     * Persists changes which were already applied to the in-memory data by writing it to the xml file. With a save
+     * delay, the document is only created once when the collected changes are written.
+     *
+     * @param operations successfully applied operations
+     * @throws ContentPersistenceException if the xml file could not be saved
+     */
+    protected void persist(List<ContentOperation> operations) throws ContentPersistenceException {
+        if (saveDelay > 0) {
+            unsaved = true;
+            scheduleSave();
+            return;
+        }
+        try {
+            save(toDocument());
+        } catch (Exception e) {
+            throw new ContentPersistenceException(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the in-memory data to the xml file, if there are collected changes
+     *
+     * @throws ContentPersistenceException if the file could not be saved
+     */
+    @Override
+    public synchronized void flush() throws ContentPersistenceException {
+        super.flush();
+        if (unsaved) {
+            try {
+                write(toDocument());
+            } catch (IOException e) {
+                throw new ContentPersistenceException(e.getMessage());
+            }
+            unsaved = false;
+        }
+    }
+
+    /**
+     * Creates a xml document of the in-memory data
+     *
+     * @return xml document
+     */
+    protected Document toDocument() {
+        Element root = new Element("positionContent");
+        for (Map.Entry<ContentKey, Set<String>> item : index.getItems().entrySet()) {
+            ContentKey key = item.getKey();
+            Text xmlData;
+            if (Content.ContentType.HTML_TEXT.equals(key.getType())) {
+                xmlData = new CDATA(key.getData());
+            } else {
+                xmlData = new Text(key.getData());
+            }
+            Element itemElement = new Element("item");
+            itemElement.setAttribute("type", key.getType().toString());
+            Element dataElement = new Element("data");
+            dataElement.addContent(xmlData);
+            itemElement.addContent(dataElement);
+            for (String positionName : item.getValue()) {
+                Element position = new Element("position");
+                position.setText(positionName);
+                itemElement.addContent(position);
+            }
+            root.addContent(itemElement);
+        }
+        return new Document(root);
+    }
+}
@@ -0,0 +1,272 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.exceptions.ContentAlreadyExistsException;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import de.hadizadeh.positioning.content.exceptions.ContentSameDataException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persistence manager which measures the duration and the failures of every method of another persistence manager.
+ * The measurements are reported to a metrics listener with the method name as operation, together with the number of
+ * loaded contents and positions and the size of the persistence file after changes.
+ */
+public class InstrumentedContentPersistenceManager implements ReloadableContentPersistenceManager, Closeable {
+    private final ContentPersistenceManager persistenceManager;
+    private final ContentMetricsListener listener;
+    private final File persistenceFile;
+
+    /**
+     * Creates an instrumented persistence manager, which does not report file sizes
+     *
+     * @param persistenceManager persistence manager which is measured
+     * @param listener           listener which receives the measurements
+     */
+    public InstrumentedContentPersistenceManager(ContentPersistenceManager persistenceManager, ContentMetricsListener listener) {
+        this(persistenceManager, listener, null);
+    }
+
+    /**
+     * Creates an instrumented persistence manager
+     *
+     * @param persistenceManager persistence manager which is measured
+     * @param listener           listener which receives the measurements
+     * @param persistenceFile    file of the persistence manager, whose size is reported after changes, or null
+     */
+    public InstrumentedContentPersistenceManager(ContentPersistenceManager persistenceManager, ContentMetricsListener listener, File persistenceFile) {
+        this.persistenceManager = persistenceManager;
+        this.listener = listener;
+        this.persistenceFile = persistenceFile;
+    }
+
+    /**
+     * Returns the measured persistence manager
+     *
+     * @return persistence manager
+     */
+    public ContentPersistenceManager getPersistenceManager() {
+        return persistenceManager;
+    }
+
+    @Override
+    public ContentList<Content> getAllContents() throws ContentPersistenceException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            ContentList<Content> contents = persistenceManager.getAllContents();
+            failed = false;
+            listener.onItemCount(contents.size());
+            listener.onPositionCount(countPositions(contents));
+            return contents;
+        } finally {
+            listener.onOperation("getAllContents", System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public Map<String, ContentList<Content>> getConnectedContents() throws ContentPersistenceException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Map<String, ContentList<Content>> contents = persistenceManager.getConnectedContents();
+            failed = false;
+            listener.onPositionCount(contents.size());
+            return contents;
+        } finally {
+            listener.onOperation("getConnectedContents", System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public boolean addContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean result = persistenceManager.addContent(contentType, data);
+            failed = false;
+            return changed(result);
+        } finally {
+            listener.onOperation("addContent", System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public boolean removeContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean result = persistenceManager.removeContent(contentType, data);
+            failed = false;
+            return changed(result);
+        } finally {
+            listener.onOperation("removeContent", System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public boolean addPosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean result = persistenceManager.addPosition(contentType, data, positionName);
+            failed = false;
+            return changed(result);
+        } finally {
+            listener.onOperation("addPosition", System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public boolean addPositions(List<Content.ContentType> contentTypes, List<String> multipleData, List<String> positionNames) throws ContentPersistenceException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean result = persistenceManager.addPositions(contentTypes, multipleData, positionNames);
+            failed = false;
+            return changed(result);
+        } finally {
+            listener.onOperation("addPositions", System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public boolean removePosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean result = persistenceManager.removePosition(contentType, data, positionName);
+            failed = false;
+            return changed(result);
+        } finally {
+            listener.onOperation("removePosition", System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public boolean removeAllPositions(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean result = persistenceManager.removeAllPositions(contentType, data);
+            failed = false;
+            return changed(result);
+        } finally {
+            listener.onOperation("removeAllPositions", System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public boolean updateContent(Content.ContentType oldContentType, String oldData, Content.ContentType newContentType, String newData) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean result = persistenceManager.updateContent(oldContentType, oldData, newContentType, newData);
+            failed = false;
+            return changed(result);
+        } finally {
+            listener.onOperation("updateContent", System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public void removeAllContent() throws ContentPersistenceException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            persistenceManager.removeAllContent();
+            failed = false;
+            changed(true);
+        } finally {
+            listener.onOperation("removeAllContent", System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public void removeAllPositions() throws ContentPersistenceException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            persistenceManager.removeAllPositions();
+            failed = false;
+            changed(true);
+        } finally {
+            listener.onOperation("removeAllPositions", System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public List<Boolean> executeBatch(List<ContentOperation> operations) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<Boolean> results = persistenceManager.executeBatch(operations);
+            failed = false;
+            changed(results.contains(Boolean.TRUE));
+            return results;
+        } finally {
+            listener.onOperation("executeBatch", System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Reloads the measured persistence manager, if it can be reloaded
+     *
+     * @throws ContentPersistenceException if the contents could not be loaded
+     */
+    @Override
+    public void reload() throws ContentPersistenceException {
+        if (persistenceManager instanceof ReloadableContentPersistenceManager) {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                ((ReloadableContentPersistenceManager) persistenceManager).reload();
+                failed = false;
+            } finally {
+                listener.onOperation("reload", System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    /**
+     * Closes the measured persistence manager, if it can be closed
+     *
+     * @throws IOException if the persistence manager could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (persistenceManager instanceof Closeable) {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                ((Closeable) persistenceManager).close();
+                failed = false;
+                changed(true);
+            } finally {
+                listener.onOperation("close", System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    private static int countPositions(ContentList<Content> contents) {
+        Set<String> positions = new HashSet<String>();
+        for (Content content : contents) {
+            if (content.getPositions() != null) {
+                positions.addAll(content.getPositions());
+            }
+        }
+        return positions.size();
+    }
+
+    private boolean changed(boolean result) {
+        if (result && persistenceFile != null && persistenceFile.exists()) {
+            listener.onFileSize(persistenceFile.length());
+        }
+        return result;
+    }
+}
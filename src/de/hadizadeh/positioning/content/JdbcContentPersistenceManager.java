@@ -0,0 +1,478 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.exceptions.ContentAlreadyExistsException;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import de.hadizadeh.positioning.content.exceptions.ContentSameDataException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Implementation for the content persistence manager which stores the contents in an embedded database, e.g. H2 or
+ * SQLite in file mode. Contents and their positions are stored in two tables, which are indexed by type and data and
+ * by position name, so changes only touch the affected rows. The contents of a single position can be queried
+ * without loading all contents. Every method runs in its own transaction. The JDBC driver of the database has to be
+ * on the class path.
+ */
+public class JdbcContentPersistenceManager implements ContentPersistenceManager, Closeable {
+    /**
+     * table of the contents
+     */
+    protected static final String CONTENT_TABLE = "content_item";
+    /**
+     * table of the connected positions of the contents
+     */
+    protected static final String POSITION_TABLE = "content_position";
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+    private final ContentRegistry registry;
+    private long nextId;
+
+    /**
+     * Creates a persistence manager and the tables, if they do not exist
+     *
+     * @param url JDBC url of the database, e.g. jdbc:h2:./positionContent or jdbc:sqlite:positionContent.db
+     * @throws ContentPersistenceException if the database could not be opened
+     */
+    public JdbcContentPersistenceManager(String url) throws ContentPersistenceException {
+        this(openConnection(url));
+    }
+
+    /**
+     * Creates a persistence manager and the tables, if they do not exist. The connection is used exclusively by the
+     * persistence manager and closed by it.
+     *
+     * @param connection connection to the database
+     * @throws ContentPersistenceException if the tables could not be created
+     */
+    public JdbcContentPersistenceManager(Connection connection) throws ContentPersistenceException {
+        this.connection = connection;
+        this.statements = new HashMap<String, PreparedStatement>();
+        this.registry = new ContentRegistry();
+        try {
+            connection.setAutoCommit(false);
+            Statement statement = connection.createStatement();
+            try {
+                createTables(statement);
+            } finally {
+                statement.close();
+            }
+            connection.commit();
+            ResultSet maxId = prepare("SELECT MAX(id) FROM " + CONTENT_TABLE).executeQuery();
+            try {
+                nextId = maxId.next() ? maxId.getLong(1) + 1 : 1;
+            } finally {
+                maxId.close();
+            }
+        } catch (SQLException e) {
+            throw new ContentPersistenceException(e.getMessage());
+        }
+    }
+
+    private static Connection openConnection(String url) throws ContentPersistenceException {
+        try {
+            return DriverManager.getConnection(url);
+        } catch (SQLException e) {
+            throw new ContentPersistenceException(e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the tables and indexes, if they do not exist
+     *
+     * @param statement statement for executing the definitions
+     * @throws SQLException if a table could not be created
+     */
+    protected void createTables(Statement statement) throws SQLException {
+        statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + CONTENT_TABLE + " (id BIGINT NOT NULL PRIMARY KEY, "
+                + "content_type VARCHAR(32) NOT NULL, content_data VARCHAR NOT NULL)");
+        statement.executeUpdate("CREATE UNIQUE INDEX IF NOT EXISTS " + CONTENT_TABLE + "_type_data ON " + CONTENT_TABLE
+                + " (content_type, content_data)");
+        statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + POSITION_TABLE + " (content_id BIGINT NOT NULL, "
+                + "position_name VARCHAR(255) NOT NULL, PRIMARY KEY (content_id, position_name))");
+        statement.executeUpdate("CREATE INDEX IF NOT EXISTS " + POSITION_TABLE + "_name ON " + POSITION_TABLE + " (position_name)");
+    }
+
+    @Override
+    public synchronized ContentList<Content> getAllContents() throws ContentPersistenceException {
+        ContentList<Content> contents = new ContentList<Content>();
+        try {
+            ResultSet rows = prepare("SELECT c.id, c.content_type, c.content_data, p.position_name FROM " + CONTENT_TABLE + " c LEFT JOIN "
+                    + POSITION_TABLE + " p ON p.content_id = c.id ORDER BY c.id").executeQuery();
+            try {
+                long contentId = 0;
+                List<String> positions = null;
+                while (rows.next()) {
+                    if (positions == null || rows.getLong(1) != contentId) {
+                        contentId = rows.getLong(1);
+                        positions = new ArrayList<String>();
+                        // the contents have their own positions, but share the data with the contents of the positions
+                        Content content = registry.intern(Content.ContentType.valueOf(rows.getString(2)), rows.getString(3));
+                        contents.add(new Content(content.getType(), content.getData(), positions));
+                    }
+                    String positionName = rows.getString(4);
+                    if (positionName != null) {
+                        positions.add(positionName);
+                    }
+                }
+            } finally {
+                rows.close();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+        return contents;
+    }
+
+    @Override
+    public synchronized Map<String, ContentList<Content>> getConnectedContents() throws ContentPersistenceException {
+        Map<String, ContentList<Content>> contents = new HashMap<String, ContentList<Content>>();
+        try {
+            ResultSet rows = prepare("SELECT c.content_type, c.content_data, p.position_name FROM " + CONTENT_TABLE + " c JOIN "
+                    + POSITION_TABLE + " p ON p.content_id = c.id ORDER BY c.id").executeQuery();
+            try {
+                while (rows.next()) {
+                    Content content = registry.intern(Content.ContentType.valueOf(rows.getString(1)), rows.getString(2));
+                    ContentList<Content> positionContents = contents.get(rows.getString(3));
+                    if (positionContents == null) {
+                        positionContents = new ContentList<Content>();
+                        contents.put(rows.getString(3), positionContents);
+                    }
+                    positionContents.add(content);
+                }
+            } finally {
+                rows.close();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+        return contents;
+    }
+
+    /**
+     * Returns the connected contents of a single position, without loading the contents of other positions. The
+     * contents are shared with all other positions and cannot be changed.
+     *
+     * @param positionName position name
+     * @return connected contents, empty if there are none
+     * @throws ContentPersistenceException error while accessing the database
+     */
+    public synchronized ContentList<Content> getContents(String positionName) throws ContentPersistenceException {
+        ContentList<Content> contents = new ContentList<Content>();
+        try {
+            PreparedStatement query = prepare("SELECT c.content_type, c.content_data FROM " + POSITION_TABLE + " p JOIN " + CONTENT_TABLE
+                    + " c ON c.id = p.content_id WHERE p.position_name = ? ORDER BY c.id");
+            query.setString(1, positionName);
+            ResultSet rows = query.executeQuery();
+            try {
+                while (rows.next()) {
+                    contents.add(registry.intern(Content.ContentType.valueOf(rows.getString(1)), rows.getString(2)));
+                }
+            } finally {
+                rows.close();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+        return contents;
+    }
+
+    /**
+     * Returns the connected positions of a single content
+     *
+     * @param contentType content type
+     * @param data        content data
+     * @return position names, empty if the content has no positions or does not exist
+     * @throws ContentPersistenceException error while accessing the database
+     */
+    public synchronized List<String> getPositions(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        List<String> positions = new ArrayList<String>();
+        try {
+            PreparedStatement query = prepare("SELECT p.position_name FROM " + CONTENT_TABLE + " c JOIN " + POSITION_TABLE
+                    + " p ON p.content_id = c.id WHERE c.content_type = ? AND c.content_data = ?");
+            query.setString(1, contentType.toString());
+            query.setString(2, data);
+            ResultSet rows = query.executeQuery();
+            try {
+                while (rows.next()) {
+                    positions.add(rows.getString(1));
+                }
+            } finally {
+                rows.close();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+        return positions;
+    }
+
+    @Override
+    public synchronized boolean addContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        return execute(ContentOperation.addContent(contentType, data));
+    }
+
+    @Override
+    public synchronized boolean removeContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        return execute(ContentOperation.removeContent(contentType, data));
+    }
+
+    @Override
+    public synchronized boolean addPosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        return execute(ContentOperation.addPosition(contentType, data, positionName));
+    }
+
+    @Override
+    public synchronized boolean addPositions(List<Content.ContentType> contentTypes, List<String> multipleData, List<String> positionNames) throws ContentPersistenceException {
+        boolean result = true;
+        try {
+            Map<ContentKey, Long> ids = new HashMap<ContentKey, Long>();
+            Set<String> added = new HashSet<String>();
+            PreparedStatement exists = prepare("SELECT 1 FROM " + POSITION_TABLE + " WHERE content_id = ? AND position_name = ?");
+            PreparedStatement insert = prepare("INSERT INTO " + POSITION_TABLE + " (content_id, position_name) VALUES (?, ?)");
+            int batchSize = 0;
+            for (int i = 0; i < contentTypes.size(); i++) {
+                ContentKey key = new ContentKey(contentTypes.get(i), multipleData.get(i));
+                Long id = ids.get(key);
+                if (id == null) {
+                    id = findId(key.getType(), key.getData());
+                    ids.put(key, id);
+                }
+                String positionName = positionNames.get(i);
+                if (id < 0 || !added.add(id + " " + positionName)) {
+                    result = false;
+                    continue;
+                }
+                exists.setLong(1, id);
+                exists.setString(2, positionName);
+                if (hasRow(exists)) {
+                    result = false;
+                    continue;
+                }
+                insert.setLong(1, id);
+                insert.setString(2, positionName);
+                insert.addBatch();
+                batchSize++;
+            }
+            if (batchSize > 0) {
+                insert.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean removePosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        return execute(ContentOperation.removePosition(contentType, data, positionName));
+    }
+
+    @Override
+    public synchronized boolean removeAllPositions(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        return execute(ContentOperation.removeAllPositions(contentType, data));
+    }
+
+    @Override
+    public synchronized boolean updateContent(Content.ContentType oldContentType, String oldData, Content.ContentType newContentType, String newData) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        return executeBatch(Collections.singletonList(ContentOperation.updateContent(oldContentType, oldData, newContentType, newData))).get(0);
+    }
+
+    @Override
+    public synchronized void removeAllContent() throws ContentPersistenceException {
+        execute(ContentOperation.removeAllContent());
+    }
+
+    @Override
+    public synchronized void removeAllPositions() throws ContentPersistenceException {
+        execute(ContentOperation.removeAllPositions());
+    }
+
+    @Override
+    public synchronized List<Boolean> executeBatch(List<ContentOperation> operations) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        List<Boolean> results = new ArrayList<Boolean>(operations.size());
+        try {
+            for (ContentOperation operation : operations) {
+                results.add(executeStatements(operation));
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw rollback(e);
+        } catch (ContentSameDataException e) {
+            rollbackQuietly();
+            throw e;
+        } catch (ContentAlreadyExistsException e) {
+            rollbackQuietly();
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * Closes the connection to the database
+     *
+     * @throws IOException if the connection could not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            for (PreparedStatement statement : statements.values()) {
+                statement.close();
+            }
+            statements.clear();
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    private boolean execute(ContentOperation operation) throws ContentPersistenceException {
+        try {
+            return executeBatch(Collections.singletonList(operation)).get(0);
+        } catch (ContentSameDataException e) {
+            throw new IllegalStateException(e);
+        } catch (ContentAlreadyExistsException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean executeStatements(ContentOperation operation) throws SQLException, ContentSameDataException, ContentAlreadyExistsException {
+        Content.ContentType contentType = operation.getContentType();
+        String data = operation.getData();
+        long id = contentType != null ? findId(contentType, data) : -1;
+        PreparedStatement statement;
+        switch (operation.getOperationType()) {
+            case ADD_CONTENT:
+                if (id >= 0) {
+                    return false;
+                }
+                statement = prepare("INSERT INTO " + CONTENT_TABLE + " (id, content_type, content_data) VALUES (?, ?, ?)");
+                statement.setLong(1, nextId++);
+                statement.setString(2, contentType.toString());
+                statement.setString(3, data);
+                statement.executeUpdate();
+                return true;
+            case REMOVE_CONTENT:
+                if (id < 0) {
+                    return false;
+                }
+                deletePositions(id);
+                statement = prepare("DELETE FROM " + CONTENT_TABLE + " WHERE id = ?");
+                statement.setLong(1, id);
+                statement.executeUpdate();
+                registry.remove(operation.getContentKey());
+                return true;
+            case ADD_POSITION:
+                if (id < 0) {
+                    return false;
+                }
+                statement = prepare("SELECT 1 FROM " + POSITION_TABLE + " WHERE content_id = ? AND position_name = ?");
+                statement.setLong(1, id);
+                statement.setString(2, operation.getPositionName());
+                if (hasRow(statement)) {
+                    return false;
+                }
+                statement = prepare("INSERT INTO " + POSITION_TABLE + " (content_id, position_name) VALUES (?, ?)");
+                statement.setLong(1, id);
+                statement.setString(2, operation.getPositionName());
+                statement.executeUpdate();
+                return true;
+            case REMOVE_POSITION:
+                if (id < 0) {
+                    return false;
+                }
+                statement = prepare("DELETE FROM " + POSITION_TABLE + " WHERE content_id = ? AND position_name = ?");
+                statement.setLong(1, id);
+                statement.setString(2, operation.getPositionName());
+                return statement.executeUpdate() > 0;
+            case REMOVE_POSITIONS:
+                if (id < 0) {
+                    return false;
+                }
+                return deletePositions(id) > 0;
+            case UPDATE_CONTENT:
+                if (contentType.equals(operation.getNewContentType()) && data.equals(operation.getNewData())) {
+                    throw new ContentSameDataException("Same old and new data.");
+                }
+                if (findId(operation.getNewContentType(), operation.getNewData()) >= 0) {
+                    throw new ContentAlreadyExistsException("A content with same data already exists.");
+                }
+                if (id < 0) {
+                    return false;
+                }
+                statement = prepare("UPDATE " + CONTENT_TABLE + " SET content_type = ?, content_data = ? WHERE id = ?");
+                statement.setString(1, operation.getNewContentType().toString());
+                statement.setString(2, operation.getNewData());
+                statement.setLong(3, id);
+                statement.executeUpdate();
+                registry.remove(operation.getContentKey());
+                return true;
+            case REMOVE_ALL_CONTENT:
+                prepare("DELETE FROM " + POSITION_TABLE).executeUpdate();
+                prepare("DELETE FROM " + CONTENT_TABLE).executeUpdate();
+                registry.clear();
+                return true;
+            case REMOVE_ALL_POSITIONS:
+                prepare("DELETE FROM " + POSITION_TABLE).executeUpdate();
+                return true;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation.getOperationType());
+        }
+    }
+
+    private long findId(Content.ContentType contentType, String data) throws SQLException {
+        PreparedStatement query = prepare("SELECT id FROM " + CONTENT_TABLE + " WHERE content_type = ? AND content_data = ?");
+        query.setString(1, contentType.toString());
+        query.setString(2, data);
+        ResultSet rows = query.executeQuery();
+        try {
+            return rows.next() ? rows.getLong(1) : -1;
+        } finally {
+            rows.close();
+        }
+    }
+
+    private int deletePositions(long id) throws SQLException {
+        PreparedStatement statement = prepare("DELETE FROM " + POSITION_TABLE + " WHERE content_id = ?");
+        statement.setLong(1, id);
+        return statement.executeUpdate();
+    }
+
+    private static boolean hasRow(PreparedStatement query) throws SQLException {
+        ResultSet rows = query.executeQuery();
+        try {
+            return rows.next();
+        } finally {
+            rows.close();
+        }
+    }
+
+    private PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    private ContentPersistenceException rollback(SQLException error) {
+        rollbackQuietly();
+        return new ContentPersistenceException(error.getMessage());
+    }
+
+    private void rollbackQuietly() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            // the transaction is discarded by closing the connection
+        }
+    }
+}
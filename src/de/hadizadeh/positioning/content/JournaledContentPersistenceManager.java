@@ -0,0 +1,427 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.exceptions.ContentException;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import org.jdom2.Document;
+
+import java.io.*;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.zip.CRC32;
+
+/**
+ * Implementation for the content persistence manager which appends every change as a small record to a journal file
+ * instead of rewriting the whole xml file. The xml file is used as snapshot. On loading, the journal is replayed on top
+ * of the snapshot and after a configurable number of records, the journal is compacted into a new snapshot. Every
+ * record has a sequence number and the snapshot stores the number of the last record it contains. Records which are
+ * already part of the snapshot are skipped while replaying, so a crash between writing the snapshot and truncating the
+ * journal is harmless.
+ */
+public class JournaledContentPersistenceManager extends IndexedXMLContentPersistenceManager implements Closeable {
+
+    /**
+     * Defines when the journal is forced to the storage device
+     */
+    public enum SyncMode {
+        /**
+         * After every change
+         */
+        ALWAYS,
+        /**
+         * After a number of written records
+         */
+        BATCH,
+        /**
+         * Periodically after a number of milliseconds
+         */
+        TIMED
+    }
+
+    /**
+     * journal file
+     */
+    protected File journalFile;
+    private static final byte RECORD_ADD_CONTENT = 1;
+    private static final byte RECORD_REMOVE_CONTENT = 2;
+    private static final byte RECORD_ADD_POSITION = 3;
+    private static final byte RECORD_REMOVE_POSITION = 4;
+    private static final byte RECORD_REMOVE_POSITIONS = 5;
+    private static final byte RECORD_UPDATE_CONTENT = 6;
+    private static final byte RECORD_REMOVE_ALL_CONTENT = 7;
+    private static final byte RECORD_REMOVE_ALL_POSITIONS = 8;
+
+    private SyncMode syncMode;
+    private long syncInterval;
+    private int compactionThreshold;
+    private long sequence;
+    private FileOutputStream journalOutput;
+    private DataOutputStream journal;
+    private Timer syncTimer;
+    private int recordCount;
+    private int unsyncedRecords;
+    private ContentPersistenceException syncError;
+
+    /**
+     * Creates a persistence manager which forces every change to the storage device and compacts the journal after
+     * 1000 records.
+     *
+     * @param persistenceFile xml snapshot file, the journal is stored next to it
+     * @throws ContentPersistenceException if the snapshot or the journal could not be loaded
+     */
+    public JournaledContentPersistenceManager(File persistenceFile) throws ContentPersistenceException {
+        this(persistenceFile, SyncMode.ALWAYS, 0, 1000);
+    }
+
+    /**
+     * Creates a persistence manager.
+     *
+     * @param persistenceFile     xml snapshot file, the journal is stored next to it
+     * @param syncMode            defines when the journal is forced to the storage device
+     * @param syncInterval        number of records for {@link SyncMode#BATCH}, milliseconds for {@link SyncMode#TIMED}
+     * @param compactionThreshold number of journal records after which a new snapshot is written
+     * @throws ContentPersistenceException if the snapshot or the journal could not be loaded
+     * @throws IllegalArgumentException    if the sync interval of {@link SyncMode#TIMED} is not positive
+     */
+    public JournaledContentPersistenceManager(File persistenceFile, SyncMode syncMode, long syncInterval, int compactionThreshold) throws ContentPersistenceException {
+        super(persistenceFile);
+        if (SyncMode.TIMED.equals(syncMode) && syncInterval <= 0) {
+            throw new IllegalArgumentException("Sync interval must be positive, but was " + syncInterval);
+        }
+        this.syncMode = syncMode;
+        this.syncInterval = syncInterval;
+        this.compactionThreshold = compactionThreshold;
+        openJournal(true);
+        if (SyncMode.TIMED.equals(syncMode)) {
+            syncTimer = new Timer("content-journal-sync", true);
+            syncTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    synchronized (JournaledContentPersistenceManager.this) {
+                        try {
+                            force();
+                        } catch (ContentPersistenceException e) {
+                            // reported by the next change or sync, the records are forced again by the next sync
+                            syncError = e;
+                        }
+                    }
+                }
+            }, syncInterval, syncInterval);
+        }
+    }
+
+    /**
+     * Writes the current data as new xml snapshot and empties the journal. The snapshot contains the sequence number of
+     * the last record, so the records are skipped if the journal could not be emptied.
+     *
+     * @throws ContentPersistenceException if the snapshot or the journal could not be written
+     */
+    public synchronized void compact() throws ContentPersistenceException {
+        try {
+            write(toDocument());
+            journal.close();
+        } catch (IOException e) {
+            throw new ContentPersistenceException(e.getMessage());
+        }
+        openJournal(false);
+        recordCount = 0;
+        unsyncedRecords = 0;
+    }
+
+    /**
+     * Forces all written journal records to the storage device. If a timed synchronization failed before, its error is
+     * thrown, because the records written before it may be lost even if forcing them again succeeds.
+     *
+     * @throws ContentPersistenceException if the journal could not be synchronized
+     */
+    public synchronized void sync() throws ContentPersistenceException {
+        checkSyncError();
+        force();
+    }
+
+    /**
+     * Throws the errors of the last delayed save and of the last timed synchronization once, if they failed
+     *
+     * @throws ContentPersistenceException if the last delayed save or timed synchronization failed
+     */
+    @Override
+    protected void checkSaveError() throws ContentPersistenceException {
+        super.checkSaveError();
+        checkSyncError();
+    }
+
+    private void checkSyncError() throws ContentPersistenceException {
+        if (syncError != null) {
+            ContentPersistenceException error = syncError;
+            syncError = null;
+            throw new ContentPersistenceException("Journal could not be synchronized: " + error.getMessage());
+        }
+    }
+
+    private void force() throws ContentPersistenceException {
+        if (unsyncedRecords > 0) {
+            try {
+                journalOutput.getChannel().force(false);
+            } catch (IOException e) {
+                throw new ContentPersistenceException(e.getMessage());
+            }
+            unsyncedRecords = 0;
+        }
+    }
+
+    /**
+     * Synchronizes the journal and closes it. The persistence manager must not be used afterwards.
+     *
+     * @throws IOException if the journal could not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (syncTimer != null) {
+            syncTimer.cancel();
+        }
+        try {
+            sync();
+        } catch (ContentPersistenceException e) {
+            throw new IOException(e.getMessage());
+        } finally {
+            journal.close();
+            super.close();
+        }
+    }
+
+    /**
+     * Loads the xml snapshot and replays the journal
+     *
+     * @throws ContentPersistenceException if the snapshot or the journal could not be loaded
+     */
+    @Override
+    protected void load() throws ContentPersistenceException {
+        super.load();
+        journalFile = new File(persistenceFile.getPath() + ".journal");
+        long previousSequence = sequence;
+        try {
+            String snapshotSequence = contentReader.readRootAttribute(persistenceFile, "journalSequence");
+            sequence = snapshotSequence != null ? Long.parseLong(snapshotSequence) : 0;
+            recordCount = journalFile.exists() ? replay() : 0;
+        } catch (Exception e) {
+            // the previous in-memory data is kept by a failed reload
+            sequence = previousSequence;
+            throw new ContentPersistenceException(e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a xml snapshot of the in-memory data with the sequence number of the last journal record
+     *
+     * @return xml document
+     */
+    @Override
+    protected Document toDocument() {
+        Document doc = super.toDocument();
+        doc.getRootElement().setAttribute("journalSequence", Long.toString(sequence));
+        return doc;
+    }
+
+    /**
+     * Appends the changes as journal records, the snapshot is only written while compacting
+     *
+     * @param operations successfully applied operations
+     * @throws ContentPersistenceException if the journal could not be written
+     */
+    @Override
+    protected void persist(List<ContentOperation> operations) throws ContentPersistenceException {
+        try {
+            CRC32 crc = new CRC32();
+            for (ContentOperation operation : operations) {
+                byte[] record = record(sequence + 1, operation);
+                crc.reset();
+                crc.update(record);
+                journal.writeInt(record.length);
+                journal.writeInt((int) crc.getValue());
+                journal.write(record);
+                sequence++;
+            }
+            journal.flush();
+        } catch (IOException e) {
+            // drops the buffered part of the failed records, a partly written record is removed while replaying
+            try {
+                journalOutput.close();
+            } catch (IOException closeError) {
+                // the journal is opened again
+            }
+            openJournal(true);
+            throw new ContentPersistenceException(e.getMessage());
+        }
+        recordCount += operations.size();
+        unsyncedRecords += operations.size();
+        if (SyncMode.ALWAYS.equals(syncMode) || (SyncMode.BATCH.equals(syncMode) && unsyncedRecords >= syncInterval)) {
+            sync();
+        }
+        if (recordCount >= compactionThreshold) {
+            compact();
+        }
+    }
+
+    private int replay() throws IOException {
+        int records = 0;
+        long validLength = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+        try {
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] record;
+                try {
+                    int length = in.readInt();
+                    long checksum = in.readInt() & 0xffffffffL;
+                    if (length < 0 || length > journalFile.length() - validLength - 8) {
+                        break;
+                    }
+                    record = new byte[length];
+                    in.readFully(record);
+                    crc.reset();
+                    crc.update(record);
+                    if (crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(record));
+                long recordSequence = recordIn.readLong();
+                if (recordSequence > sequence) {
+                    // older records are already part of the snapshot
+                    apply(recordIn);
+                    sequence = recordSequence;
+                }
+                validLength += 8 + record.length;
+                records++;
+            }
+        } finally {
+            in.close();
+        }
+        if (validLength < journalFile.length()) {
+            // a record was only partly written, e.g. because of a crash
+            RandomAccessFile file = new RandomAccessFile(journalFile, "rw");
+            try {
+                file.setLength(validLength);
+            } finally {
+                file.close();
+            }
+        }
+        return records;
+    }
+
+    private void apply(DataInputStream record) throws IOException {
+        byte recordType = record.readByte();
+        ContentOperation operation;
+        switch (recordType) {
+            case RECORD_ADD_CONTENT:
+                operation = ContentOperation.addContent(readContentType(record), readString(record));
+                break;
+            case RECORD_REMOVE_CONTENT:
+                operation = ContentOperation.removeContent(readContentType(record), readString(record));
+                break;
+            case RECORD_ADD_POSITION:
+                operation = ContentOperation.addPosition(readContentType(record), readString(record), readString(record));
+                break;
+            case RECORD_REMOVE_POSITION:
+                operation = ContentOperation.removePosition(readContentType(record), readString(record), readString(record));
+                break;
+            case RECORD_REMOVE_POSITIONS:
+                operation = ContentOperation.removeAllPositions(readContentType(record), readString(record));
+                break;
+            case RECORD_UPDATE_CONTENT:
+                operation = ContentOperation.updateContent(readContentType(record), readString(record), readContentType(record), readString(record));
+                break;
+            case RECORD_REMOVE_ALL_CONTENT:
+                operation = ContentOperation.removeAllContent();
+                break;
+            case RECORD_REMOVE_ALL_POSITIONS:
+                operation = ContentOperation.removeAllPositions();
+                break;
+            default:
+                throw new IOException("Corrupt journal record of unknown type " + recordType);
+        }
+        try {
+            apply(operation);
+        } catch (ContentException e) {
+            // the change was already part of the snapshot
+        }
+    }
+
+    private void openJournal(boolean append) throws ContentPersistenceException {
+        try {
+            journalOutput = new FileOutputStream(journalFile, append);
+            journal = new DataOutputStream(new BufferedOutputStream(journalOutput));
+        } catch (IOException e) {
+            throw new ContentPersistenceException(e.getMessage());
+        }
+    }
+
+    private static byte[] record(long sequence, ContentOperation operation) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(sequence);
+            out.writeByte(getRecordType(operation.getOperationType()));
+            if (operation.getContentType() != null) {
+                writeString(out, operation.getContentType().name());
+                writeString(out, operation.getData());
+            }
+            if (operation.getPositionName() != null) {
+                writeString(out, operation.getPositionName());
+            }
+            if (operation.getNewContentType() != null) {
+                writeString(out, operation.getNewContentType().name());
+                writeString(out, operation.getNewData());
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte getRecordType(ContentOperation.OperationType operationType) {
+        switch (operationType) {
+            case ADD_CONTENT:
+                return RECORD_ADD_CONTENT;
+            case REMOVE_CONTENT:
+                return RECORD_REMOVE_CONTENT;
+            case ADD_POSITION:
+                return RECORD_ADD_POSITION;
+            case REMOVE_POSITION:
+                return RECORD_REMOVE_POSITION;
+            case REMOVE_POSITIONS:
+                return RECORD_REMOVE_POSITIONS;
+            case UPDATE_CONTENT:
+                return RECORD_UPDATE_CONTENT;
+            case REMOVE_ALL_CONTENT:
+                return RECORD_REMOVE_ALL_CONTENT;
+            case REMOVE_ALL_POSITIONS:
+                return RECORD_REMOVE_ALL_POSITIONS;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operationType);
+        }
+    }
+
+    private static Content.ContentType readContentType(DataInputStream in) throws IOException {
+        String name = readString(in);
+        try {
+            return Content.ContentType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt journal record of unknown content type " + name);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+}
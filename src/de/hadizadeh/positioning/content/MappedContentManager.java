@@ -5,13 +5,19 @@ import de.hadizadeh.positioning.controller.MappedPositionManager;
 import de.hadizadeh.positioning.model.MappingPoint;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
  * Layer above the content manager. Adds methods for managing contents with coordinates.
  */
 public class MappedContentManager extends ContentManager {
+    private static final int INDEX_CELL_SIZE = 4;
+    private static final int COORDINATE_BITS = 21;
+    private static final int MIN_COORDINATE = -(1 << (COORDINATE_BITS - 1));
+    private static final int MAX_COORDINATE = (1 << (COORDINATE_BITS - 1)) - 1;
+
+    private volatile MappingPointIndex mappingPointIndex;
+    private volatile PersistentLongHashMap<ContentList<Content>> pointContents;
 
     /**
      * Creates the mapped content manager.
@@ -48,7 +54,112 @@ public class MappedContentManager extends ContentManager {
      * @return list of matched contents
      */
     public ContentList<Content> getContents(MappingPoint mappingPoint) {
-        return contents.get(MappedPositionManager.mappingPointToName(mappingPoint));
+        return getContents(mappingPoint.getX(), mappingPoint.getY(), mappingPoint.getZ());
+    }
+
+    /**
+     * Returns all contents of a point in the coordinate system. The contents are found by the packed coordinates,
+     * without creating the position name. Positions whose names could not be converted back to coordinates are found
+     * by their names.
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param z z coordinate
+     * @return list of matched contents
+     */
+    public ContentList<Content> getContents(int x, int y, int z) {
+        if (isPackable(x) && isPackable(y) && isPackable(z)) {
+            ContentList<Content> positionContents = pointContents.get(pointKey(x, y, z));
+            if (positionContents != null) {
+                return positionContents;
+            }
+        }
+        return contents.get(MappedPositionManager.mappingPointToName(new MappingPoint(x, y, z)));
+    }
+
+    /**
+     * Returns the contents of the mapped points which are nearest to a point in the coordinate system
+     *
+     * @param mappingPoint coordinates
+     * @param count        maximum number of mapped points
+     * @return contents with position names, ordered by the distance of the positions
+     */
+    public Map<String, ContentList<Content>> getNearestContents(MappingPoint mappingPoint, int count) {
+        return getContentsForPositions(mappingPointIndex.getNearest(mappingPoint, count));
+    }
+
+    /**
+     * Returns the contents of all mapped points within a distance of a point in the coordinate system
+     *
+     * @param mappingPoint coordinates
+     * @param radius       maximum distance in coordinate units
+     * @return contents with position names, ordered by the distance of the positions
+     */
+    public Map<String, ContentList<Content>> getContents(MappingPoint mappingPoint, double radius) {
+        return getContentsForPositions(mappingPointIndex.getWithin(mappingPoint, radius));
+    }
+
+    @Override
+    protected void contentsChanged(Set<String> positionNames) {
+        MappingPointIndex changedMappingPointIndex;
+        PersistentLongHashMap<ContentList<Content>> changedPointContents;
+        if (positionNames == null || mappingPointIndex == null) {
+            // readers keep the previous index and map until the new ones are complete
+            positionNames = contents.keySet();
+            changedMappingPointIndex = new MappingPointIndex(INDEX_CELL_SIZE);
+            changedPointContents = PersistentLongHashMap.empty();
+        } else {
+            changedMappingPointIndex = mappingPointIndex;
+            changedPointContents = pointContents;
+        }
+        for (String positionName : positionNames) {
+            MappingPoint mappingPoint = toMappingPoint(positionName);
+            if (mappingPoint != null) {
+                ContentList<Content> positionContents = contents.get(positionName);
+                boolean packable = isPackable(mappingPoint.getX()) && isPackable(mappingPoint.getY()) && isPackable(mappingPoint.getZ());
+                if (positionContents != null) {
+                    changedMappingPointIndex.add(positionName, mappingPoint);
+                    if (packable) {
+                        changedPointContents = changedPointContents.with(pointKey(mappingPoint.getX(), mappingPoint.getY(), mappingPoint.getZ()), positionContents);
+                    }
+                } else {
+                    changedMappingPointIndex.remove(positionName, mappingPoint);
+                    if (packable) {
+                        changedPointContents = changedPointContents.without(pointKey(mappingPoint.getX(), mappingPoint.getY(), mappingPoint.getZ()));
+                    }
+                }
+            }
+        }
+        pointContents = changedPointContents;
+        mappingPointIndex = changedMappingPointIndex;
+    }
+
+    private static boolean isPackable(int coordinate) {
+        return coordinate >= MIN_COORDINATE && coordinate <= MAX_COORDINATE;
+    }
+
+    private static long pointKey(int x, int y, int z) {
+        long mask = (1L << COORDINATE_BITS) - 1;
+        return ((x & mask) << (2 * COORDINATE_BITS)) | ((y & mask) << COORDINATE_BITS) | (z & mask);
+    }
+
+    /**
+     * Converts a position name back to its coordinates
+     *
+     * @param positionName position name
+     * @return coordinates or null, if the position is not a mapped point
+     */
+    protected static MappingPoint toMappingPoint(String positionName) {
+        String[] coordinates = positionName.split("_");
+        if (coordinates.length != 3) {
+            return null;
+        }
+        try {
+            MappingPoint mappingPoint = new MappingPoint(Integer.parseInt(coordinates[0]), Integer.parseInt(coordinates[1]), Integer.parseInt(coordinates[2]));
+            return positionName.equals(MappedPositionManager.mappingPointToName(mappingPoint)) ? mappingPoint : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     /**
@@ -0,0 +1,291 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.model.MappingPoint;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Spatial index of named mapping points on a uniform grid. Queries only visit the grid cells around the requested
+ * point instead of all points. Queries can run in any thread, changes have to be made by one thread at a time.
+ */
+public class MappingPointIndex {
+    private static final int CELL_BITS = 21;
+    private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+    private static final Comparator<Candidate> FARTHEST_FIRST = new Comparator<Candidate>() {
+        @Override
+        public int compare(Candidate candidate1, Candidate candidate2) {
+            return candidate2.compareTo(candidate1);
+        }
+    };
+
+    private final int cellSize;
+    private final ConcurrentMap<Long, Entry[]> cells;
+    private volatile int size;
+    private volatile int minCellX;
+    private volatile int minCellY;
+    private volatile int minCellZ;
+    private volatile int maxCellX;
+    private volatile int maxCellY;
+    private volatile int maxCellZ;
+
+    /**
+     * Creates an empty index
+     *
+     * @param cellSize edge length of the grid cells in coordinate units
+     */
+    public MappingPointIndex(int cellSize) {
+        if (cellSize < 1) {
+            throw new IllegalArgumentException("Cell size must be positive.");
+        }
+        this.cellSize = cellSize;
+        this.cells = new ConcurrentHashMap<Long, Entry[]>();
+        resetBounds();
+    }
+
+    /**
+     * Adds a point
+     *
+     * @param name  name of the point
+     * @param point coordinates
+     * @return true, if the point was added, false if it already exists
+     */
+    public boolean add(String name, MappingPoint point) {
+        int cellX = cell(point.getX());
+        int cellY = cell(point.getY());
+        int cellZ = cell(point.getZ());
+        Long key = cellKey(cellX, cellY, cellZ);
+        Entry[] entries = cells.get(key);
+        if (entries == null) {
+            entries = new Entry[0];
+        }
+        for (Entry entry : entries) {
+            if (entry.name.equals(name)) {
+                return false;
+            }
+        }
+        Entry[] changedEntries = Arrays.copyOf(entries, entries.length + 1);
+        changedEntries[entries.length] = new Entry(name, point.getX(), point.getY(), point.getZ());
+        minCellX = Math.min(minCellX, cellX);
+        minCellY = Math.min(minCellY, cellY);
+        minCellZ = Math.min(minCellZ, cellZ);
+        maxCellX = Math.max(maxCellX, cellX);
+        maxCellY = Math.max(maxCellY, cellY);
+        maxCellZ = Math.max(maxCellZ, cellZ);
+        cells.put(key, changedEntries);
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes a point
+     *
+     * @param name  name of the point
+     * @param point coordinates
+     * @return true, if the point was removed, false if it does not exist
+     */
+    public boolean remove(String name, MappingPoint point) {
+        Long key = cellKey(cell(point.getX()), cell(point.getY()), cell(point.getZ()));
+        Entry[] entries = cells.get(key);
+        if (entries == null) {
+            return false;
+        }
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i].name.equals(name)) {
+                if (entries.length == 1) {
+                    cells.remove(key);
+                } else {
+                    Entry[] changedEntries = new Entry[entries.length - 1];
+                    System.arraycopy(entries, 0, changedEntries, 0, i);
+                    System.arraycopy(entries, i + 1, changedEntries, i, entries.length - i - 1);
+                    cells.put(key, changedEntries);
+                }
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all points
+     */
+    public void clear() {
+        cells.clear();
+        size = 0;
+        resetBounds();
+    }
+
+    /**
+     * Returns the number of points
+     *
+     * @return number of points
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the nearest points of a point
+     *
+     * @param point coordinates
+     * @param count maximum number of points
+     * @return names of the nearest points, ordered by distance
+     */
+    public List<String> getNearest(MappingPoint point, int count) {
+        if (count <= 0 || size == 0) {
+            return new ArrayList<String>();
+        }
+        PriorityQueue<Candidate> nearest = new PriorityQueue<Candidate>(count, FARTHEST_FIRST);
+        int cellX = cell(point.getX());
+        int cellY = cell(point.getY());
+        int cellZ = cell(point.getZ());
+        int maxRing = Math.max(Math.max(ringTo(cellX, minCellX, maxCellX), ringTo(cellY, minCellY, maxCellY)), ringTo(cellZ, minCellZ, maxCellZ));
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (nearest.size() == count) {
+                long minDistance = (long) (ring - 1) * cellSize;
+                if (minDistance * minDistance > nearest.peek().distance) {
+                    break;
+                }
+            }
+            for (int x = Math.max(cellX - ring, minCellX); x <= Math.min(cellX + ring, maxCellX); x++) {
+                for (int y = Math.max(cellY - ring, minCellY); y <= Math.min(cellY + ring, maxCellY); y++) {
+                    boolean shell = Math.abs(x - cellX) == ring || Math.abs(y - cellY) == ring;
+                    int step = shell || ring == 0 ? 1 : 2 * ring;
+                    for (int z = cellZ - ring; z <= cellZ + ring; z += step) {
+                        if (z >= minCellZ && z <= maxCellZ) {
+                            collectNearest(cells.get(cellKey(x, y, z)), point, nearest, count);
+                        }
+                    }
+                }
+            }
+        }
+        return names(nearest);
+    }
+
+    /**
+     * Returns all points within a distance of a point
+     *
+     * @param point  coordinates
+     * @param radius maximum distance
+     * @return names of the points, ordered by distance
+     */
+    public List<String> getWithin(MappingPoint point, double radius) {
+        List<Candidate> within = new ArrayList<Candidate>();
+        if (radius < 0 || size == 0) {
+            return new ArrayList<String>();
+        }
+        int range = (int) Math.min(Math.ceil(radius), Integer.MAX_VALUE / 2);
+        double maxDistance = radius * radius;
+        for (int x = Math.max(cell(point.getX() - range), minCellX); x <= Math.min(cell(point.getX() + range), maxCellX); x++) {
+            for (int y = Math.max(cell(point.getY() - range), minCellY); y <= Math.min(cell(point.getY() + range), maxCellY); y++) {
+                for (int z = Math.max(cell(point.getZ() - range), minCellZ); z <= Math.min(cell(point.getZ() + range), maxCellZ); z++) {
+                    Entry[] entries = cells.get(cellKey(x, y, z));
+                    if (entries != null) {
+                        for (Entry entry : entries) {
+                            long distance = entry.distance(point);
+                            if (distance <= maxDistance) {
+                                within.add(new Candidate(entry.name, distance));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        Collections.sort(within);
+        List<String> names = new ArrayList<String>(within.size());
+        for (Candidate candidate : within) {
+            names.add(candidate.name);
+        }
+        return names;
+    }
+
+    private void collectNearest(Entry[] entries, MappingPoint point, PriorityQueue<Candidate> nearest, int count) {
+        if (entries == null) {
+            return;
+        }
+        for (Entry entry : entries) {
+            Candidate candidate = new Candidate(entry.name, entry.distance(point));
+            if (nearest.size() < count) {
+                nearest.add(candidate);
+            } else if (candidate.compareTo(nearest.peek()) < 0) {
+                nearest.poll();
+                nearest.add(candidate);
+            }
+        }
+    }
+
+    private static List<String> names(PriorityQueue<Candidate> candidates) {
+        List<Candidate> sorted = new ArrayList<Candidate>(candidates);
+        Collections.sort(sorted);
+        List<String> names = new ArrayList<String>(sorted.size());
+        for (Candidate candidate : sorted) {
+            names.add(candidate.name);
+        }
+        return names;
+    }
+
+    private static int ringTo(int cell, int min, int max) {
+        return Math.max(Math.abs(cell - min), Math.abs(max - cell));
+    }
+
+    private int cell(int coordinate) {
+        int cell = coordinate / cellSize;
+        return coordinate < 0 && cell * cellSize != coordinate ? cell - 1 : cell;
+    }
+
+    private static Long cellKey(int cellX, int cellY, int cellZ) {
+        return ((long) (cellX & CELL_MASK) << (2 * CELL_BITS)) | ((long) (cellY & CELL_MASK) << CELL_BITS) | (cellZ & CELL_MASK);
+    }
+
+    private void resetBounds() {
+        minCellX = minCellY = minCellZ = Integer.MAX_VALUE;
+        maxCellX = maxCellY = maxCellZ = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Indexed point
+     */
+    private static class Entry {
+        private final String name;
+        private final int x;
+        private final int y;
+        private final int z;
+
+        private Entry(String name, int x, int y, int z) {
+            this.name = name;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        private long distance(MappingPoint point) {
+            long dx = (long) x - point.getX();
+            long dy = (long) y - point.getY();
+            long dz = (long) z - point.getZ();
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+
+    /**
+     * Point found by a query with its squared distance
+     */
+    private static class Candidate implements Comparable<Candidate> {
+        private final String name;
+        private final long distance;
+
+        private Candidate(String name, long distance) {
+            this.name = name;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Candidate candidate) {
+            if (distance != candidate.distance) {
+                return distance < candidate.distance ? -1 : 1;
+            }
+            return name.compareTo(candidate.name);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package de.hadizadeh.positioning.content;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams byte ranges of asset files, mainly audio and movie files, to channels. The bytes are transferred by the
+ * file channel directly, without copying them through the heap. Asynchronous transfers are split into chunks, so many
+ * transfers can share the threads of an executor.
+ */
+public class MediaStreamer {
+    private final AssetLoader assetLoader;
+    private final ExecutorService executor;
+    private final long chunkSize;
+    private final AtomicLong transferredBytes;
+    private final AtomicInteger activeTransfers;
+
+    /**
+     * Creates a media streamer
+     *
+     * @param assetLoader asset loader, which resolves the files of the contents
+     * @param executor    executor of the asynchronous transfers
+     * @param chunkSize   maximum number of bytes which an asynchronous transfer sends at once
+     */
+    public MediaStreamer(AssetLoader assetLoader, ExecutorService executor, long chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        this.assetLoader = assetLoader;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.transferredBytes = new AtomicLong();
+        this.activeTransfers = new AtomicInteger();
+    }
+
+    /**
+     * Returns the size of the file of a content
+     *
+     * @param content asset content
+     * @return size in bytes
+     */
+    public long getSize(Content content) {
+        return getFile(content).length();
+    }
+
+    /**
+     * Streams a byte range of the file of a content to a blocking channel
+     *
+     * @param content  asset content
+     * @param position first byte of the range
+     * @param count    maximum number of bytes, the transfer stops at the end of the file
+     * @param target   channel which receives the bytes
+     * @return number of transferred bytes
+     * @throws IOException if the file could not be read or the bytes could not be written
+     */
+    public long stream(Content content, long position, long count, WritableByteChannel target) throws IOException {
+        Transfer transfer = new Transfer(content, position, count, target);
+        activeTransfers.incrementAndGet();
+        try {
+            while (transfer.transferChunk(Long.MAX_VALUE)) {
+            }
+            return transfer.getTransferredBytes();
+        } finally {
+            transfer.close();
+        }
+    }
+
+    /**
+     * Streams a byte range of the file of a content to a blocking channel in the background
+     *
+     * @param content  asset content
+     * @param position first byte of the range
+     * @param count    maximum number of bytes, the transfer stops at the end of the file
+     * @param target   channel which receives the bytes
+     * @return running transfer, its result is the number of transferred bytes
+     * @throws IOException if the file could not be opened
+     */
+    public Transfer streamAsync(Content content, long position, long count, WritableByteChannel target) throws IOException {
+        Transfer transfer = new Transfer(content, position, count, target);
+        activeTransfers.incrementAndGet();
+        transfer.schedule();
+        return transfer;
+    }
+
+    /**
+     * Returns the number of bytes which all transfers have sent
+     *
+     * @return number of bytes
+     */
+    public long getTransferredBytes() {
+        return transferredBytes.get();
+    }
+
+    /**
+     * Returns the number of running transfers
+     *
+     * @return number of transfers
+     */
+    public int getActiveTransfers() {
+        return activeTransfers.get();
+    }
+
+    private File getFile(Content content) {
+        if (!AssetLoader.isAsset(content)) {
+            throw new IllegalArgumentException("Content " + content.getType() + " has no file.");
+        }
+        return assetLoader.getFile(content);
+    }
+
+    /**
+     * Transfer of a byte range, with counters for the transferred bytes and the throughput
+     */
+    public class Transfer extends SettableFuture<Long> {
+        private final FileChannel channel;
+        private final WritableByteChannel target;
+        private final long end;
+        private final long startTime;
+        private volatile long position;
+        private volatile long transferred;
+        private volatile long endTime;
+        private boolean closed;
+
+        private Transfer(Content content, long position, long count, WritableByteChannel target) throws IOException {
+            if (position < 0 || count < 0) {
+                throw new IllegalArgumentException("Position and count must not be negative.");
+            }
+            this.channel = new RandomAccessFile(getFile(content), "r").getChannel();
+            this.target = target;
+            this.position = position;
+            this.end = Math.min(channel.size(), position + Math.min(count, Long.MAX_VALUE - position));
+            this.startTime = System.nanoTime();
+        }
+
+        /**
+         * Returns the number of transferred bytes
+         *
+         * @return number of bytes
+         */
+        public long getTransferredBytes() {
+            return transferred;
+        }
+
+        /**
+         * Returns the position of the next byte which is transferred, a stopped transfer can be resumed from here
+         *
+         * @return position in the file
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        /**
+         * Returns the average throughput since the transfer has started
+         *
+         * @return bytes per second
+         */
+        public double getBytesPerSecond() {
+            long time = (endTime != 0 ? endTime : System.nanoTime()) - startTime;
+            return time > 0 ? transferred * 1000000000.0 / time : 0;
+        }
+
+        @Override
+        protected void done() {
+            try {
+                close();
+            } catch (IOException e) {
+                // the result of the transfer is already set
+            }
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (isDone()) {
+                            return;
+                        }
+                        try {
+                            if (transferChunk(chunkSize)) {
+                                schedule();
+                            } else {
+                                close();
+                                set(transferred);
+                            }
+                        } catch (Throwable e) {
+                            setException(e);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                setException(e);
+            }
+        }
+
+        private boolean transferChunk(long maxBytes) throws IOException {
+            if (position >= end) {
+                return false;
+            }
+            long bytes = channel.transferTo(position, Math.min(maxBytes, end - position), target);
+            if (bytes == 0 && position >= channel.size()) {
+                throw new IOException("File was truncated to " + channel.size() + " bytes during the transfer.");
+            }
+            position += bytes;
+            transferred += bytes;
+            transferredBytes.addAndGet(bytes);
+            return position < end;
+        }
+
+        private synchronized void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                endTime = System.nanoTime();
+                activeTransfers.decrementAndGet();
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package de.hadizadeh.positioning.content;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts and latency histogram of a single operation. The histogram has a bucket for every power of two nanoseconds,
+ * percentiles are reported as the upper bound of their bucket. Recording is thread-safe and does not lock.
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+    private final String operation;
+    private final AtomicLongArray buckets;
+    private final AtomicLong count;
+    private final AtomicLong errorCount;
+    private final AtomicLong totalNanos;
+    private final AtomicLong maxNanos;
+
+    /**
+     * Creates empty metrics
+     *
+     * @param operation name of the operation
+     */
+    public OperationMetrics(String operation) {
+        this.operation = operation;
+        this.buckets = new AtomicLongArray(64);
+        this.count = new AtomicLong();
+        this.errorCount = new AtomicLong();
+        this.totalNanos = new AtomicLong();
+        this.maxNanos = new AtomicLong();
+    }
+
+    /**
+     * Records an execution
+     *
+     * @param durationNanos duration in nanoseconds
+     * @param failed        true, if the execution failed
+     */
+    public void record(long durationNanos, boolean failed) {
+        long duration = Math.max(0, durationNanos);
+        buckets.incrementAndGet(Math.min(63, 64 - Long.numberOfLeadingZeros(duration)));
+        count.incrementAndGet();
+        totalNanos.addAndGet(duration);
+        if (failed) {
+            errorCount.incrementAndGet();
+        }
+        long max = maxNanos.get();
+        while (duration > max && !maxNanos.compareAndSet(max, duration)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Returns the name of the operation
+     *
+     * @return name of the operation
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long executions = count.get();
+        return executions > 0 ? totalNanos.get() / 1000.0 / executions : 0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return getPercentileNanos(50) / 1000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return getPercentileNanos(90) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return getPercentileNanos(99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return maxNanos.get() / 1000.0;
+    }
+
+    /**
+     * Returns a percentile of the duration
+     *
+     * @param percentile percentile between 0 and 100
+     * @return duration in nanoseconds
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] counts = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(i == 0 ? 0 : (1L << i) - 1, maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+}
@@ -0,0 +1,56 @@
+package de.hadizadeh.positioning.content;
+
+/**
+ * JMX view of the measurements of a single operation
+ */
+public interface OperationMetricsMBean {
+
+    /**
+     * Returns the number of executions
+     *
+     * @return number of executions
+     */
+    long getCount();
+
+    /**
+     * Returns the number of failed executions
+     *
+     * @return number of failures
+     */
+    long getErrorCount();
+
+    /**
+     * Returns the mean duration
+     *
+     * @return duration in microseconds
+     */
+    double getMeanMicros();
+
+    /**
+     * Returns the median duration
+     *
+     * @return duration in microseconds
+     */
+    double getP50Micros();
+
+    /**
+     * Returns the 90th percentile of the duration
+     *
+     * @return duration in microseconds
+     */
+    double getP90Micros();
+
+    /**
+     * Returns the 99th percentile of the duration
+     *
+     * @return duration in microseconds
+     */
+    double getP99Micros();
+
+    /**
+     * Returns the longest duration
+     *
+     * @return duration in microseconds
+     */
+    double getMaxMicros();
+}
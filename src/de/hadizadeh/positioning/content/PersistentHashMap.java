@@ -0,0 +1,362 @@
+package de.hadizadeh.positioning.content;
+
+import java.util.*;
+
+/**
+ * Immutable hash map which shares all unchanged parts with the map it was created from. The entries are stored in a
+ * tree of small tables, indexed by five bits of the hash per level. Adding or removing a key copies only the tables on
+ * the path to the key, so a changed map costs O(log n) instead of a copy of all entries. The map can be read by any
+ * thread without locking. Null keys and values are not allowed.
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MAX_DEPTH = 8;
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashMap EMPTY = new PersistentHashMap(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map
+     *
+     * @param <K> key
+     * @param <V> value
+     * @return empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Creates a map with the entries of another map
+     *
+     * @param map entries
+     * @param <K> key
+     * @param <V> value
+     * @return map
+     */
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        PersistentHashMap<K, V> copy = empty();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            copy = copy.with(entry.getKey(), entry.getValue());
+        }
+        return copy;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null || root == null) {
+            return null;
+        }
+        return (V) root.find(hash(key), 0, key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a map which contains the entries of this map and a value for a key
+     *
+     * @param key   key
+     * @param value value
+     * @return changed map or this map, if it already contains the value for the key
+     */
+    public PersistentHashMap<K, V> with(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("Null keys and values are not allowed.");
+        }
+        int hash = hash(key);
+        if (root == null) {
+            return new PersistentHashMap<K, V>(new Node(bit(hash, 0), new Object[]{key, value}), 1);
+        }
+        boolean[] added = new boolean[1];
+        Node changedRoot = root.with(hash, 0, key, value, added);
+        return changedRoot == root ? this : new PersistentHashMap<K, V>(changedRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map which contains the entries of this map without a key
+     *
+     * @param key key
+     * @return changed map or this map, if it does not contain the key
+     */
+    public PersistentHashMap<K, V> without(Object key) {
+        if (key == null || root == null) {
+            return this;
+        }
+        Node changedRoot = root.without(hash(key), 0, key);
+        if (changedRoot == root) {
+            return this;
+        }
+        return changedRoot != null ? new PersistentHashMap<K, V>(changedRoot, size - 1) : PersistentHashMap.<K, V>empty();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    /**
+     * Table of a tree level. The array holds a key and a value for every set bit of the bitmap in the order of the
+     * bits. The key is null, if the value is the table of the next level. If the hashes of all keys are equal, the
+     * bitmap is 0 and the keys are compared one by one.
+     */
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] array;
+
+        private Node(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private Object find(int hash, int shift, Object key) {
+            if (bitmap == 0) {
+                return findCollision(key);
+            }
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int index = index(bit);
+            Object entryKey = array[index];
+            if (entryKey == null) {
+                return ((Node) array[index + 1]).find(hash, shift + BITS, key);
+            }
+            return key.equals(entryKey) ? array[index + 1] : null;
+        }
+
+        private Node with(int hash, int shift, Object key, Object value, boolean[] added) {
+            if (bitmap == 0) {
+                return withCollision(hash, shift, key, value, added);
+            }
+            int bit = bit(hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] changed = new Object[array.length + 2];
+                System.arraycopy(array, 0, changed, 0, index);
+                changed[index] = key;
+                changed[index + 1] = value;
+                System.arraycopy(array, index, changed, index + 2, array.length - index);
+                added[0] = true;
+                return new Node(bitmap | bit, changed);
+            }
+            Object entryKey = array[index];
+            Object entryValue = array[index + 1];
+            if (entryKey == null) {
+                Node child = ((Node) entryValue).with(hash, shift + BITS, key, value, added);
+                return child == entryValue ? this : replace(index, null, child);
+            }
+            if (key.equals(entryKey)) {
+                return value == entryValue ? this : replace(index, entryKey, value);
+            }
+            added[0] = true;
+            return replace(index, null, pair(hash(entryKey), entryKey, entryValue, hash, key, value, shift + BITS));
+        }
+
+        private Node without(int hash, int shift, Object key) {
+            if (bitmap == 0) {
+                return withoutCollision(key);
+            }
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object entryKey = array[index];
+            if (entryKey == null) {
+                Node child = (Node) array[index + 1];
+                Node changedChild = child.without(hash, shift + BITS, key);
+                if (changedChild == child) {
+                    return this;
+                }
+                if (changedChild == null) {
+                    return remove(bit, index);
+                }
+                if (changedChild.array.length == 2 && changedChild.array[0] != null) {
+                    // a single entry is moved up, so removed keys do not leave empty levels behind
+                    return replace(index, changedChild.array[0], changedChild.array[1]);
+                }
+                return replace(index, null, changedChild);
+            }
+            return key.equals(entryKey) ? remove(bit, index) : this;
+        }
+
+        private Object findCollision(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return array[i + 1];
+                }
+            }
+            return null;
+        }
+
+        private Node withCollision(int hash, int shift, Object key, Object value, boolean[] added) {
+            int collisionHash = hash(array[0]);
+            if (hash != collisionHash) {
+                // the colliding keys are moved one level down
+                return new Node(bit(collisionHash, shift), new Object[]{null, this}).with(hash, shift, key, value, added);
+            }
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return value == array[i + 1] ? this : replace(i, key, value);
+                }
+            }
+            Object[] changed = Arrays.copyOf(array, array.length + 2);
+            changed[array.length] = key;
+            changed[array.length + 1] = value;
+            added[0] = true;
+            return new Node(0, changed);
+        }
+
+        private Node withoutCollision(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    if (array.length == 2) {
+                        return null;
+                    }
+                    Object[] changed = new Object[array.length - 2];
+                    System.arraycopy(array, 0, changed, 0, i);
+                    System.arraycopy(array, i + 2, changed, i, array.length - i - 2);
+                    return new Node(0, changed);
+                }
+            }
+            return this;
+        }
+
+        private int index(int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private Node replace(int index, Object key, Object value) {
+            Object[] changed = array.clone();
+            changed[index] = key;
+            changed[index + 1] = value;
+            return new Node(bitmap, changed);
+        }
+
+        private Node remove(int bit, int index) {
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] changed = new Object[array.length - 2];
+            System.arraycopy(array, 0, changed, 0, index);
+            System.arraycopy(array, index + 2, changed, index, array.length - index - 2);
+            return new Node(bitmap ^ bit, changed);
+        }
+
+        private static Node pair(int hash1, Object key1, Object value1, int hash2, Object key2, Object value2, int shift) {
+            if (hash1 == hash2) {
+                return new Node(0, new Object[]{key1, value1, key2, value2});
+            }
+            int bit1 = bit(hash1, shift);
+            int bit2 = bit(hash2, shift);
+            if (bit1 == bit2) {
+                return new Node(bit1, new Object[]{null, pair(hash1, key1, value1, hash2, key2, value2, shift + BITS)});
+            }
+            if (((hash1 >>> shift) & 31) < ((hash2 >>> shift) & 31)) {
+                return new Node(bit1 | bit2, new Object[]{key1, value1, key2, value2});
+            }
+            return new Node(bit1 | bit2, new Object[]{key2, value2, key1, value1});
+        }
+    }
+
+    /**
+     * Walks through the tables depth first, without copying the entries
+     */
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        private final Object[][] arrays = new Object[MAX_DEPTH][];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth = -1;
+        private Entry<K, V> next;
+
+        private EntryIterator() {
+            if (root != null) {
+                push(root.array);
+                advance();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = next;
+            advance();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("The map is immutable.");
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Object[] array = arrays[depth];
+                int position = positions[depth];
+                if (position >= array.length) {
+                    arrays[depth--] = null;
+                } else {
+                    positions[depth] = position + 2;
+                    if (array[position] == null) {
+                        push(((Node) array[position + 1]).array);
+                    } else {
+                        next = new SimpleImmutableEntry<K, V>((K) array[position], (V) array[position + 1]);
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void push(Object[] array) {
+            arrays[++depth] = array;
+            positions[depth] = 0;
+        }
+    }
+}
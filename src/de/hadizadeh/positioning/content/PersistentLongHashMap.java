@@ -0,0 +1,231 @@
+package de.hadizadeh.positioning.content;
+
+/**
+ * Immutable hash map with primitive long keys, which shares all unchanged parts with the map it was created from. The
+ * entries are stored in a tree of small tables, indexed by five bits of the mixed key per level. The keys are mixed by
+ * a multiplication with an odd number, so different keys never get the same hash and the tree needs no collision
+ * handling. Adding or removing a key copies only the tables on the path to the key. The map can be read by any thread
+ * without locking. Null values are not allowed.
+ *
+ * @param <V> value
+ */
+public final class PersistentLongHashMap<V> {
+    private static final int BITS = 5;
+    @SuppressWarnings("rawtypes")
+    private static final PersistentLongHashMap EMPTY = new PersistentLongHashMap(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentLongHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map
+     *
+     * @param <V> value
+     * @return empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentLongHashMap<V> empty() {
+        return (PersistentLongHashMap<V>) EMPTY;
+    }
+
+    /**
+     * Returns the value of a key
+     *
+     * @param key key
+     * @return value or null, if there is no value for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long hash = hash(key);
+        Node node = root;
+        for (int shift = 0; node != null; shift += BITS) {
+            int bit = bit(hash, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            int index = node.index(bit);
+            Object value = node.values[index];
+            if (!(value instanceof Node)) {
+                return node.keys[index] == key ? (V) value : null;
+            }
+            node = (Node) value;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if there is a value for a key
+     *
+     * @param key key
+     * @return true, if there is a value
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns the number of entries
+     *
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a map which contains the entries of this map and a value for a key
+     *
+     * @param key   key
+     * @param value value
+     * @return changed map or this map, if it already contains the value for the key
+     */
+    public PersistentLongHashMap<V> with(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not allowed.");
+        }
+        long hash = hash(key);
+        if (root == null) {
+            return new PersistentLongHashMap<V>(new Node(bit(hash, 0), new long[]{key}, new Object[]{value}), 1);
+        }
+        boolean[] added = new boolean[1];
+        Node changedRoot = root.with(hash, 0, key, value, added);
+        return changedRoot == root ? this : new PersistentLongHashMap<V>(changedRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map which contains the entries of this map without a key
+     *
+     * @param key key
+     * @return changed map or this map, if it does not contain the key
+     */
+    public PersistentLongHashMap<V> without(long key) {
+        if (root == null) {
+            return this;
+        }
+        Node changedRoot = root.without(hash(key), 0, key);
+        if (changedRoot == root) {
+            return this;
+        }
+        return changedRoot != null ? new PersistentLongHashMap<V>(changedRoot, size - 1) : PersistentLongHashMap.<V>empty();
+    }
+
+    private static long hash(long key) {
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    private static int bit(long hash, int shift) {
+        return 1 << ((int) (hash >>> shift) & 31);
+    }
+
+    /**
+     * Table of a tree level. The arrays hold a key and a value for every set bit of the bitmap in the order of the
+     * bits. If the value is the table of the next level, the key is not used.
+     */
+    private static final class Node {
+        private final int bitmap;
+        private final long[] keys;
+        private final Object[] values;
+
+        private Node(int bitmap, long[] keys, Object[] values) {
+            this.bitmap = bitmap;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        private Node with(long hash, int shift, long key, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                long[] changedKeys = new long[keys.length + 1];
+                Object[] changedValues = new Object[values.length + 1];
+                System.arraycopy(keys, 0, changedKeys, 0, index);
+                System.arraycopy(values, 0, changedValues, 0, index);
+                changedKeys[index] = key;
+                changedValues[index] = value;
+                System.arraycopy(keys, index, changedKeys, index + 1, keys.length - index);
+                System.arraycopy(values, index, changedValues, index + 1, values.length - index);
+                added[0] = true;
+                return new Node(bitmap | bit, changedKeys, changedValues);
+            }
+            Object entryValue = values[index];
+            if (entryValue instanceof Node) {
+                Node child = ((Node) entryValue).with(hash, shift + BITS, key, value, added);
+                return child == entryValue ? this : replace(index, 0, child);
+            }
+            long entryKey = keys[index];
+            if (entryKey == key) {
+                return value == entryValue ? this : replace(index, key, value);
+            }
+            added[0] = true;
+            return replace(index, 0, pair(hash(entryKey), entryKey, entryValue, hash, key, value, shift + BITS));
+        }
+
+        private Node without(long hash, int shift, long key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object entryValue = values[index];
+            if (entryValue instanceof Node) {
+                Node child = (Node) entryValue;
+                Node changedChild = child.without(hash, shift + BITS, key);
+                if (changedChild == child) {
+                    return this;
+                }
+                if (changedChild == null) {
+                    return remove(bit, index);
+                }
+                if (changedChild.values.length == 1 && !(changedChild.values[0] instanceof Node)) {
+                    // a single entry is moved up, so removed keys do not leave empty levels behind
+                    return replace(index, changedChild.keys[0], changedChild.values[0]);
+                }
+                return replace(index, 0, changedChild);
+            }
+            return keys[index] == key ? remove(bit, index) : this;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private Node replace(int index, long key, Object value) {
+            long[] changedKeys = keys.clone();
+            Object[] changedValues = values.clone();
+            changedKeys[index] = key;
+            changedValues[index] = value;
+            return new Node(bitmap, changedKeys, changedValues);
+        }
+
+        private Node remove(int bit, int index) {
+            if (bitmap == bit) {
+                return null;
+            }
+            long[] changedKeys = new long[keys.length - 1];
+            Object[] changedValues = new Object[values.length - 1];
+            System.arraycopy(keys, 0, changedKeys, 0, index);
+            System.arraycopy(values, 0, changedValues, 0, index);
+            System.arraycopy(keys, index + 1, changedKeys, index, keys.length - index - 1);
+            System.arraycopy(values, index + 1, changedValues, index, values.length - index - 1);
+            return new Node(bitmap ^ bit, changedKeys, changedValues);
+        }
+
+        private static Node pair(long hash1, long key1, Object value1, long hash2, long key2, Object value2, int shift) {
+            // different keys have different hashes, so the bits differ before the hash runs out
+            int bit1 = bit(hash1, shift);
+            int bit2 = bit(hash2, shift);
+            if (bit1 == bit2) {
+                return new Node(bit1, new long[1], new Object[]{pair(hash1, key1, value1, hash2, key2, value2, shift + BITS)});
+            }
+            if (((hash1 >>> shift) & 31) < ((hash2 >>> shift) & 31)) {
+                return new Node(bit1 | bit2, new long[]{key1, key2}, new Object[]{value1, value2});
+            }
+            return new Node(bit1 | bit2, new long[]{key2, key1}, new Object[]{value2, value1});
+        }
+    }
+}
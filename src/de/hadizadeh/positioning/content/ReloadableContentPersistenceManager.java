@@ -0,0 +1,18 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+
+/**
+ * Persistence manager which keeps loaded contents in memory and can load them again, e.g. after the persistence file
+ * was edited by others.
+ */
+public interface ReloadableContentPersistenceManager extends ContentPersistenceManager {
+
+    /**
+     * Loads all contents again and replaces the in-memory data. If the contents could not be loaded, the previous
+     * in-memory data is kept.
+     *
+     * @throws ContentPersistenceException if the contents could not be loaded
+     */
+    void reload() throws ContentPersistenceException;
+}
@@ -0,0 +1,101 @@
+package de.hadizadeh.positioning.content;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Future which is completed by another thread, e.g. a background writer. Only the first completion is taken, later
+ * ones are ignored.
+ *
+ * @param <V> result
+ */
+class SettableFuture<V> implements Future<V> {
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private V value;
+    private Throwable error;
+    private boolean cancelled;
+
+    /**
+     * Completes the future with a result
+     *
+     * @param value result
+     * @return true, if the future was not completed before
+     */
+    boolean set(V value) {
+        if (!completed.compareAndSet(false, true)) {
+            return false;
+        }
+        this.value = value;
+        done();
+        done.countDown();
+        return true;
+    }
+
+    /**
+     * Completes the future with an error
+     *
+     * @param error error, which is thrown as cause of an {@link ExecutionException}
+     * @return true, if the future was not completed before
+     */
+    boolean setException(Throwable error) {
+        if (!completed.compareAndSet(false, true)) {
+            return false;
+        }
+        this.error = error;
+        done();
+        done.countDown();
+        return true;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!completed.compareAndSet(false, true)) {
+            return false;
+        }
+        cancelled = true;
+        done();
+        done.countDown();
+        return true;
+    }
+
+    /**
+     * Called once when the future is completed, before waiting threads are released, e.g. to release resources
+     */
+    protected void done() {
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return isDone() && cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+        done.await();
+        return getResult();
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!done.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return getResult();
+    }
+
+    private V getResult() throws ExecutionException {
+        if (cancelled) {
+            throw new CancellationException();
+        }
+        if (error != null) {
+            throw new ExecutionException(error);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,529 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.exceptions.ContentAlreadyExistsException;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import de.hadizadeh.positioning.content.exceptions.ContentSameDataException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Implementation for the content persistence manager which splits the contents into several xml files. A catalog
+ * file holds every content without positions, the connected positions are stored in shard files, which are chosen by
+ * a shard key of the position, e.g. its floor. A change only rewrites the files of the affected shards. All files are
+ * loaded in parallel and kept in memory, reads are answered from memory.
+ * <p/>
+ * Positions in the catalog file, e.g. of a former single xml file, are moved into the shard files when it is loaded.
+ * All files which are changed together are first written to temporary files, which replace the files only after all
+ * of them were written, so a failed write does not leave a part of a batch in the files.
+ */
+public class ShardedContentPersistenceManager implements ReloadableContentPersistenceManager, Closeable {
+    private final File catalogFile;
+    private final ContentShardKey shardKey;
+    private final long saveDelay;
+    private final int parallelism;
+    private ContentIndex index;
+    private Map<String, IndexedXMLContentPersistenceManager> shards;
+    private IndexedXMLContentPersistenceManager catalog;
+    private final Set<IndexedXMLContentPersistenceManager> unsavedShards;
+    private Timer saveTimer;
+    private boolean saveScheduled;
+    private ContentPersistenceException saveError;
+
+    /**
+     * Creates a sharded persistence manager which writes every change immediately and loads the files with one
+     * thread per processor
+     *
+     * @param catalogFile xml file of the contents, the shard files are stored next to it
+     * @param shardKey    shard key of the positions
+     * @throws ContentPersistenceException if the files could not be loaded
+     */
+    public ShardedContentPersistenceManager(File catalogFile, ContentShardKey shardKey) throws ContentPersistenceException {
+        this(catalogFile, shardKey, 0, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a sharded persistence manager
+     *
+     * @param catalogFile xml file of the contents, the shard files are stored next to it
+     * @param shardKey    shard key of the positions
+     * @param saveDelay   milliseconds for collecting changes before all changed files are written together, 0 for
+     *                    writing every change immediately
+     * @param parallelism number of threads for loading the files
+     * @throws ContentPersistenceException if the files could not be loaded
+     */
+    public ShardedContentPersistenceManager(File catalogFile, ContentShardKey shardKey, long saveDelay, int parallelism) throws ContentPersistenceException {
+        this.catalogFile = catalogFile.getAbsoluteFile();
+        this.shardKey = shardKey;
+        this.saveDelay = saveDelay;
+        this.parallelism = parallelism;
+        this.index = new ContentIndex();
+        this.shards = new TreeMap<String, IndexedXMLContentPersistenceManager>();
+        this.unsavedShards = new LinkedHashSet<IndexedXMLContentPersistenceManager>();
+        load();
+    }
+
+    /**
+     * Creates a shard key which uses the first characters of the position names
+     *
+     * @param length number of characters
+     * @return shard key
+     */
+    public static ContentShardKey byPrefix(final int length) {
+        return new ContentShardKey() {
+            @Override
+            public String getShardKey(String positionName) {
+                return positionName.length() > length ? positionName.substring(0, length) : positionName;
+            }
+        };
+    }
+
+    /**
+     * Creates a shard key which uses the floor of mapped position names, the part after the last underscore
+     *
+     * @return shard key
+     */
+    public static ContentShardKey byFloor() {
+        return new ContentShardKey() {
+            @Override
+            public String getShardKey(String positionName) {
+                int separator = positionName.lastIndexOf('_');
+                return separator != -1 && separator < positionName.length() - 1 ? positionName.substring(separator + 1) : "other";
+            }
+        };
+    }
+
+    /**
+     * Loads all files again and replaces the in-memory data. The files are loaded into a new index and new shards,
+     * which only replace the previous ones if all files could be loaded.
+     *
+     * @throws ContentPersistenceException if the files could not be loaded
+     */
+    @Override
+    public synchronized void reload() throws ContentPersistenceException {
+        flush();
+        ContentIndex previousIndex = index;
+        Map<String, IndexedXMLContentPersistenceManager> previousShards = shards;
+        IndexedXMLContentPersistenceManager previousCatalog = catalog;
+        index = new ContentIndex();
+        shards = new TreeMap<String, IndexedXMLContentPersistenceManager>();
+        boolean loaded = false;
+        try {
+            load();
+            loaded = true;
+        } finally {
+            if (!loaded) {
+                index = previousIndex;
+                shards = previousShards;
+                catalog = previousCatalog;
+            }
+        }
+    }
+
+    /**
+     * Returns the files of all shards
+     *
+     * @return shard files
+     */
+    public synchronized List<File> getShardFiles() {
+        List<File> files = new ArrayList<File>();
+        for (String shardName : shards.keySet()) {
+            files.add(getShardFile(shardName));
+        }
+        return files;
+    }
+
+    @Override
+    public synchronized ContentList<Content> getAllContents() throws ContentPersistenceException {
+        return index.getAllContents();
+    }
+
+    @Override
+    public synchronized Map<String, ContentList<Content>> getConnectedContents() throws ContentPersistenceException {
+        return index.getConnectedContents();
+    }
+
+    @Override
+    public synchronized boolean addContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        return execute(ContentOperation.addContent(contentType, data));
+    }
+
+    @Override
+    public synchronized boolean removeContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        return execute(ContentOperation.removeContent(contentType, data));
+    }
+
+    @Override
+    public synchronized boolean addPosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        return execute(ContentOperation.addPosition(contentType, data, positionName));
+    }
+
+    @Override
+    public synchronized boolean addPositions(List<Content.ContentType> contentTypes, List<String> multipleData, List<String> positionNames) throws ContentPersistenceException {
+        List<ContentOperation> operations = new ArrayList<ContentOperation>(contentTypes.size());
+        for (int i = 0; i < contentTypes.size(); i++) {
+            operations.add(ContentOperation.addPosition(contentTypes.get(i), multipleData.get(i), positionNames.get(i)));
+        }
+        try {
+            return !executeBatch(operations).contains(Boolean.FALSE);
+        } catch (ContentSameDataException e) {
+            throw new IllegalStateException(e);
+        } catch (ContentAlreadyExistsException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public synchronized boolean removePosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        return execute(ContentOperation.removePosition(contentType, data, positionName));
+    }
+
+    @Override
+    public synchronized boolean removeAllPositions(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        return execute(ContentOperation.removeAllPositions(contentType, data));
+    }
+
+    @Override
+    public synchronized boolean updateContent(Content.ContentType oldContentType, String oldData, Content.ContentType newContentType, String newData) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        return executeBatch(Collections.singletonList(ContentOperation.updateContent(oldContentType, oldData, newContentType, newData))).get(0);
+    }
+
+    @Override
+    public synchronized void removeAllContent() throws ContentPersistenceException {
+        execute(ContentOperation.removeAllContent());
+    }
+
+    @Override
+    public synchronized void removeAllPositions() throws ContentPersistenceException {
+        execute(ContentOperation.removeAllPositions());
+    }
+
+    @Override
+    public synchronized List<Boolean> executeBatch(List<ContentOperation> operations) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        if (saveError != null) {
+            // the collected changes are kept and written by the next save
+            ContentPersistenceException error = saveError;
+            saveError = null;
+            throw new ContentPersistenceException("Collected changes could not be saved: " + error.getMessage());
+        }
+        index.validate(operations);
+        List<Boolean> results = new ArrayList<Boolean>(operations.size());
+        Map<String, List<ContentOperation>> shardOperations = new LinkedHashMap<String, List<ContentOperation>>();
+        for (ContentOperation operation : operations) {
+            ContentKey key = operation.getContentKey();
+            Set<String> positions = key != null && index.contains(key) ? new HashSet<String>(index.getPositions(key)) : null;
+            boolean result = index.apply(operation);
+            results.add(result);
+            if (result) {
+                split(operation, positions, shardOperations);
+            }
+        }
+        persist(shardOperations);
+        return results;
+    }
+
+    /**
+     * Writes collected changes of all files together. The changed files are written to temporary files first, which
+     * replace the files after all of them were written.
+     *
+     * @throws ContentPersistenceException if a file could not be saved
+     */
+    public synchronized void flush() throws ContentPersistenceException {
+        if (unsavedShards.isEmpty()) {
+            return;
+        }
+        List<File> tempFiles = new ArrayList<File>(unsavedShards.size());
+        try {
+            for (IndexedXMLContentPersistenceManager shard : unsavedShards) {
+                tempFiles.add(shard.writeTempFile(shard.toDocument()));
+            }
+            Iterator<File> tempFileIterator = tempFiles.iterator();
+            for (IndexedXMLContentPersistenceManager shard : unsavedShards) {
+                shard.replaceFile(tempFileIterator.next());
+            }
+        } catch (IOException e) {
+            for (File tempFile : tempFiles) {
+                tempFile.delete();
+            }
+            throw new ContentPersistenceException(e.getMessage());
+        }
+        unsavedShards.clear();
+        saveError = null;
+    }
+
+    /**
+     * Writes collected changes of all files. The persistence manager must not be used afterwards.
+     *
+     * @throws IOException if a file could not be saved
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (saveTimer != null) {
+            saveTimer.cancel();
+        }
+        try {
+            flush();
+        } catch (ContentPersistenceException e) {
+            throw new IOException(e.getMessage());
+        }
+        IOException error = null;
+        List<IndexedXMLContentPersistenceManager> managers = new ArrayList<IndexedXMLContentPersistenceManager>(shards.values());
+        managers.add(catalog);
+        for (IndexedXMLContentPersistenceManager manager : managers) {
+            try {
+                manager.close();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private boolean execute(ContentOperation operation) throws ContentPersistenceException {
+        try {
+            return executeBatch(Collections.singletonList(operation)).get(0);
+        } catch (ContentSameDataException e) {
+            throw new IllegalStateException(e);
+        } catch (ContentAlreadyExistsException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Translates a successful operation into the operations of the catalog and the affected shards. The catalog is
+     * stored with the empty shard name.
+     */
+    private void split(ContentOperation operation, Set<String> oldPositions, Map<String, List<ContentOperation>> shardOperations) {
+        ContentKey key = operation.getContentKey();
+        switch (operation.getOperationType()) {
+            case ADD_CONTENT:
+                add(shardOperations, "", operation);
+                break;
+            case REMOVE_CONTENT:
+                add(shardOperations, "", operation);
+                for (String shardName : getShardNames(oldPositions)) {
+                    add(shardOperations, shardName, operation);
+                }
+                break;
+            case ADD_POSITION:
+                String shardName = getShardName(operation.getPositionName());
+                add(shardOperations, shardName, ContentOperation.addContent(key.getType(), key.getData()));
+                add(shardOperations, shardName, operation);
+                break;
+            case REMOVE_POSITION:
+                String removedShardName = getShardName(operation.getPositionName());
+                add(shardOperations, removedShardName, operation);
+                if (!getShardNames(index.getPositions(key)).contains(removedShardName)) {
+                    add(shardOperations, removedShardName, ContentOperation.removeContent(key.getType(), key.getData()));
+                }
+                break;
+            case REMOVE_POSITIONS:
+                for (String name : getShardNames(oldPositions)) {
+                    add(shardOperations, name, ContentOperation.removeContent(key.getType(), key.getData()));
+                }
+                break;
+            case UPDATE_CONTENT:
+                add(shardOperations, "", operation);
+                for (String name : getShardNames(oldPositions)) {
+                    add(shardOperations, name, operation);
+                }
+                break;
+            case REMOVE_ALL_CONTENT:
+                add(shardOperations, "", operation);
+                for (String name : shards.keySet()) {
+                    add(shardOperations, name, ContentOperation.removeAllContent());
+                }
+                break;
+            case REMOVE_ALL_POSITIONS:
+                for (String name : shards.keySet()) {
+                    add(shardOperations, name, ContentOperation.removeAllContent());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void add(Map<String, List<ContentOperation>> shardOperations, String shardName, ContentOperation operation) {
+        List<ContentOperation> operations = shardOperations.get(shardName);
+        if (operations == null) {
+            operations = new ArrayList<ContentOperation>();
+            shardOperations.put(shardName, operations);
+        }
+        operations.add(operation);
+    }
+
+    private void persist(Map<String, List<ContentOperation>> shardOperations) throws ContentPersistenceException {
+        try {
+            write(shardOperations);
+        } catch (ContentPersistenceException e) {
+            // the in-memory data is replaced by the current state of the files
+            unsavedShards.clear();
+            try {
+                reload();
+            } catch (ContentPersistenceException reloadError) {
+                // the next reload replaces the in-memory data
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Applies the operations to the in-memory data of the files and writes the changed files together, immediately or
+     * after the save delay
+     */
+    private void write(Map<String, List<ContentOperation>> shardOperations) throws ContentPersistenceException {
+        try {
+            for (Map.Entry<String, List<ContentOperation>> operations : shardOperations.entrySet()) {
+                IndexedXMLContentPersistenceManager shard = getShard(operations.getKey());
+                for (ContentOperation operation : operations.getValue()) {
+                    if (shard.apply(operation)) {
+                        unsavedShards.add(shard);
+                    }
+                }
+            }
+        } catch (ContentSameDataException e) {
+            throw new ContentPersistenceException(e.getMessage());
+        } catch (ContentAlreadyExistsException e) {
+            throw new ContentPersistenceException(e.getMessage());
+        }
+        if (saveDelay <= 0) {
+            flush();
+        } else if (!saveScheduled && !unsavedShards.isEmpty()) {
+            if (saveTimer == null) {
+                saveTimer = new Timer("content-save", true);
+            }
+            saveScheduled = true;
+            saveTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    synchronized (ShardedContentPersistenceManager.this) {
+                        saveScheduled = false;
+                        try {
+                            flush();
+                        } catch (ContentPersistenceException e) {
+                            // reported by the next change, the changes are written by the next save
+                            saveError = e;
+                        }
+                    }
+                }
+            }, saveDelay);
+        }
+    }
+
+    private Set<String> getShardNames(Set<String> positionNames) {
+        Set<String> shardNames = new HashSet<String>();
+        if (positionNames != null) {
+            for (String positionName : positionNames) {
+                shardNames.add(getShardName(positionName));
+            }
+        }
+        return shardNames;
+    }
+
+    private IndexedXMLContentPersistenceManager getShard(String shardName) throws ContentPersistenceException {
+        if (shardName.isEmpty()) {
+            return catalog;
+        }
+        IndexedXMLContentPersistenceManager shard = shards.get(shardName);
+        if (shard == null) {
+            shard = new IndexedXMLContentPersistenceManager(getShardFile(shardName));
+            shards.put(shardName, shard);
+        }
+        return shard;
+    }
+
+    /**
+     * Returns the file name part of the shard of a position, characters which are not letters, digits or
+     * underscores are replaced by their hexadecimal code
+     */
+    private String getShardName(String positionName) {
+        String key = shardKey.getShardKey(positionName);
+        StringBuilder shardName = new StringBuilder(key.length());
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 128 && (Character.isLetterOrDigit(c) || c == '_')) {
+                shardName.append(c);
+            } else {
+                shardName.append('-').append(Integer.toHexString(c)).append('-');
+            }
+        }
+        return shardName.length() > 0 ? shardName.toString() : "-";
+    }
+
+    private File getShardFile(String shardName) {
+        return new File(catalogFile.getParentFile(), getBaseName() + ".shard-" + shardName + ".xml");
+    }
+
+    private String getBaseName() {
+        String name = catalogFile.getName();
+        return name.endsWith(".xml") ? name.substring(0, name.length() - 4) : name;
+    }
+
+    private void load() throws ContentPersistenceException {
+        final String prefix = getBaseName() + ".shard-";
+        File[] shardFiles = catalogFile.getParentFile().listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File directory, String name) {
+                return name.startsWith(prefix) && name.endsWith(".xml");
+            }
+        });
+        List<Callable<IndexedXMLContentPersistenceManager>> loads = new ArrayList<Callable<IndexedXMLContentPersistenceManager>>();
+        loads.add(loadTask(catalogFile));
+        for (File shardFile : shardFiles != null ? shardFiles : new File[0]) {
+            loads.add(loadTask(shardFile));
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            List<Future<IndexedXMLContentPersistenceManager>> loaded = pool.invokeAll(loads);
+            catalog = loaded.get(0).get();
+            index.addAll(catalog.getAllContents());
+            for (int i = 1; i < loaded.size(); i++) {
+                String name = shardFiles[i - 1].getName();
+                IndexedXMLContentPersistenceManager shard = loaded.get(i).get();
+                shards.put(name.substring(prefix.length(), name.length() - 4), shard);
+                index.addAll(shard.getAllContents());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ContentPersistenceException("Loading the shards was interrupted.");
+        } catch (ExecutionException e) {
+            throw new ContentPersistenceException(e.getCause().getMessage());
+        } finally {
+            pool.shutdown();
+        }
+        moveCatalogPositions();
+    }
+
+    private Callable<IndexedXMLContentPersistenceManager> loadTask(final File file) {
+        return new Callable<IndexedXMLContentPersistenceManager>() {
+            @Override
+            public IndexedXMLContentPersistenceManager call() throws Exception {
+                return new IndexedXMLContentPersistenceManager(file);
+            }
+        };
+    }
+
+    private void moveCatalogPositions() throws ContentPersistenceException {
+        Map<String, List<ContentOperation>> shardOperations = new LinkedHashMap<String, List<ContentOperation>>();
+        for (Map.Entry<ContentKey, Set<String>> item : catalog.index.getItems().entrySet()) {
+            for (String positionName : item.getValue()) {
+                ContentKey key = item.getKey();
+                split(ContentOperation.addPosition(key.getType(), key.getData(), positionName), null, shardOperations);
+            }
+        }
+        if (!shardOperations.isEmpty()) {
+            add(shardOperations, "", ContentOperation.removeAllPositions());
+            write(shardOperations);
+        }
+    }
+}
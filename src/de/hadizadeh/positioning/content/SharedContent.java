@@ -0,0 +1,35 @@
+package de.hadizadeh.positioning.content;
+
+import java.util.List;
+
+/**
+ * Content which is shared by several positions. It cannot be changed, because a change would affect every position
+ * and every list which holds it.
+ */
+class SharedContent extends Content {
+
+    /**
+     * Creates a shared content
+     *
+     * @param type content type
+     * @param data content data
+     */
+    SharedContent(ContentType type, String data) {
+        super(type, data);
+    }
+
+    @Override
+    public void setType(ContentType type) {
+        throw new UnsupportedOperationException("Shared contents cannot be changed.");
+    }
+
+    @Override
+    public void setData(String data) {
+        throw new UnsupportedOperationException("Shared contents cannot be changed.");
+    }
+
+    @Override
+    public void setPositions(List<String> positions) {
+        throw new UnsupportedOperationException("Shared contents cannot be changed.");
+    }
+}
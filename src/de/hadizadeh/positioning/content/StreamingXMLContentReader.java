@@ -0,0 +1,137 @@
+package de.hadizadeh.positioning.content;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the items of a content xml file one by one without building a document of the whole file
+ */
+public class StreamingXMLContentReader {
+
+    /**
+     * Receives every item while the file is read
+     */
+    public interface ItemHandler {
+        /**
+         * Handles a single item of the file
+         *
+         * @param contentType content type
+         * @param data        content data
+         * @param positions   connected positions, a new list for every item
+         */
+        void onItem(Content.ContentType contentType, String data, List<String> positions);
+    }
+
+    private final XMLInputFactory inputFactory;
+
+    /**
+     * Creates a reader
+     */
+    public StreamingXMLContentReader() {
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    /**
+     * Reads all items of a file
+     *
+     * @param file    xml file
+     * @param handler handler which receives the items
+     * @throws XMLStreamException if the file is not in a correct format
+     * @throws IOException        if the file could not be opened
+     */
+    public void read(File file, ItemHandler handler) throws XMLStreamException, IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            read(in, handler);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads an attribute of the root element of a file without reading the items
+     *
+     * @param file xml file
+     * @param name name of the attribute
+     * @return value of the attribute or null, if the root element does not have it
+     * @throws XMLStreamException if the file is not in a correct format
+     * @throws IOException        if the file could not be opened
+     */
+    public String readRootAttribute(File file, String name) throws XMLStreamException, IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                        return reader.getAttributeValue(null, name);
+                    }
+                }
+                return null;
+            } finally {
+                reader.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads all items of a stream
+     *
+     * @param in      xml input stream
+     * @param handler handler which receives the items
+     * @throws XMLStreamException if the stream is not in a correct format
+     */
+    public void read(InputStream in, ItemHandler handler) throws XMLStreamException {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+        try {
+            Content.ContentType contentType = null;
+            String data = null;
+            List<String> positions = null;
+            int depth = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (depth == 2) {
+                        contentType = Content.ContentType.valueOf(reader.getAttributeValue(null, "type"));
+                        data = null;
+                        positions = new ArrayList<String>();
+                    } else if (depth == 3) {
+                        String name = reader.getLocalName();
+                        String text = reader.getElementText();
+                        depth--;
+                        if ("data".equals(name)) {
+                            data = text;
+                        } else if ("position".equals(name)) {
+                            positions.add(text);
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == 2) {
+                        if (data == null) {
+                            throw new XMLStreamException("Item without data", reader.getLocation());
+                        }
+                        handler.onItem(contentType, data, positions);
+                    }
+                    depth--;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package de.hadizadeh.positioning.content;
+
+import java.util.*;
+
+/**
+ * Content list which keeps its contents additionally bucketed by content type. Reading the contents of a type does
+ * not search the list and does not copy anything, the returned lists are unmodifiable views of the buckets, which
+ * follow all changes of the list. The buckets of all types are created with the list, so reading never changes the
+ * list and an unchanged list can be read by several threads.
+ */
+public class TypedContentList extends ContentList<Content> {
+    private transient Map<Content.ContentType, List<Content>> buckets;
+    private transient int bucketsModCount;
+
+    /**
+     * Creates an empty list
+     */
+    public TypedContentList() {
+        super();
+        rebuildBuckets();
+    }
+
+    /**
+     * Creates a list of the given contents
+     *
+     * @param contents contents
+     */
+    public TypedContentList(Collection<? extends Content> contents) {
+        super();
+        addAll(contents);
+    }
+
+    @Override
+    public Content getContent(Content.ContentType contentType) {
+        List<Content> bucket = getBuckets().get(contentType);
+        return !bucket.isEmpty() ? bucket.get(0) : null;
+    }
+
+    /**
+     * Returns all contents of a given type
+     *
+     * @param contentType content type for filtering
+     * @return unmodifiable view of the contents which match the filter
+     */
+    @Override
+    public List<Content> getContents(Content.ContentType contentType) {
+        return Collections.unmodifiableList(getBuckets().get(contentType));
+    }
+
+    /**
+     * Returns the number of contents of a given type
+     *
+     * @param contentType content type
+     * @return number of contents
+     */
+    public int count(Content.ContentType contentType) {
+        return getBuckets().get(contentType).size();
+    }
+
+    @Override
+    public boolean add(Content content) {
+        super.add(content);
+        if (bucketsModCount == modCount - 1 && buckets != null) {
+            bucketsModCount = modCount;
+            if (content != null && content.getType() != null) {
+                buckets.get(content.getType()).add(content);
+            }
+        } else {
+            rebuildBuckets();
+        }
+        return true;
+    }
+
+    @Override
+    public void add(int index, Content content) {
+        super.add(index, content);
+        rebuildBuckets();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Content> contents) {
+        boolean changed = super.addAll(contents);
+        rebuildBuckets();
+        return changed;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Content> contents) {
+        boolean changed = super.addAll(index, contents);
+        rebuildBuckets();
+        return changed;
+    }
+
+    @Override
+    public Content set(int index, Content content) {
+        Content previous = super.set(index, content);
+        rebuildBuckets();
+        return previous;
+    }
+
+    @Override
+    public Content remove(int index) {
+        Content removed = super.remove(index);
+        rebuildBuckets();
+        return removed;
+    }
+
+    @Override
+    public boolean remove(Object content) {
+        boolean changed = super.remove(content);
+        rebuildBuckets();
+        return changed;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> contents) {
+        boolean changed = super.removeAll(contents);
+        rebuildBuckets();
+        return changed;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> contents) {
+        boolean changed = super.retainAll(contents);
+        rebuildBuckets();
+        return changed;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        rebuildBuckets();
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        super.removeRange(fromIndex, toIndex);
+        rebuildBuckets();
+    }
+
+    /**
+     * Returns a view of a part of the list. Changes through the view are applied to this list.
+     *
+     * @param fromIndex first index
+     * @param toIndex   index after the last element
+     * @return view of the part of the list
+     */
+    @Override
+    public List<Content> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", size: " + size());
+        }
+        return new SubList(fromIndex, toIndex);
+    }
+
+    @Override
+    public Object clone() {
+        TypedContentList clone = (TypedContentList) super.clone();
+        clone.buckets = null;
+        clone.rebuildBuckets();
+        return clone;
+    }
+
+    private Map<Content.ContentType, List<Content>> getBuckets() {
+        if (buckets == null || bucketsModCount != modCount) {
+            // only after deserializing or changes which bypass the methods of this list, e.g. sorting
+            rebuildBuckets();
+        }
+        return buckets;
+    }
+
+    private void rebuildBuckets() {
+        if (buckets == null) {
+            buckets = new EnumMap<Content.ContentType, List<Content>>(Content.ContentType.class);
+            for (Content.ContentType contentType : Content.ContentType.values()) {
+                buckets.put(contentType, new ArrayList<Content>());
+            }
+        }
+        for (List<Content> bucket : buckets.values()) {
+            bucket.clear();
+        }
+        bucketsModCount = modCount;
+        for (Content content : this) {
+            if (content != null && content.getType() != null) {
+                buckets.get(content.getType()).add(content);
+            }
+        }
+    }
+
+    /**
+     * Part of the list, which changes the list only through its methods
+     */
+    private class SubList extends AbstractList<Content> implements RandomAccess {
+        private final int offset;
+        private int size;
+
+        private SubList(int fromIndex, int toIndex) {
+            this.offset = fromIndex;
+            this.size = toIndex - fromIndex;
+        }
+
+        @Override
+        public Content get(int index) {
+            return TypedContentList.this.get(offset + checkIndex(index, size));
+        }
+
+        @Override
+        public Content set(int index, Content content) {
+            return TypedContentList.this.set(offset + checkIndex(index, size), content);
+        }
+
+        @Override
+        public void add(int index, Content content) {
+            TypedContentList.this.add(offset + checkIndex(index, size + 1), content);
+            size++;
+            modCount++;
+        }
+
+        @Override
+        public Content remove(int index) {
+            Content removed = TypedContentList.this.remove(offset + checkIndex(index, size));
+            size--;
+            modCount++;
+            return removed;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            TypedContentList.this.removeRange(offset + fromIndex, offset + toIndex);
+            size -= toIndex - fromIndex;
+            modCount++;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private int checkIndex(int index, int bound) {
+            if (index < 0 || index >= bound) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return index;
+        }
+    }
+}
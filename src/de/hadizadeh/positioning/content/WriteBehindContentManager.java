@@ -0,0 +1,384 @@
+package de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.exceptions.ContentAlreadyExistsException;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import de.hadizadeh.positioning.content.exceptions.ContentSameDataException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Content manager which changes the loaded contents immediately and persists the changes in the background. Every
+ * change returns a future, which is completed when the persistence manager has stored the change. A background
+ * writer executes the queued changes in batches. If the queue is full, new changes wait until there is space again.
+ * <p/>
+ * The synchronous methods of the content manager wait until their change is stored. {@link #close()} has to be
+ * called before the application ends, otherwise queued changes are lost.
+ */
+public class WriteBehindContentManager extends ContentManager implements Closeable {
+    private static final Write STOP = new Write();
+
+    private final ContentIndex index;
+    private final BlockingQueue<Write> queue;
+    private final Semaphore queueSpace;
+    private final int batchSize;
+    private final Thread writer;
+    private volatile Throwable writeError;
+    private volatile boolean closed;
+
+    /**
+     * Creates the content manager with a queue for 1000 changes and batches of 100 changes
+     *
+     * @param contentPersistenceManager Persistence-Manager
+     * @throws ContentPersistenceException if the contents could not be loaded
+     */
+    public WriteBehindContentManager(ContentPersistenceManager contentPersistenceManager) throws ContentPersistenceException {
+        this(contentPersistenceManager, 1000, 100);
+    }
+
+    /**
+     * Creates the content manager
+     *
+     * @param contentPersistenceManager Persistence-Manager
+     * @param queueCapacity             maximum number of queued changes, further changes wait for space
+     * @param batchSize                 maximum number of changes which are persisted together
+     * @throws ContentPersistenceException if the contents could not be loaded
+     */
+    public WriteBehindContentManager(ContentPersistenceManager contentPersistenceManager, int queueCapacity, int batchSize) throws ContentPersistenceException {
+        super(contentPersistenceManager);
+        this.index = new ContentIndex(contentPersistenceManager.getAllContents());
+        this.queue = new LinkedBlockingQueue<Write>();
+        this.queueSpace = new Semaphore(queueCapacity);
+        this.batchSize = batchSize;
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeChanges();
+            }
+        }, "content-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Executes an operation on the loaded contents and queues it for persisting
+     *
+     * @param operation operation
+     * @return future with the result of the operation, completed when the change is stored
+     * @throws ContentPersistenceException   if the content manager is closed or a previous write failed
+     * @throws ContentSameDataException      new and old data of an update are same
+     * @throws ContentAlreadyExistsException a content with the same new type and data of an update is already existent
+     */
+    public Future<Boolean> submit(ContentOperation operation) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        return submitBatch(Collections.singletonList(operation)).get(0);
+    }
+
+    /**
+     * Executes multiple operations on the loaded contents and queues them for persisting them together. Either all
+     * operations are executed or, if one of them fails, none of them. If the queue is full, it waits for space before
+     * the loaded contents are changed, without blocking readers.
+     *
+     * @param operations operations in the order of execution
+     * @return futures with the result of every operation in the same order
+     * @throws ContentPersistenceException   if the content manager is closed, a previous write failed or it was
+     *                                       interrupted while waiting for space in the queue
+     * @throws ContentSameDataException      new and old data of an update are same
+     * @throws ContentAlreadyExistsException a content with the same new type and data of an update is already existent
+     */
+    public List<Future<Boolean>> submitBatch(List<ContentOperation> operations) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        try {
+            queueSpace.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ContentPersistenceException("Interrupted while waiting for space in the write queue.");
+        }
+        boolean queued = false;
+        try {
+            synchronized (this) {
+                checkWritable();
+                index.validate(operations);
+                List<Future<Boolean>> results = new ArrayList<Future<Boolean>>(operations.size());
+                Write write = new Write();
+                for (ContentOperation operation : operations) {
+                    WriteResult result = new WriteResult();
+                    if (index.apply(operation)) {
+                        write.operations.add(operation);
+                        write.results.add(result);
+                    } else {
+                        result.complete(false);
+                    }
+                    results.add(result);
+                }
+                if (!write.operations.isEmpty()) {
+                    applyChanges(write.operations);
+                    queue.add(write);
+                    queued = true;
+                }
+                return results;
+            }
+        } finally {
+            if (!queued) {
+                queueSpace.release();
+            }
+        }
+    }
+
+    /**
+     * Waits until all queued changes are stored
+     *
+     * @throws ContentPersistenceException if a change could not be stored
+     */
+    public void flush() throws ContentPersistenceException {
+        WriteResult marker = new WriteResult();
+        Write write = new Write();
+        write.results.add(marker);
+        if (!closed) {
+            queue.add(write);
+            waitFor(marker);
+        }
+        if (writeError != null) {
+            throw new ContentPersistenceException("Changes could not be stored: " + writeError.getMessage());
+        }
+    }
+
+    /**
+     * Stores all queued changes and stops the background writer
+     *
+     * @throws IOException if a change could not be stored
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } catch (ContentPersistenceException e) {
+            throw new IOException(e.getMessage());
+        } finally {
+            stopWriter();
+        }
+    }
+
+    private void stopWriter() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(STOP);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for all queued changes and loads all contents again from the persistence manager. Resets the content
+     * manager after a failed write.
+     *
+     * @throws ContentPersistenceException if the contents could not be loaded
+     */
+    public synchronized void reload() throws ContentPersistenceException {
+        try {
+            flush();
+        } catch (ContentPersistenceException e) {
+            // the contents are loaded from the persistence manager again
+        }
+        writeError = null;
+        ContentList<Content> allContents = contentPersistenceManager.getAllContents();
+        index.clear();
+        index.addAll(allContents);
+        reloadContents();
+    }
+
+    /**
+     * Waits for all queued changes, loads all contents again from the persistence manager and applies only the
+     * differences
+     *
+     * @return number of added and removed connections between contents and positions
+     * @throws ContentPersistenceException if queued changes could not be stored or the contents could not be loaded
+     */
+    @Override
+    public synchronized int refreshContents() throws ContentPersistenceException {
+        flush();
+        int changes = super.refreshContents();
+        index.clear();
+        index.addAll(contentPersistenceManager.getAllContents());
+        return changes;
+    }
+
+    @Override
+    public synchronized ContentList<Content> getAllContents() throws ContentPersistenceException {
+        return index.getAllContents();
+    }
+
+    @Override
+    public boolean addContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        return execute(ContentOperation.addContent(contentType, data));
+    }
+
+    @Override
+    public boolean removeContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        return execute(ContentOperation.removeContent(contentType, data));
+    }
+
+    @Override
+    public boolean addPosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        return execute(ContentOperation.addPosition(contentType, data, positionName));
+    }
+
+    @Override
+    public boolean addPositions(List<Content.ContentType> contentTypes, List<String> multipleData, List<String> positionNames) throws ContentPersistenceException {
+        List<ContentOperation> operations = new ArrayList<ContentOperation>(contentTypes.size());
+        for (int i = 0; i < contentTypes.size(); i++) {
+            operations.add(ContentOperation.addPosition(contentTypes.get(i), multipleData.get(i), positionNames.get(i)));
+        }
+        boolean result = true;
+        try {
+            for (Future<Boolean> future : submitBatch(operations)) {
+                result &= waitFor(future);
+            }
+        } catch (ContentSameDataException e) {
+            throw new IllegalStateException(e);
+        } catch (ContentAlreadyExistsException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean removePosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        return execute(ContentOperation.removePosition(contentType, data, positionName));
+    }
+
+    @Override
+    public boolean removeAllPositions(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        return execute(ContentOperation.removeAllPositions(contentType, data));
+    }
+
+    @Override
+    public boolean updateContent(Content.ContentType oldContentType, String oldData, Content.ContentType newContentType, String newData) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        return waitFor(submit(ContentOperation.updateContent(oldContentType, oldData, newContentType, newData)));
+    }
+
+    @Override
+    public void removeAllContent() throws ContentPersistenceException {
+        execute(ContentOperation.removeAllContent());
+    }
+
+    @Override
+    public void removeAllPositions() throws ContentPersistenceException {
+        execute(ContentOperation.removeAllPositions());
+    }
+
+    @Override
+    public List<Boolean> executeBatch(List<ContentOperation> operations) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        List<Boolean> results = new ArrayList<Boolean>(operations.size());
+        for (Future<Boolean> future : submitBatch(operations)) {
+            results.add(waitFor(future));
+        }
+        return results;
+    }
+
+    private boolean execute(ContentOperation operation) throws ContentPersistenceException {
+        try {
+            return waitFor(submit(operation));
+        } catch (ContentSameDataException e) {
+            throw new IllegalStateException(e);
+        } catch (ContentAlreadyExistsException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void checkWritable() throws ContentPersistenceException {
+        if (closed) {
+            throw new ContentPersistenceException("Content manager is closed.");
+        }
+        if (writeError != null) {
+            throw new ContentPersistenceException("Previous changes could not be stored, reload the contents: " + writeError.getMessage());
+        }
+    }
+
+    private static boolean waitFor(Future<Boolean> future) throws ContentPersistenceException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ContentPersistenceException("Interrupted while waiting for the change to be stored.");
+        } catch (ExecutionException e) {
+            throw new ContentPersistenceException(e.getCause().getMessage());
+        }
+    }
+
+    private void writeChanges() {
+        List<Write> writes = new ArrayList<Write>();
+        boolean stopped = false;
+        while (!stopped) {
+            Write write;
+            try {
+                write = queue.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            try {
+                List<ContentOperation> operations = new ArrayList<ContentOperation>();
+                while (write != null) {
+                    if (write == STOP) {
+                        stopped = true;
+                        break;
+                    }
+                    writes.add(write);
+                    if (!write.operations.isEmpty()) {
+                        // markers for flushing are queued without taking space
+                        queueSpace.release();
+                    }
+                    operations.addAll(write.operations);
+                    write = operations.size() < batchSize ? queue.poll() : null;
+                }
+                List<Boolean> results = operations.isEmpty() ? Collections.<Boolean>emptyList() : contentPersistenceManager.executeBatch(operations);
+                int i = 0;
+                for (Write completed : writes) {
+                    for (WriteResult result : completed.results) {
+                        result.complete(completed.operations.isEmpty() || results.get(i++));
+                    }
+                }
+            } catch (Throwable e) {
+                // errors are caught as well, otherwise the writer stops and waiting threads are never completed
+                writeError = e;
+                for (Write failed : writes) {
+                    for (WriteResult result : failed.results) {
+                        if (failed.operations.isEmpty()) {
+                            result.complete(true);
+                        } else {
+                            result.fail(e);
+                        }
+                    }
+                }
+            }
+            writes.clear();
+        }
+    }
+
+    /**
+     * Queued operations with their results, without operations it is only a marker for flushing
+     */
+    private static class Write {
+        private final List<ContentOperation> operations = new ArrayList<ContentOperation>();
+        private final List<WriteResult> results = new ArrayList<WriteResult>();
+    }
+
+    /**
+     * Result of a queued operation, which is completed by the background writer
+     */
+    private static class WriteResult extends SettableFuture<Boolean> {
+        private void complete(boolean result) {
+            set(result);
+        }
+
+        private void fail(Throwable e) {
+            setException(e);
+        }
+    }
+}
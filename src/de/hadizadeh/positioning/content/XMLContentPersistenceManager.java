@@ -8,13 +8,20 @@ import org.jdom2.input.SAXBuilder;
 import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
 
+import javax.xml.stream.XMLStreamException;
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 
 /**
- * Implementation for the content persistence manager which saves and loads data from a single xml file
+ * Implementation for the content persistence manager which saves and loads data from a single xml file. The file is
+ * only written if something has changed. It is written to a temporary file first, which replaces the xml file
+ * afterwards, so readers never see a partly written file. With a save delay, all changes within the delay are
+ * collected and written together.
  */
-public class XMLContentPersistenceManager implements ContentPersistenceManager {
+public class XMLContentPersistenceManager implements ContentPersistenceManager, Closeable {
     /**
      * xml file
      */
@@ -23,14 +30,43 @@ public class XMLContentPersistenceManager implements ContentPersistenceManager {
      * sax builder
      */
     protected SAXBuilder saxBuilder;
+    /**
+     * streaming reader for loading contents without building a document
+     */
+    protected StreamingXMLContentReader contentReader;
+    /**
+     * milliseconds for collecting changes before they are written, 0 for writing immediately
+     */
+    protected long saveDelay;
+    /**
+     * listener which receives the durations of parsing and saving the xml file, null if nothing is measured
+     */
+    protected volatile ContentMetricsListener metricsListener;
+    private Document unsavedDocument;
+    private Timer saveTimer;
+    private boolean saveScheduled;
+    private ContentPersistenceException saveError;
 
     /**
-     * Creates a persistence manager.
+     * Creates a persistence manager which writes every change immediately.
      *
      * @param persistenceFile xml file
      */
     public XMLContentPersistenceManager(File persistenceFile) {
+        this(persistenceFile, 0);
+    }
+
+    /**
+     * Creates a persistence manager.
+     *
+     * @param persistenceFile xml file
+     * @param saveDelay       milliseconds for collecting changes before they are written together, 0 for writing
+     *                        every change immediately
+     */
+    public XMLContentPersistenceManager(File persistenceFile, long saveDelay) {
+        this.saveDelay = saveDelay;
         saxBuilder = new SAXBuilder();
+        contentReader = new StreamingXMLContentReader();
         this.persistenceFile = persistenceFile;
 
         Document doc;
@@ -38,7 +74,7 @@ public class XMLContentPersistenceManager implements ContentPersistenceManager {
             doc = new Document();
             doc.setRootElement(new Element("positionContent"));
             try {
-                save(doc);
+                write(doc);
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -46,21 +82,16 @@ public class XMLContentPersistenceManager implements ContentPersistenceManager {
     }
 
     @Override
-    public ContentList<Content> getAllContents() throws ContentPersistenceException {
-        ContentList<Content> contents = new ContentList<Content>();
+    public synchronized ContentList<Content> getAllContents() throws ContentPersistenceException {
+        final ContentList<Content> contents = new ContentList<Content>();
+        flush();
         try {
-            Document doc = open();
-            Element root = doc.getRootElement();
-            List<Element> items = root.getChildren();
-            for (Element item : items) {
-                String type = item.getAttributeValue("type");
-                String data = item.getChild("data").getValue();
-                List<String> positions = new ArrayList<String>();
-                for (Element position : item.getChildren("position")) {
-                    positions.add(position.getValue());
+            readItems(new StreamingXMLContentReader.ItemHandler() {
+                @Override
+                public void onItem(Content.ContentType contentType, String data, List<String> positions) {
+                    contents.add(new Content(contentType, data, positions));
                 }
-                contents.add(new Content(Content.ContentType.valueOf(type), data, positions));
-            }
+            });
         } catch (Exception e) {
             throw new ContentPersistenceException(e.getMessage());
         }
@@ -68,22 +99,25 @@ public class XMLContentPersistenceManager implements ContentPersistenceManager {
     }
 
     @Override
-    public Map<String, ContentList<Content>> getConnectedContents() throws ContentPersistenceException {
-        Map<String, ContentList<Content>> contents = new HashMap<String, ContentList<Content>>();
+    public synchronized Map<String, ContentList<Content>> getConnectedContents() throws ContentPersistenceException {
+        final Map<String, ContentList<Content>> contents = new HashMap<String, ContentList<Content>>();
+        final ContentRegistry registry = new ContentRegistry();
+        flush();
         try {
-            Document doc = open();
-            Element root = doc.getRootElement();
-            List<Element> items = root.getChildren();
-            for (Element item : items) {
-                String type = item.getAttributeValue("type");
-                String data = item.getChild("data").getValue();
-                for (Element position : item.getChildren("position")) {
-                    if (!contents.containsKey(position.getValue())) {
-                        contents.put(position.getValue(), new ContentList<Content>());
+            readItems(new StreamingXMLContentReader.ItemHandler() {
+                @Override
+                public void onItem(Content.ContentType contentType, String data, List<String> positions) {
+                    Content content = registry.intern(contentType, data);
+                    for (String position : positions) {
+                        ContentList<Content> positionContents = contents.get(position);
+                        if (positionContents == null) {
+                            positionContents = new ContentList<Content>();
+                            contents.put(position, positionContents);
+                        }
+                        positionContents.add(content);
                     }
-                    contents.get(position.getValue()).add(new Content(Content.ContentType.valueOf(type), data));
                 }
-            }
+            });
         } catch (Exception e) {
             throw new ContentPersistenceException(e.getMessage());
         }
@@ -93,65 +127,82 @@ public class XMLContentPersistenceManager implements ContentPersistenceManager {
 
 
     @Override
-    public boolean addContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
-        boolean result = false;
+    public synchronized boolean addContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        checkSaveError();
+        boolean result;
         try {
             Document doc = open();
-            Element root = doc.getRootElement();
-            if (!contentExists(root, contentType, data)) {
-                Text xmlData;
-                if (Content.ContentType.HTML_TEXT.equals(contentType)) {
-                    xmlData = new CDATA(data);
-                } else {
-                    xmlData = new Text(data);
-                }
-                Element itemElement = new Element("item");
-                itemElement.setAttribute("type", contentType.toString());
-
-                Element dataElement = new Element("data");
-                dataElement.addContent(xmlData);
-                itemElement.addContent(dataElement);
-                root.addContent(itemElement);
+            result = addContent(doc.getRootElement(), contentType, data);
+            if (result) {
                 save(doc);
-            } else {
-                result = true;
             }
         } catch (Exception e) {
             throw new ContentPersistenceException(e.getMessage());
         }
-        return !result;
+        return result;
+    }
+
+    private boolean addContent(Element root, Content.ContentType contentType, String data) throws ContentPersistenceException {
+        if (contentExists(root, contentType, data)) {
+            return false;
+        }
+        Text xmlData;
+        if (Content.ContentType.HTML_TEXT.equals(contentType)) {
+            xmlData = new CDATA(data);
+        } else {
+            xmlData = new Text(data);
+        }
+        Element itemElement = new Element("item");
+        itemElement.setAttribute("type", contentType.toString());
+
+        Element dataElement = new Element("data");
+        dataElement.addContent(xmlData);
+        itemElement.addContent(dataElement);
+        root.addContent(itemElement);
+        return true;
     }
 
     @Override
-    public boolean removeContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
-        boolean result = false;
+    public synchronized boolean removeContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        checkSaveError();
+        boolean result;
         try {
             Document doc = open();
-            Element root = doc.getRootElement();
-            Iterator<Element> itr = root.getChildren().iterator();
-            while (itr.hasNext()) {
-                Element element = itr.next();
-                if (contentType.equals(Content.ContentType.valueOf(element.getAttributeValue("type"))) && data.equals(element.getChild("data")
-                        .getValue())) {
-                    itr.remove();
-                    result = true;
-                }
+            result = removeContent(doc.getRootElement(), contentType, data);
+            if (result) {
+                save(doc);
             }
-            save(doc);
         } catch (Exception e) {
             throw new ContentPersistenceException(e.getMessage());
         }
         return result;
     }
 
+    private boolean removeContent(Element root, Content.ContentType contentType, String data) {
+        boolean result = false;
+        Iterator<Element> itr = root.getChildren().iterator();
+        while (itr.hasNext()) {
+            Element element = itr.next();
+            if (contentType.equals(Content.ContentType.valueOf(element.getAttributeValue("type"))) && data.equals(element.getChild("data")
+                    .getValue())) {
+                itr.remove();
+                result = true;
+            }
+        }
+        return result;
+    }
+
     @Override
-    public boolean addPosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+    public synchronized boolean addPosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        checkSaveError();
         boolean result = false;
         try {
             Document doc = open();
             Element root = doc.getRootElement();
             result = addPosition(root, contentType, data, positionName);
-            save(doc);
+            if (result) {
+                save(doc);
+            }
         } catch (Exception e) {
             throw new ContentPersistenceException(e.getMessage());
         }
@@ -159,8 +210,10 @@ public class XMLContentPersistenceManager implements ContentPersistenceManager {
     }
 
     @Override
-    public boolean addPositions(List<Content.ContentType> contentTypes, List<String> multipleData, List<String> positionNames) throws ContentPersistenceException {
+    public synchronized boolean addPositions(List<Content.ContentType> contentTypes, List<String> multipleData, List<String> positionNames) throws ContentPersistenceException {
+        checkSaveError();
         boolean result = true;
+        boolean changed = false;
         try {
             Document doc = open();
             Element root = doc.getRootElement();
@@ -168,11 +221,15 @@ public class XMLContentPersistenceManager implements ContentPersistenceManager {
                 Content.ContentType contentType = contentTypes.get(i);
                 String data = multipleData.get(i);
                 String positionName = positionNames.get(i);
-                if (!addPosition(root, contentType, data, positionName)) {
+                if (addPosition(root, contentType, data, positionName)) {
+                    changed = true;
+                } else {
                     result = false;
                 }
             }
-            save(doc);
+            if (changed) {
+                save(doc);
+            }
         } catch (Exception e) {
             throw new ContentPersistenceException(e.getMessage());
         }
@@ -201,120 +258,221 @@ public class XMLContentPersistenceManager implements ContentPersistenceManager {
     }
 
     @Override
-    public boolean removePosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
-        boolean result = false;
+    public synchronized boolean removePosition(Content.ContentType contentType, String data, String positionName) throws ContentPersistenceException {
+        checkSaveError();
+        boolean result;
         try {
             Document doc = open();
-            Element root = doc.getRootElement();
-            Iterator<Element> itr = root.getChildren().iterator();
-            while (itr.hasNext()) {
-                Element item = itr.next();
-                if (contentType.equals(Content.ContentType.valueOf(item.getAttributeValue("type"))) && data.equals(item.getChild("data").getValue()
-                )) {
-                    Iterator<Element> positionItr = item.getChildren("position").iterator();
-                    while (positionItr.hasNext()) {
-                        Element position = positionItr.next();
-                        if (positionName.equals(position.getValue())) {
-                            positionItr.remove();
-                            result = true;
-                        }
-                    }
-                }
+            result = removePosition(doc.getRootElement(), contentType, data, positionName);
+            if (result) {
+                save(doc);
             }
-            save(doc);
         } catch (Exception e) {
             throw new ContentPersistenceException(e.getMessage());
         }
         return result;
     }
 
-    @Override
-    public boolean removeAllPositions(Content.ContentType contentType, String data) throws ContentPersistenceException {
+    private boolean removePosition(Element root, Content.ContentType contentType, String data, String positionName) {
         boolean result = false;
+        Iterator<Element> itr = root.getChildren().iterator();
+        while (itr.hasNext()) {
+            Element item = itr.next();
+            if (contentType.equals(Content.ContentType.valueOf(item.getAttributeValue("type"))) && data.equals(item.getChild("data").getValue()
+            )) {
+                Iterator<Element> positionItr = item.getChildren("position").iterator();
+                while (positionItr.hasNext()) {
+                    Element position = positionItr.next();
+                    if (positionName.equals(position.getValue())) {
+                        positionItr.remove();
+                        result = true;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean removeAllPositions(Content.ContentType contentType, String data) throws ContentPersistenceException {
+        checkSaveError();
+        boolean result;
         try {
             Document doc = open();
-            Element root = doc.getRootElement();
-            Iterator<Element> itr = root.getChildren().iterator();
-            while (itr.hasNext()) {
-                Element item = itr.next();
-                if (contentType.equals(Content.ContentType.valueOf(item.getAttributeValue("type"))) && data.equals(item.getChild("data").getValue()
-                )) {
-                    item.removeChildren("position");
-                    result = true;
-                }
+            result = removeAllPositions(doc.getRootElement(), contentType, data);
+            if (result) {
+                save(doc);
             }
-            save(doc);
         } catch (Exception e) {
             throw new ContentPersistenceException(e.getMessage());
         }
         return result;
     }
 
-    @Override
-    public boolean updateContent(Content.ContentType oldContentType, String oldData, Content.ContentType newContentType, String newData) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+    private boolean removeAllPositions(Element root, Content.ContentType contentType, String data) {
         boolean result = false;
+        Iterator<Element> itr = root.getChildren().iterator();
+        while (itr.hasNext()) {
+            Element item = itr.next();
+            if (contentType.equals(Content.ContentType.valueOf(item.getAttributeValue("type"))) && data.equals(item.getChild("data").getValue()
+            )) {
+                result |= item.removeChildren("position");
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean updateContent(Content.ContentType oldContentType, String oldData, Content.ContentType newContentType, String newData) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        checkSaveError();
         if (oldContentType.equals(newContentType) && oldData.equals(newData)) {
             throw new ContentSameDataException("Same old and new data.");
         }
-        boolean contentExists = false;
+        Document doc;
         try {
-            Document doc = open();
-            Element root = doc.getRootElement();
-            if (!contentExists(root, newContentType, newData)) {
-                Text xmlData;
-                if (Content.ContentType.HTML_TEXT.equals(newData)) {
-                    xmlData = new CDATA(newData);
-                } else {
-                    xmlData = new Text(newData);
-                }
+            doc = open();
+        } catch (Exception e) {
+            throw new ContentPersistenceException(e.getMessage());
+        }
+        boolean result = updateContent(doc.getRootElement(), oldContentType, oldData, newContentType, newData);
+        if (result) {
+            try {
+                save(doc);
+            } catch (Exception e) {
+                throw new ContentPersistenceException(e.getMessage());
+            }
+        }
+        return result;
+    }
 
-                List<Element> items = root.getChildren();
-                for (Element element : items) {
-                    if (oldContentType.equals(Content.ContentType.valueOf(element.getAttributeValue("type"))) && oldData.equals(element.getChild
-                            ("data").getValue())) {
-                        element.setAttribute("type", newContentType.toString());
-                        element.getChild("data").setText(xmlData.getText());
-                        result = true;
-                    }
-                }
-                if (result) {
-                    save(doc);
-                }
+    private boolean updateContent(Element root, Content.ContentType oldContentType, String oldData, Content.ContentType newContentType, String newData) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        if (oldContentType.equals(newContentType) && oldData.equals(newData)) {
+            throw new ContentSameDataException("Same old and new data.");
+        }
+        if (contentExists(root, newContentType, newData)) {
+            throw new ContentAlreadyExistsException("A content with same data already exists.");
+        }
+        boolean result = false;
+        try {
+            Text xmlData;
+            if (Content.ContentType.HTML_TEXT.equals(newData)) {
+                xmlData = new CDATA(newData);
             } else {
-                contentExists = true;
+                xmlData = new Text(newData);
+            }
+
+            List<Element> items = root.getChildren();
+            for (Element element : items) {
+                if (oldContentType.equals(Content.ContentType.valueOf(element.getAttributeValue("type"))) && oldData.equals(element.getChild
+                        ("data").getValue())) {
+                    element.setAttribute("type", newContentType.toString());
+                    element.getChild("data").setText(xmlData.getText());
+                    result = true;
+                }
             }
         } catch (Exception e) {
             throw new ContentPersistenceException(e.getMessage());
         }
-        if (contentExists) {
-            throw new ContentAlreadyExistsException("A content with same data already exists.");
-        }
         return result;
     }
 
     @Override
-    public void removeAllContent() throws ContentPersistenceException {
+    public synchronized void removeAllContent() throws ContentPersistenceException {
+        checkSaveError();
         try {
             Document doc = open();
-            Element root = doc.getRootElement();
-            root.removeContent();
-            save(doc);
+            if (!doc.getRootElement().removeContent().isEmpty()) {
+                save(doc);
+            }
         } catch (Exception e) {
             throw new ContentPersistenceException(e.getMessage());
         }
     }
 
     @Override
-    public void removeAllPositions() throws ContentPersistenceException {
+    public synchronized void removeAllPositions() throws ContentPersistenceException {
+        checkSaveError();
         try {
             Document doc = open();
-            Element root = doc.getRootElement();
-            Iterator<Element> itr = root.getChildren().iterator();
-            while (itr.hasNext()) {
-                Element item = itr.next();
-                item.removeChildren("position");
+            if (removeAllPositions(doc.getRootElement())) {
+                save(doc);
             }
-            save(doc);
+        } catch (Exception e) {
+            throw new ContentPersistenceException(e.getMessage());
+        }
+    }
+
+    private boolean removeAllPositions(Element root) {
+        boolean result = false;
+        Iterator<Element> itr = root.getChildren().iterator();
+        while (itr.hasNext()) {
+            Element item = itr.next();
+            result |= item.removeChildren("position");
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<Boolean> executeBatch(List<ContentOperation> operations) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        checkSaveError();
+        Document doc;
+        try {
+            doc = open();
+        } catch (Exception e) {
+            throw new ContentPersistenceException(e.getMessage());
+        }
+        if (doc == unsavedDocument) {
+            // the collected changes are only replaced if the whole batch succeeds
+            doc = doc.clone();
+        }
+        Element root = doc.getRootElement();
+        List<Boolean> results = new ArrayList<Boolean>(operations.size());
+        boolean changed = false;
+        for (ContentOperation operation : operations) {
+            boolean result = execute(root, operation);
+            results.add(result);
+            changed |= result;
+        }
+        if (changed) {
+            try {
+                save(doc);
+            } catch (Exception e) {
+                throw new ContentPersistenceException(e.getMessage());
+            }
+        }
+        return results;
+    }
+
+    private boolean execute(Element root, ContentOperation operation) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+        Content.ContentType contentType = operation.getContentType();
+        String data = operation.getData();
+        try {
+            switch (operation.getOperationType()) {
+                case ADD_CONTENT:
+                    return addContent(root, contentType, data);
+                case REMOVE_CONTENT:
+                    return removeContent(root, contentType, data);
+                case ADD_POSITION:
+                    return addPosition(root, contentType, data, operation.getPositionName());
+                case REMOVE_POSITION:
+                    return removePosition(root, contentType, data, operation.getPositionName());
+                case REMOVE_POSITIONS:
+                    return removeAllPositions(root, contentType, data);
+                case UPDATE_CONTENT:
+                    return updateContent(root, contentType, data, operation.getNewContentType(), operation.getNewData());
+                case REMOVE_ALL_CONTENT:
+                    return !root.removeContent().isEmpty();
+                case REMOVE_ALL_POSITIONS:
+                    return removeAllPositions(root);
+                default:
+                    throw new ContentPersistenceException("Unknown operation " + operation.getOperationType());
+            }
+        } catch (ContentPersistenceException e) {
+            throw e;
+        } catch (ContentSameDataException e) {
+            throw e;
+        } catch (ContentAlreadyExistsException e) {
+            throw e;
         } catch (Exception e) {
             throw new ContentPersistenceException(e.getMessage());
         }
@@ -336,28 +494,218 @@ public class XMLContentPersistenceManager implements ContentPersistenceManager {
     }
 
     /**
-     * Opens the xml file
+     * Writes collected changes to the xml file, if there are any
+     *
+     * @throws ContentPersistenceException if the file could not be saved
+     */
+    public synchronized void flush() throws ContentPersistenceException {
+        saveError = null;
+        if (unsavedDocument != null) {
+            try {
+                write(unsavedDocument);
+            } catch (IOException e) {
+                throw new ContentPersistenceException(e.getMessage());
+            }
+            unsavedDocument = null;
+        }
+    }
+
+    /**
+     * Writes collected changes and stops the delayed saving. The persistence manager must not be used afterwards.
+     *
+     * @throws IOException if the file could not be saved
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (saveTimer != null) {
+            saveTimer.cancel();
+        }
+        try {
+            flush();
+        } catch (ContentPersistenceException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Throws the error of the last delayed save once, if it failed. The collected changes are kept and written by the
+     * next save.
+     *
+     * @throws ContentPersistenceException if the last delayed save failed
+     */
+    protected void checkSaveError() throws ContentPersistenceException {
+        if (saveError != null) {
+            ContentPersistenceException error = saveError;
+            saveError = null;
+            throw new ContentPersistenceException("Collected changes could not be saved: " + error.getMessage());
+        }
+    }
+
+    /**
+     * Opens the xml file. If there are collected changes, which are not written yet, the changed document is returned.
      *
      * @return xml document
      * @throws JDOMException file is not in a correct format
      * @throws IOException   if file could not be opened
      */
     protected Document open() throws JDOMException, IOException {
-        return saxBuilder.build(persistenceFile);
+        if (unsavedDocument != null) {
+            return unsavedDocument;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Document doc = saxBuilder.build(persistenceFile);
+            failed = false;
+            return doc;
+        } finally {
+            recordOperation("parse", start, failed);
+        }
     }
 
     /**
-     * Saves a xml document
+     * Reads all items of the xml file with the streaming reader
+     *
+     * @param handler handler which receives every item
+     * @throws XMLStreamException if the file is not in a correct format
+     * @throws IOException        if the file could not be opened
+     */
+    protected void readItems(StreamingXMLContentReader.ItemHandler handler) throws XMLStreamException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            contentReader.read(persistenceFile, handler);
+            failed = false;
+        } finally {
+            recordOperation("parse", start, failed);
+        }
+    }
+
+    /**
+     * Saves a xml document. Without a save delay, the document is written immediately. Otherwise it is written after
+     * the delay together with all further changes.
      *
      * @param doc document to save
      * @throws IOException if file could not be saved
      */
     protected void save(Document doc) throws IOException {
+        if (saveDelay <= 0) {
+            write(doc);
+            return;
+        }
+        unsavedDocument = doc;
+        scheduleSave();
+    }
+
+    /**
+     * Schedules a call of {@link #flush()} after the save delay, if it is not scheduled yet
+     */
+    protected void scheduleSave() {
+        if (!saveScheduled) {
+            if (saveTimer == null) {
+                saveTimer = new Timer("content-save", true);
+            }
+            saveScheduled = true;
+            saveTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    synchronized (XMLContentPersistenceManager.this) {
+                        saveScheduled = false;
+                        try {
+                            flush();
+                        } catch (ContentPersistenceException e) {
+                            // reported by the next change, the changes are written by the next save
+                            saveError = e;
+                        }
+                    }
+                }
+            }, saveDelay);
+        }
+    }
+
+    /**
+     * Writes a xml document to a temporary file and replaces the xml file with it
+     *
+     * @param doc document to write
+     * @throws IOException if file could not be written
+     */
+    protected void write(Document doc) throws IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            writeFile(doc);
+            failed = false;
+        } finally {
+            recordOperation("save", start, failed);
+        }
+        ContentMetricsListener listener = metricsListener;
+        if (listener != null) {
+            listener.onFileSize(persistenceFile.length());
+        }
+    }
+
+    /**
+     * Sets the listener which receives the durations of parsing and saving the xml file and the file size after
+     * saving
+     *
+     * @param metricsListener listener or null, for not measuring anything
+     */
+    public void setMetricsListener(ContentMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Reports the duration of an operation to the metrics listener, if there is one
+     *
+     * @param operation name of the operation
+     * @param start     start time of the operation from {@link System#nanoTime()}
+     * @param failed    true, if the operation failed
+     */
+    protected void recordOperation(String operation, long start, boolean failed) {
+        ContentMetricsListener listener = metricsListener;
+        if (listener != null) {
+            listener.onOperation(operation, System.nanoTime() - start, failed);
+        }
+    }
+
+    private void writeFile(Document doc) throws IOException {
+        replaceFile(writeTempFile(doc));
+    }
+
+    /**
+     * Writes a xml document to the temporary file of the xml file and forces it to the storage device
+     *
+     * @param doc document to write
+     * @return temporary file
+     * @throws IOException if the file could not be written
+     */
+    File writeTempFile(Document doc) throws IOException {
+        File tempFile = new File(persistenceFile.getPath() + ".tmp");
         XMLOutputter xmlOutput = new XMLOutputter();
         xmlOutput.setFormat(Format.getPrettyFormat());
-        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(persistenceFile), "UTF-8"));
-        xmlOutput.output(doc, out);
-        out.flush();
-        out.close();
+        FileOutputStream fileOut = new FileOutputStream(tempFile);
+        Writer out = new BufferedWriter(new OutputStreamWriter(fileOut, "UTF-8"));
+        try {
+            xmlOutput.output(doc, out);
+            out.flush();
+            fileOut.getFD().sync();
+        } finally {
+            out.close();
+        }
+        return tempFile;
+    }
+
+    /**
+     * Replaces the xml file with a written temporary file
+     *
+     * @param tempFile temporary file
+     * @throws IOException if the file could not be replaced
+     */
+    void replaceFile(File tempFile) throws IOException {
+        try {
+            Files.move(tempFile.toPath(), persistenceFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), persistenceFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 }
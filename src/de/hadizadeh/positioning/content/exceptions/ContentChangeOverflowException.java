@@ -0,0 +1,24 @@
+/**
+ * Created by David Hadizadeh <david@hadizadeh.de>
+ * http://hadizadeh.de
+ * <p/>
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.md', which is part of this package.
+ */
+
+package de.hadizadeh.positioning.content.exceptions;
+
+/**
+ * Exception for a subscriber which could not receive all change events, because its buffer was full
+ */
+public class ContentChangeOverflowException extends ContentException {
+
+    /**
+     * Create Exception
+     *
+     * @param message Message for the overflowed buffer
+     */
+    public ContentChangeOverflowException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,71 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.AssetLoader;
+import de.hadizadeh.positioning.content.Content;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+
+public class AssetLoaderTest extends TestCase {
+    private File directory;
+    private AssetLoader assetLoader;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        directory = new File("assetLoaderTest");
+        directory.mkdir();
+        write("small.txt", 10);
+        write("large.png", 60);
+        assetLoader = new AssetLoader(directory, 100, 50);
+    }
+
+    public void tearDown() throws Exception {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+        super.tearDown();
+    }
+
+    public void testLoad() throws Exception {
+        Content small = new Content(Content.ContentType.TEXTFILE, "small.txt");
+        ByteBuffer bytes = assetLoader.load(small);
+        assertEquals(10, bytes.remaining());
+        assertTrue(bytes.isReadOnly());
+        assertEquals(10, assetLoader.load(small).remaining());
+        assertEquals(1, assetLoader.getHits());
+        assertEquals(1, assetLoader.getMisses());
+        assertEquals(0.5, assetLoader.getHitRate(), 0.0001);
+        assertEquals(60, assetLoader.load(new Content(Content.ContentType.IMAGE, "large.png")).remaining());
+        assertEquals(70, assetLoader.getCachedBytes());
+    }
+
+    public void testEviction() throws Exception {
+        write("other.png", 40);
+        assetLoader.load(new Content(Content.ContentType.TEXTFILE, "small.txt"));
+        assetLoader.load(new Content(Content.ContentType.IMAGE, "large.png"));
+        assetLoader.load(new Content(Content.ContentType.TEXTFILE, "small.txt"));
+        assetLoader.load(new Content(Content.ContentType.IMAGE, "other.png"));
+        assertEquals(1, assetLoader.getEvictions());
+        assertEquals(50, assetLoader.getCachedBytes());
+        assetLoader.load(new Content(Content.ContentType.TEXTFILE, "small.txt"));
+        assertEquals(2, assetLoader.getHits());
+    }
+
+    public void testInvalidation() throws Exception {
+        Content small = new Content(Content.ContentType.TEXTFILE, "small.txt");
+        assetLoader.load(small);
+        write("small.txt", 20);
+        assertEquals(20, assetLoader.load(small).remaining());
+        assertEquals(1, assetLoader.getInvalidations());
+        assertEquals(20, assetLoader.getCachedBytes());
+    }
+
+    private void write(String name, int size) throws Exception {
+        FileOutputStream out = new FileOutputStream(new File(directory, name));
+        out.write(new byte[size]);
+        out.close();
+    }
+}
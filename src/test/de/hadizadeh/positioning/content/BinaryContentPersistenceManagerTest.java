@@ -0,0 +1,85 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.BinaryContentPersistenceManager;
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentList;
+import de.hadizadeh.positioning.content.XMLContentPersistenceManager;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import de.hadizadeh.positioning.model.PositionInformation;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class BinaryContentPersistenceManagerTest extends TestCase {
+    private File xmlFile;
+    private File binaryFile;
+    private BinaryContentPersistenceManager persistenceManager;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        xmlFile = new File("binaryContentTest.xml");
+        binaryFile = new File("binaryContentTest.bin");
+        xmlFile.delete();
+        XMLContentPersistenceManager xmlPersistenceManager = new XMLContentPersistenceManager(xmlFile);
+        xmlPersistenceManager.addContent(Content.ContentType.TITLE, "Tïtle");
+        xmlPersistenceManager.addContent(Content.ContentType.HTML_TEXT, "<p>text</p>");
+        xmlPersistenceManager.addContent(Content.ContentType.IMAGE, "image.png");
+        xmlPersistenceManager.addPosition(Content.ContentType.TITLE, "Tïtle", "b");
+        xmlPersistenceManager.addPosition(Content.ContentType.HTML_TEXT, "<p>text</p>", "b");
+        xmlPersistenceManager.addPosition(Content.ContentType.HTML_TEXT, "<p>text</p>", "a");
+        BinaryContentPersistenceManager.convert(xmlPersistenceManager, binaryFile);
+        persistenceManager = new BinaryContentPersistenceManager(binaryFile);
+    }
+
+    public void tearDown() throws Exception {
+        xmlFile.delete();
+        binaryFile.delete();
+        super.tearDown();
+    }
+
+    public void testGetContents() throws Exception {
+        ContentList<Content> contents = persistenceManager.getContents(new PositionInformation("b", null));
+        assertEquals(2, contents.size());
+        assertEquals("Tïtle", contents.getContent(Content.ContentType.TITLE).getData());
+        assertEquals("<p>text</p>", persistenceManager.getContents("a").get(0).getData());
+        assertNull(persistenceManager.getContents("c"));
+    }
+
+    public void testGetAllContents() throws Exception {
+        ContentList<Content> contents = persistenceManager.getAllContents();
+        assertEquals(3, contents.size());
+        assertEquals(2, contents.getContent(Content.ContentType.HTML_TEXT).getPositions().size());
+        assertEquals(0, contents.getContent(Content.ContentType.IMAGE).getPositions().size());
+        XMLContentPersistenceManager xmlPersistenceManager = new XMLContentPersistenceManager(xmlFile);
+        assertEquals(describe(xmlPersistenceManager.getAllContents()), describe(contents));
+        Map<String, ContentList<Content>> xmlConnectedContents = xmlPersistenceManager.getConnectedContents();
+        Map<String, ContentList<Content>> connectedContents = persistenceManager.getConnectedContents();
+        assertEquals(xmlConnectedContents.keySet(), connectedContents.keySet());
+        for (String positionName : xmlConnectedContents.keySet()) {
+            assertEquals(describe(xmlConnectedContents.get(positionName)), describe(connectedContents.get(positionName)));
+        }
+    }
+
+    public void testReadOnly() throws Exception {
+        try {
+            persistenceManager.addContent(Content.ContentType.TITLE, "title");
+            fail();
+        } catch (ContentPersistenceException e) {
+        }
+    }
+
+    private static Set<String> describe(List<Content> contents) {
+        Set<String> description = new HashSet<String>();
+        for (Content content : contents) {
+            List<String> positions = content.getPositions() != null ? content.getPositions() : new ArrayList<String>();
+            description.add(content.getType() + "|" + content.getData() + "|" + new TreeSet<String>(positions));
+        }
+        return description;
+    }
+}
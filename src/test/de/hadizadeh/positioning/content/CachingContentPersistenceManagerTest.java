@@ -0,0 +1,89 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.CachingContentPersistenceManager;
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentList;
+import de.hadizadeh.positioning.content.ContentOperation;
+import de.hadizadeh.positioning.content.XMLContentPersistenceManager;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+
+public class CachingContentPersistenceManagerTest extends TestCase {
+    private File file;
+    private CachingContentPersistenceManager persistenceManager;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        file = new File("cachedContent.xml");
+        file.delete();
+        persistenceManager = new CachingContentPersistenceManager(new XMLContentPersistenceManager(file), file);
+        persistenceManager.addContent(Content.ContentType.TITLE, "title1");
+        persistenceManager.addPosition(Content.ContentType.TITLE, "title1", "position");
+    }
+
+    public void tearDown() throws Exception {
+        persistenceManager.close();
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testReadsFromCache() throws Exception {
+        assertEquals(1, persistenceManager.getAllContents().size());
+        assertEquals(1, persistenceManager.getConnectedContents().get("position").size());
+        assertEquals(1, persistenceManager.getLoads());
+        assertEquals(1, persistenceManager.getHits());
+    }
+
+    public void testWritesUpdateCache() throws Exception {
+        persistenceManager.getAllContents();
+        persistenceManager.addContent(Content.ContentType.DESCRIPTION, "description");
+        persistenceManager.executeBatch(Arrays.asList(ContentOperation.addPosition(Content.ContentType.DESCRIPTION, "description", "position"),
+                ContentOperation.removePosition(Content.ContentType.TITLE, "title1", "position")));
+        Map<String, ContentList<Content>> connectedContents = persistenceManager.getConnectedContents();
+        assertEquals(1, connectedContents.get("position").size());
+        assertEquals("description", connectedContents.get("position").get(0).getData());
+        assertEquals(2, persistenceManager.getAllContents().size());
+        assertEquals(1, persistenceManager.getLoads());
+        assertEquals(2, new XMLContentPersistenceManager(file).getAllContents().size());
+    }
+
+    public void testDetectsChangesWithSameSizeAndTime() throws Exception {
+        // a file system which only stores seconds
+        long lastModified = System.currentTimeMillis() / 1000 * 1000;
+        file.setLastModified(lastModified);
+        persistenceManager.getAllContents();
+        new XMLContentPersistenceManager(file).updateContent(Content.ContentType.TITLE, "title1", Content.ContentType.TITLE, "title2");
+        file.setLastModified(lastModified);
+        assertEquals("title2", persistenceManager.getAllContents().get(0).getData());
+        assertEquals(2, persistenceManager.getLoads());
+    }
+
+    public void testWriteAfterOtherChange() throws Exception {
+        persistenceManager.getAllContents();
+        new XMLContentPersistenceManager(file).addContent(Content.ContentType.DESCRIPTION, "other");
+        persistenceManager.addContent(Content.ContentType.IMAGE, "image.png");
+        assertEquals(3, persistenceManager.getAllContents().size());
+    }
+
+    public void testDetectsOtherChangeBeforeWrite() throws Exception {
+        persistenceManager.close();
+        persistenceManager = new CachingContentPersistenceManager(new XMLContentPersistenceManager(file, 60000) {
+            @Override
+            public synchronized boolean addContent(Content.ContentType contentType, String data) throws ContentPersistenceException {
+                // another process restores an older copy with an additional content before the change is made
+                long lastModified = file.lastModified() - 10000;
+                new XMLContentPersistenceManager(file).addContent(Content.ContentType.DESCRIPTION, "other");
+                file.setLastModified(lastModified);
+                return super.addContent(contentType, data);
+            }
+        }, file);
+        persistenceManager.getAllContents();
+        persistenceManager.addContent(Content.ContentType.IMAGE, "image.png");
+        assertEquals(3, persistenceManager.getAllContents().size());
+        assertEquals(2, persistenceManager.getLoads());
+    }
+}
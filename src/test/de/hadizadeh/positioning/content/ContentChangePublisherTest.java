@@ -0,0 +1,177 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentChangeEvent;
+import de.hadizadeh.positioning.content.ContentChangePublisher;
+import de.hadizadeh.positioning.content.ContentChangeSubscriber;
+import de.hadizadeh.positioning.content.ContentChangeSubscription;
+import de.hadizadeh.positioning.content.ContentKey;
+import de.hadizadeh.positioning.content.ContentManager;
+import de.hadizadeh.positioning.content.exceptions.ContentChangeOverflowException;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+public class ContentChangePublisherTest extends TestCase {
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private File file;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        file = new File("eventContent.xml");
+        file.delete();
+    }
+
+    public void tearDown() throws Exception {
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testContentManagerEvents() throws Exception {
+        ContentManager contentManager = new ContentManager(file);
+        contentManager.setChangePublisher(new ContentChangePublisher(DIRECT_EXECUTOR));
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        contentManager.subscribe(subscriber);
+
+        contentManager.addContent(Content.ContentType.TITLE, "title");
+        contentManager.addPosition(Content.ContentType.TITLE, "title", "position");
+        contentManager.updateContent(Content.ContentType.TITLE, "title", Content.ContentType.TITLE, "title2");
+        contentManager.removeContent(Content.ContentType.TITLE, "title2");
+        contentManager.removeAllContent();
+
+        assertEquals(Arrays.asList(ContentChangeEvent.EventType.CONTENT_ADDED, ContentChangeEvent.EventType.POSITION_LINKED,
+                ContentChangeEvent.EventType.CONTENT_UPDATED, ContentChangeEvent.EventType.POSITION_UNLINKED,
+                ContentChangeEvent.EventType.CONTENT_REMOVED, ContentChangeEvent.EventType.ALL_CONTENTS_REMOVED), subscriber.getEventTypes());
+        assertEquals("position", subscriber.events.get(1).getPositionName());
+        assertEquals(new ContentKey(Content.ContentType.TITLE, "title2"), subscriber.events.get(2).getNewContentKey());
+    }
+
+    public void testBackpressure() throws Exception {
+        ContentChangePublisher publisher = new ContentChangePublisher(DIRECT_EXECUTOR);
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        publisher.subscribe(subscriber, 2);
+        publish(publisher, "1");
+        publish(publisher, "2");
+        publish(publisher, "3");
+        assertEquals(1, subscriber.events.size());
+        subscriber.subscription.request(1);
+        assertEquals(2, subscriber.events.size());
+        assertEquals("2", subscriber.events.get(1).getContentKey().getData());
+        publish(publisher, "4");
+        assertNull(subscriber.error);
+        publish(publisher, "5");
+        assertTrue(subscriber.error instanceof ContentChangeOverflowException);
+        assertFalse(publisher.hasSubscribers());
+    }
+
+    public void testRequestedEventsDoNotOverflow() throws Exception {
+        final List<Runnable> runs = new ArrayList<Runnable>();
+        ContentChangePublisher publisher = new ContentChangePublisher(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                runs.add(command);
+            }
+        });
+        RecordingSubscriber subscriber = new RecordingSubscriber(5);
+        publisher.subscribe(subscriber, 2);
+        runs.remove(0).run();
+        List<ContentChangeEvent> events = new ArrayList<ContentChangeEvent>();
+        for (int i = 0; i < 7; i++) {
+            events.add(ContentChangeEvent.contentAdded(new ContentKey(Content.ContentType.TITLE, "title" + i)));
+        }
+        publisher.publish(events);
+        assertTrue(publisher.hasSubscribers());
+        publish(publisher, "8");
+        runs.remove(0).run();
+        assertTrue(subscriber.error instanceof ContentChangeOverflowException);
+
+        subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber, 2);
+        runs.remove(0).run();
+        publisher.publish(events);
+        publisher.publish(events);
+        runs.remove(0).run();
+        assertNull(subscriber.error);
+        assertEquals(14, subscriber.events.size());
+    }
+
+    public void testClose() throws Exception {
+        ContentChangePublisher publisher = new ContentChangePublisher(DIRECT_EXECUTOR);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        publish(publisher, "1");
+        publisher.close();
+        assertFalse(subscriber.completed);
+        subscriber.subscription.request(1);
+        assertEquals(1, subscriber.events.size());
+        assertTrue(subscriber.completed);
+    }
+
+    public void testCancel() throws Exception {
+        ContentChangePublisher publisher = new ContentChangePublisher(DIRECT_EXECUTOR);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.cancel();
+        publish(publisher, "1");
+        assertTrue(subscriber.events.isEmpty());
+        assertEquals(0, publisher.getSubscriberCount());
+    }
+
+    private static void publish(ContentChangePublisher publisher, String data) {
+        publisher.publish(Collections.singletonList(ContentChangeEvent.contentAdded(new ContentKey(Content.ContentType.TITLE, data))));
+    }
+
+    private static class RecordingSubscriber implements ContentChangeSubscriber {
+        private final long initialRequest;
+        private final List<ContentChangeEvent> events = new ArrayList<ContentChangeEvent>();
+        private ContentChangeSubscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        private RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(ContentChangeSubscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(ContentChangeEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        private List<ContentChangeEvent.EventType> getEventTypes() {
+            List<ContentChangeEvent.EventType> eventTypes = new ArrayList<ContentChangeEvent.EventType>();
+            for (ContentChangeEvent event : events) {
+                eventTypes.add(event.getEventType());
+            }
+            return eventTypes;
+        }
+    }
+}
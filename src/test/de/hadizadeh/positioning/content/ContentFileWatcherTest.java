@@ -0,0 +1,92 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentFileWatcher;
+import de.hadizadeh.positioning.content.ContentList;
+import de.hadizadeh.positioning.content.ContentManager;
+import de.hadizadeh.positioning.content.XMLContentPersistenceManager;
+import de.hadizadeh.positioning.model.PositionInformation;
+import junit.framework.TestCase;
+
+import java.io.File;
+
+public class ContentFileWatcherTest extends TestCase {
+    private File file;
+    private ContentManager contentManager;
+    private XMLContentPersistenceManager otherPersistenceManager;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        file = new File("watchedContent.xml");
+        file.delete();
+        contentManager = new ContentManager(file);
+        contentManager.addContent(Content.ContentType.TITLE, "title");
+        contentManager.addPosition(Content.ContentType.TITLE, "title", "position1");
+        contentManager.addPosition(Content.ContentType.TITLE, "title", "position2");
+        otherPersistenceManager = new XMLContentPersistenceManager(file);
+    }
+
+    public void tearDown() throws Exception {
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testRefreshContents() throws Exception {
+        ContentList<Content> unchangedContents = contentManager.getContents(new PositionInformation("position1", null));
+        otherPersistenceManager.removePosition(Content.ContentType.TITLE, "title", "position2");
+        otherPersistenceManager.addContent(Content.ContentType.DESCRIPTION, "description");
+        otherPersistenceManager.addPosition(Content.ContentType.DESCRIPTION, "description", "position3");
+
+        assertEquals(2, contentManager.refreshContents());
+        assertSame(unchangedContents, contentManager.getContents(new PositionInformation("position1", null)));
+        assertNull(contentManager.getContents(new PositionInformation("position2", null)));
+        assertEquals("description", contentManager.getContents(new PositionInformation("position3", null)).get(0).getData());
+        assertEquals(1, contentManager.search("description", null, 10).size());
+        assertEquals(0, contentManager.refreshContents());
+    }
+
+    public void testRefreshUpdatesSearchIndex() throws Exception {
+        contentManager.addContent(Content.ContentType.DESCRIPTION, "first description");
+        assertEquals(1, contentManager.search("description", null, 10).size());
+        otherPersistenceManager.removeContent(Content.ContentType.DESCRIPTION, "first description");
+        otherPersistenceManager.addContent(Content.ContentType.DESCRIPTION, "second description");
+        assertEquals(0, contentManager.refreshContents());
+        ContentList<Content> results = contentManager.search("description", null, 10);
+        assertEquals(1, results.size());
+        assertEquals("second description", results.get(0).getData());
+    }
+
+    public void testSkipOwnChanges() throws Exception {
+        ContentFileWatcher watcher = new ContentFileWatcher(contentManager, file, 50);
+        try {
+            contentManager.addPosition(Content.ContentType.TITLE, "title", "position3");
+            contentManager.addContent(Content.ContentType.URL, "url");
+            Thread.sleep(500);
+            assertEquals(0, watcher.getRefreshes());
+            otherPersistenceManager.addPosition(Content.ContentType.TITLE, "title", "position4");
+            long timeout = System.currentTimeMillis() + 10000;
+            while (contentManager.getContents(new PositionInformation("position4", null)) == null && System.currentTimeMillis() < timeout) {
+                Thread.sleep(20);
+            }
+            assertNotNull(contentManager.getContents(new PositionInformation("position4", null)));
+        } finally {
+            watcher.close();
+        }
+    }
+
+    public void testWatch() throws Exception {
+        ContentFileWatcher watcher = new ContentFileWatcher(contentManager, file, 50);
+        try {
+            otherPersistenceManager.addPosition(Content.ContentType.TITLE, "title", "position3");
+            long timeout = System.currentTimeMillis() + 10000;
+            while (contentManager.getContents(new PositionInformation("position3", null)) == null && System.currentTimeMillis() < timeout) {
+                Thread.sleep(20);
+            }
+            assertNotNull(contentManager.getContents(new PositionInformation("position3", null)));
+            assertTrue(watcher.getRefreshes() > 0);
+            assertEquals(0, watcher.getErrors());
+        } finally {
+            watcher.close();
+        }
+    }
+}
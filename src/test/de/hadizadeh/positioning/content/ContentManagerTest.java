@@ -1,12 +1,23 @@
 package test.de.hadizadeh.positioning.content;
 
 import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentKey;
+import de.hadizadeh.positioning.content.ContentList;
 import de.hadizadeh.positioning.content.ContentManager;
+import de.hadizadeh.positioning.content.ContentOperation;
+import de.hadizadeh.positioning.content.exceptions.ContentAlreadyExistsException;
 import de.hadizadeh.positioning.model.PositionInformation;
 import junit.framework.TestCase;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class ContentManagerTest extends TestCase {
     private ContentManager contentManager;
@@ -54,6 +65,14 @@ public class ContentManagerTest extends TestCase {
         assertTrue(contentManager.addPositions(types, data, positions));
     }
 
+    public void testAddPositionsPartially() throws Exception {
+        assertFalse(contentManager.addPositions(Arrays.asList(Content.ContentType.TITLE, Content.ContentType.URL, Content.ContentType.DESCRIPTION),
+                Arrays.asList("title", "missing", "description"), Arrays.asList("position1", "position1", "position")));
+        assertEquals(Collections.singleton("position1"), contentManager.getPositions(Content.ContentType.TITLE, "title"));
+        assertEquals(Collections.singleton("position"), contentManager.getPositions(Content.ContentType.DESCRIPTION, "description"));
+        assertEquals(describe(new ContentManager().getConnectedContents()), describe(contentManager.getConnectedContents()));
+    }
+
     public void testRemovePosition() throws Exception {
         assertTrue(contentManager.removePosition(Content.ContentType.DESCRIPTION, "description", "position"));
     }
@@ -71,4 +90,131 @@ public class ContentManagerTest extends TestCase {
         assertEquals(0, contentManager.getAllContents().size());
     }
 
-}
\ No newline at end of file
+    public void testConnectedContentsFollowChanges() throws Exception {
+        contentManager.addPosition(Content.ContentType.TITLE, "title", "position");
+        contentManager.addPosition(Content.ContentType.TITLE, "title", "position1");
+        contentManager.updateContent(Content.ContentType.TITLE, "title", Content.ContentType.TITLE, "title2");
+        contentManager.removePosition(Content.ContentType.DESCRIPTION, "description", "position");
+        assertEquals(1, contentManager.getContents(new PositionInformation("position", null)).size());
+        assertEquals("title2", contentManager.getContents(new PositionInformation("position1", null)).get(0).getData());
+        contentManager.removeContent(Content.ContentType.TITLE, "title2");
+        assertNull(contentManager.getContents(new PositionInformation("position", null)));
+        assertEquals(describe(new ContentManager().getConnectedContents()), describe(contentManager.getConnectedContents()));
+    }
+
+    public void testExecuteBatch() throws Exception {
+        List<Boolean> results = contentManager.executeBatch(Arrays.asList(
+                ContentOperation.addContent(Content.ContentType.URL, "url"),
+                ContentOperation.addPosition(Content.ContentType.URL, "url", "position"),
+                ContentOperation.addPosition(Content.ContentType.URL, "url", "position"),
+                ContentOperation.removeAllPositions(Content.ContentType.DESCRIPTION, "description")));
+        assertEquals(Arrays.asList(true, true, false, true), results);
+        assertEquals("url", contentManager.getContents(new PositionInformation("position", null)).get(0).getData());
+        assertEquals(4, contentManager.getAllContents().size());
+    }
+
+    public void testExecuteFailingBatch() throws Exception {
+        try {
+            contentManager.executeBatch(Arrays.asList(
+                    ContentOperation.addContent(Content.ContentType.URL, "url"),
+                    ContentOperation.updateContent(Content.ContentType.TITLE, "title", Content.ContentType.URL, "url")));
+            fail();
+        } catch (ContentAlreadyExistsException e) {
+        }
+        assertEquals(3, contentManager.getAllContents().size());
+    }
+
+    public void testConnectedContentsSnapshot() throws Exception {
+        Map<String, ContentList<Content>> snapshot = contentManager.getConnectedContents();
+        contentManager.addPosition(Content.ContentType.TITLE, "title", "position");
+        contentManager.executeBatch(Arrays.asList(
+                ContentOperation.removePosition(Content.ContentType.DESCRIPTION, "description", "position"),
+                ContentOperation.addPosition(Content.ContentType.DESCRIPTION, "description", "position")));
+        assertEquals(1, snapshot.get("position").size());
+        assertEquals(2, contentManager.getContents(new PositionInformation("position", null)).size());
+    }
+
+    public void testSharedContents() throws Exception {
+        contentManager.addPosition(Content.ContentType.DESCRIPTION, "description", "position2");
+        contentManager = new ContentManager();
+        Content content = contentManager.getContents(new PositionInformation("position", null)).get(0);
+        assertSame(content, contentManager.getContents(new PositionInformation("position2", null)).get(0));
+        assertEquals(1, contentManager.getContentRegistry().size());
+        assertTrue(contentManager.getContentRegistry().getHeapSize() > 0);
+        contentManager.removeContent(Content.ContentType.DESCRIPTION, "description");
+        assertEquals(0, contentManager.getContentRegistry().size());
+    }
+
+    public void testSharedContentsCannotBeChanged() throws Exception {
+        Content content = contentManager.getContents(new PositionInformation("position", null)).get(0);
+        try {
+            content.setData("changed");
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+        assertEquals("description", contentManager.getContents(new PositionInformation("position", null)).get(0).getData());
+    }
+
+    public void testSearch() throws Exception {
+        ContentList<Content> results = contentManager.search("description", null, 10);
+        assertEquals(1, results.size());
+        assertEquals(Arrays.asList("position"), results.get(0).getPositions());
+        contentManager.addContent(Content.ContentType.TITLE, "second description");
+        contentManager.updateContent(Content.ContentType.DESCRIPTION, "description", Content.ContentType.DESCRIPTION, "text");
+        results = contentManager.search("description", null, 10);
+        assertEquals(1, results.size());
+        assertEquals("second description", results.get(0).getData());
+        assertEquals("text", contentManager.search("text", EnumSet.of(Content.ContentType.DESCRIPTION), 10).get(0).getData());
+    }
+
+    public void testReverseLookup() throws Exception {
+        contentManager.addPosition(Content.ContentType.DESCRIPTION, "description", "position2");
+        contentManager.addPosition(Content.ContentType.TITLE, "title", "position2");
+        assertEquals(new HashSet<String>(Arrays.asList("position", "position2")), contentManager.getPositions(Content.ContentType.DESCRIPTION, "description"));
+        assertTrue(contentManager.getPositions(Content.ContentType.TEXTFILE, "file.txt").isEmpty());
+        contentManager.removePosition(Content.ContentType.DESCRIPTION, "description", "position");
+        assertEquals(Collections.singleton("position2"), contentManager.getPositions(Content.ContentType.DESCRIPTION, "description"));
+        Map<String, ContentList<Content>> contents = contentManager.getContentsForPositions(Arrays.asList("position", "position2", "unknown"));
+        assertEquals(1, contents.size());
+        assertEquals(2, contents.get("position2").size());
+    }
+
+    public void testRevertLookupsIfApplyingFails() throws Exception {
+        contentManager = new ContentManager() {
+            @Override
+            protected void applyChange(ContentOperation operation) {
+                super.applyChange(operation);
+                if ("fail".equals(operation.getPositionName())) {
+                    throw new IllegalStateException("failed");
+                }
+            }
+        };
+        Map<String, ContentList<Content>> contents = contentManager.getConnectedContents();
+        try {
+            contentManager.executeBatch(Arrays.asList(
+                    ContentOperation.addPosition(Content.ContentType.TITLE, "title", "position"),
+                    ContentOperation.updateContent(Content.ContentType.DESCRIPTION, "description", Content.ContentType.DESCRIPTION, "changed"),
+                    ContentOperation.removeAllPositions(),
+                    ContentOperation.addPosition(Content.ContentType.TEXTFILE, "file.txt", "fail")));
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        assertSame(contents, contentManager.getConnectedContents());
+        assertEquals(Collections.singleton("position"), contentManager.getPositions(Content.ContentType.DESCRIPTION, "description"));
+        assertTrue(contentManager.getPositions(Content.ContentType.DESCRIPTION, "changed").isEmpty());
+        assertTrue(contentManager.getPositions(Content.ContentType.TITLE, "title").isEmpty());
+        assertSame(contents.get("position").get(0), contentManager.getContentRegistry().get(new ContentKey(Content.ContentType.DESCRIPTION, "description")));
+    }
+
+    private static Map<String, Set<String>> describe(Map<String, ContentList<Content>> connectedContents) {
+        Map<String, Set<String>> description = new HashMap<String, Set<String>>();
+        for (Map.Entry<String, ContentList<Content>> entry : connectedContents.entrySet()) {
+            Set<String> contents = new HashSet<String>();
+            for (Content content : entry.getValue()) {
+                contents.add(content.getType() + ":" + content.getData());
+            }
+            description.put(entry.getKey(), contents);
+        }
+        return description;
+    }
+}
@@ -0,0 +1,101 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentManager;
+import de.hadizadeh.positioning.content.ContentMetrics;
+import de.hadizadeh.positioning.content.InstrumentedContentPersistenceManager;
+import de.hadizadeh.positioning.content.OperationMetrics;
+import de.hadizadeh.positioning.content.XMLContentPersistenceManager;
+import de.hadizadeh.positioning.content.exceptions.ContentSameDataException;
+import de.hadizadeh.positioning.model.PositionInformation;
+import junit.framework.TestCase;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+public class ContentMetricsTest extends TestCase {
+    private File file;
+    private ContentMetrics metrics;
+    private XMLContentPersistenceManager persistenceManager;
+    private ContentManager contentManager;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        file = new File("metricsContent.xml");
+        file.delete();
+        metrics = new ContentMetrics();
+        persistenceManager = new XMLContentPersistenceManager(file);
+        persistenceManager.setMetricsListener(metrics);
+        contentManager = new ContentManager(new InstrumentedContentPersistenceManager(persistenceManager, metrics, file));
+        contentManager.setMetricsListener(metrics);
+    }
+
+    public void tearDown() throws Exception {
+        metrics.unregisterMBeans();
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testPercentiles() throws Exception {
+        OperationMetrics operationMetrics = new OperationMetrics("operation");
+        for (int i = 1; i <= 100; i++) {
+            operationMetrics.record(i * 1000, i == 100);
+        }
+        assertEquals(100, operationMetrics.getCount());
+        assertEquals(1, operationMetrics.getErrorCount());
+        assertEquals(50.5, operationMetrics.getMeanMicros(), 0.001);
+        assertEquals(100.0, operationMetrics.getMaxMicros(), 0.001);
+        long median = operationMetrics.getPercentileNanos(50);
+        assertTrue(median >= 50000 && median < 2 * 50000);
+        assertTrue(operationMetrics.getPercentileNanos(99) <= 100000);
+    }
+
+    public void testOperations() throws Exception {
+        contentManager.addContent(Content.ContentType.TITLE, "title");
+        contentManager.addPosition(Content.ContentType.TITLE, "title", "position");
+        contentManager.getContents(new PositionInformation("position", null));
+        assertEquals(1, contentManager.getAllContents().size());
+
+        assertEquals(1, metrics.getOperationMetrics("addContent").getCount());
+        assertEquals(1, metrics.getOperationMetrics("addPosition").getCount());
+        assertEquals(1, metrics.getOperationMetrics("getContents").getCount());
+        assertEquals(2, metrics.getOperationMetrics("publish").getCount());
+        assertTrue(metrics.getOperationMetrics("parse").getCount() >= 3);
+        assertEquals(2, metrics.getOperationMetrics("save").getCount());
+        assertEquals(file.length(), metrics.getFileSize());
+        assertEquals(1, metrics.getItemCount());
+        assertEquals(1, metrics.getPositionCount());
+        assertEquals(0, metrics.getErrorCount());
+    }
+
+    public void testErrors() throws Exception {
+        contentManager.addContent(Content.ContentType.TITLE, "title");
+        try {
+            contentManager.updateContent(Content.ContentType.TITLE, "title", Content.ContentType.TITLE, "title");
+            fail();
+        } catch (ContentSameDataException e) {
+            // expected
+        }
+        assertEquals(1, metrics.getOperationMetrics("updateContent").getErrorCount());
+        assertEquals(1, metrics.getErrorCount());
+    }
+
+    public void testMBeans() throws Exception {
+        contentManager.addContent(Content.ContentType.TITLE, "title");
+        metrics.registerMBeans("test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName summary = new ObjectName(ContentMetrics.JMX_DOMAIN + ":type=ContentMetrics,name=\"test\"");
+        assertEquals(metrics.getOperationCount(), server.getAttribute(summary, "OperationCount"));
+
+        contentManager.removeContent(Content.ContentType.TITLE, "title");
+        ObjectName operation = new ObjectName(ContentMetrics.JMX_DOMAIN + ":type=ContentOperation,name=\"test\",operation=\"removeContent\"");
+        assertEquals(1L, server.getAttribute(operation, "Count"));
+
+        server.invoke(summary, "resetStatistics", null, null);
+        assertFalse(server.isRegistered(operation));
+        metrics.unregisterMBeans();
+        assertFalse(server.isRegistered(summary));
+    }
+}
@@ -0,0 +1,96 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.AssetLoader;
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentPrefetcher;
+import de.hadizadeh.positioning.content.IndexedXMLContentPersistenceManager;
+import de.hadizadeh.positioning.content.MappedContentManager;
+import de.hadizadeh.positioning.controller.MappedPositionManager;
+import de.hadizadeh.positioning.model.MappingPoint;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ContentPrefetcherTest extends TestCase {
+    private File file;
+    private File asset;
+    private MappedContentManager contentManager;
+    private ExecutorService executor;
+    private AssetLoader assetLoader;
+    private ContentPrefetcher prefetcher;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        file = new File("prefetchContentTest.xml");
+        file.delete();
+        asset = new File("prefetchAssetTest.png");
+        FileOutputStream out = new FileOutputStream(asset);
+        out.write(new byte[]{1, 2, 3});
+        out.close();
+        contentManager = new MappedContentManager(new IndexedXMLContentPersistenceManager(file));
+        contentManager.addContent(Content.ContentType.IMAGE, asset.getName());
+        contentManager.addContent(Content.ContentType.TITLE, "start");
+        contentManager.addPosition(Content.ContentType.TITLE, "start", MappedPositionManager.mappingPointToName(new MappingPoint(0, 0, 0)));
+        contentManager.addPosition(Content.ContentType.IMAGE, asset.getName(), MappedPositionManager.mappingPointToName(new MappingPoint(20, 0, 0)));
+        executor = Executors.newSingleThreadExecutor();
+        assetLoader = new AssetLoader(new File("."), 1024);
+        prefetcher = new ContentPrefetcher(contentManager, assetLoader, executor, 1);
+    }
+
+    public void tearDown() throws Exception {
+        prefetcher.close();
+        executor.shutdown();
+        file.delete();
+        asset.delete();
+        super.tearDown();
+    }
+
+    public void testPrefetchPredictedPosition() throws Exception {
+        assertNotNull(prefetcher.moveTo(new MappingPoint(0, 0, 0)));
+        assertEquals(1, prefetcher.getMisses());
+        prefetcher.moveTo(new MappingPoint(10, 0, 0));
+        waitForPrefetch();
+        assertEquals(3, assetLoader.getCachedBytes());
+        Content image = prefetcher.moveTo(new MappingPoint(20, 0, 0)).get(0);
+        assertEquals(1, prefetcher.getHits());
+        assertEquals(3, assetLoader.load(image).remaining());
+        assertEquals(1, assetLoader.getHits());
+        assertEquals(0, assetLoader.getMisses());
+    }
+
+    public void testCancelRunningPrefetch() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        prefetcher.close();
+        prefetcher = new ContentPrefetcher(contentManager, new AssetLoader(new File("."), 1024) {
+            @Override
+            public void prefetch(Content content) throws IOException {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, executor, 1);
+        prefetcher.moveTo(new MappingPoint(20, 0, 0));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        prefetcher.moveTo(new MappingPoint(0, 0, 0));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    private void waitForPrefetch() throws Exception {
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get();
+    }
+}
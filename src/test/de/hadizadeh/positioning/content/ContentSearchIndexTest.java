@@ -0,0 +1,50 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentKey;
+import de.hadizadeh.positioning.content.ContentSearchIndex;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+public class ContentSearchIndexTest extends TestCase {
+    private ContentSearchIndex index;
+    private ContentKey title;
+    private ContentKey description;
+    private ContentKey html;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        index = new ContentSearchIndex();
+        title = new ContentKey(Content.ContentType.TITLE, "Main Entrance");
+        description = new ContentKey(Content.ContentType.DESCRIPTION, "The entrance hall with the reception and the entrance doors");
+        html = new ContentKey(Content.ContentType.HTML_TEXT, "<p class=\"reception\">Coffee &amp; snacks</p>");
+        index.add(title);
+        index.add(description);
+        index.add(html);
+        assertFalse(index.add(new ContentKey(Content.ContentType.IMAGE, "entrance.png")));
+    }
+
+    public void testTokenize() throws Exception {
+        assertEquals(Arrays.asList("coffee", "snacks"), ContentSearchIndex.tokenize(Content.ContentType.HTML_TEXT, html.getData()));
+        assertEquals(Arrays.asList("a", "b1", "c"), ContentSearchIndex.tokenize(Content.ContentType.TITLE, "A, b1-C"));
+    }
+
+    public void testSearch() throws Exception {
+        assertEquals(Arrays.asList(title, description), index.search("entrance", null, 10));
+        assertEquals(Arrays.asList(description), index.search("ENTRANCE", EnumSet.of(Content.ContentType.DESCRIPTION), 10));
+        assertEquals(Arrays.asList(description, title), index.search("reception entrance", null, 2));
+        assertEquals(Arrays.asList(html), index.search("coffee", null, 10));
+        assertTrue(index.search("class", null, 10).isEmpty());
+    }
+
+    public void testRemove() throws Exception {
+        assertTrue(index.remove(description));
+        assertFalse(index.remove(description));
+        List<ContentKey> results = index.search("entrance reception", null, 10);
+        assertEquals(Arrays.asList(title), results);
+        assertEquals(2, index.size());
+    }
+}
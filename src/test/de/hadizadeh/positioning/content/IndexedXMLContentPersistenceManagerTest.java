@@ -0,0 +1,154 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentOperation;
+import de.hadizadeh.positioning.content.IndexedXMLContentPersistenceManager;
+import de.hadizadeh.positioning.content.XMLContentPersistenceManager;
+import de.hadizadeh.positioning.content.exceptions.ContentAlreadyExistsException;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import junit.framework.TestCase;
+import org.jdom2.Document;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+public class IndexedXMLContentPersistenceManagerTest extends TestCase {
+    private File file;
+    private IndexedXMLContentPersistenceManager persistenceManager;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        file = new File("indexedContentTest.xml");
+        file.delete();
+        persistenceManager = new IndexedXMLContentPersistenceManager(file);
+        persistenceManager.addContent(Content.ContentType.TITLE, "title");
+        persistenceManager.addContent(Content.ContentType.HTML_TEXT, "<b>text</b>");
+        persistenceManager.addPosition(Content.ContentType.HTML_TEXT, "<b>text</b>", "position");
+    }
+
+    public void tearDown() throws Exception {
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testAddContent() throws Exception {
+        assertFalse(persistenceManager.addContent(Content.ContentType.TITLE, "title"));
+        assertTrue(persistenceManager.addContent(Content.ContentType.DESCRIPTION, "title"));
+        assertEquals(3, persistenceManager.getAllContents().size());
+    }
+
+    public void testAddPosition() throws Exception {
+        assertFalse(persistenceManager.addPosition(Content.ContentType.HTML_TEXT, "<b>text</b>", "position"));
+        assertFalse(persistenceManager.addPosition(Content.ContentType.URL, "missing", "position"));
+        assertTrue(persistenceManager.addPosition(Content.ContentType.TITLE, "title", "position"));
+        assertEquals(2, persistenceManager.getConnectedContents().get("position").size());
+    }
+
+    public void testUpdateContent() throws Exception {
+        assertTrue(persistenceManager.updateContent(Content.ContentType.HTML_TEXT, "<b>text</b>", Content.ContentType.DESCRIPTION, "text"));
+        assertEquals("text", persistenceManager.getConnectedContents().get("position").get(0).getData());
+        try {
+            persistenceManager.updateContent(Content.ContentType.DESCRIPTION, "text", Content.ContentType.TITLE, "title");
+            fail();
+        } catch (ContentAlreadyExistsException e) {
+        }
+    }
+
+    public void testPersistedFileIsReadableByXmlManager() throws Exception {
+        XMLContentPersistenceManager xmlPersistenceManager = new XMLContentPersistenceManager(file);
+        assertEquals(persistenceManager.getAllContents().size(), xmlPersistenceManager.getAllContents().size());
+        assertEquals("<b>text</b>", xmlPersistenceManager.getConnectedContents().get("position").get(0).getData());
+        assertEquals(2, new IndexedXMLContentPersistenceManager(file).getAllContents().size());
+    }
+
+    public void testExecuteFailingBatch() throws Exception {
+        try {
+            persistenceManager.executeBatch(Arrays.asList(
+                    ContentOperation.removeContent(Content.ContentType.TITLE, "title"),
+                    ContentOperation.addContent(Content.ContentType.URL, "url"),
+                    ContentOperation.updateContent(Content.ContentType.HTML_TEXT, "<b>text</b>", Content.ContentType.URL, "url")));
+            fail();
+        } catch (ContentAlreadyExistsException e) {
+        }
+        assertEquals(2, persistenceManager.getAllContents().size());
+        assertEquals(Arrays.asList(true, true), persistenceManager.executeBatch(Arrays.asList(
+                ContentOperation.removeContent(Content.ContentType.TITLE, "title"),
+                ContentOperation.updateContent(Content.ContentType.HTML_TEXT, "<b>text</b>", Content.ContentType.TITLE, "title"))));
+        assertEquals("title", new XMLContentPersistenceManager(file).getConnectedContents().get("position").get(0).getData());
+    }
+
+    public void testReportOnlyChangingOperations() throws Exception {
+        assertEquals(Arrays.asList(false, true, false, true, false), persistenceManager.executeBatch(Arrays.asList(
+                ContentOperation.removeAllPositions(Content.ContentType.TITLE, "title"),
+                ContentOperation.removeAllPositions(Content.ContentType.HTML_TEXT, "<b>text</b>"),
+                ContentOperation.removeAllPositions(),
+                ContentOperation.removeAllContent(),
+                ContentOperation.removeAllContent())));
+    }
+
+    public void testReloadAfterFailedPersist() throws Exception {
+        final boolean[] fail = new boolean[1];
+        persistenceManager = new IndexedXMLContentPersistenceManager(file) {
+            @Override
+            protected void persist(List<ContentOperation> operations) throws ContentPersistenceException {
+                if (fail[0]) {
+                    throw new ContentPersistenceException("disk full");
+                }
+                super.persist(operations);
+            }
+        };
+        fail[0] = true;
+        try {
+            persistenceManager.executeBatch(Arrays.asList(ContentOperation.addContent(Content.ContentType.URL, "url"),
+                    ContentOperation.removeContent(Content.ContentType.TITLE, "title")));
+            fail();
+        } catch (ContentPersistenceException e) {
+        }
+        assertEquals(2, persistenceManager.getAllContents().size());
+        fail[0] = false;
+        assertTrue(persistenceManager.addContent(Content.ContentType.DESCRIPTION, "description"));
+        List<Content> contents = new IndexedXMLContentPersistenceManager(file).getAllContents();
+        assertEquals(3, contents.size());
+        assertEquals("title", contents.get(0).getData());
+    }
+
+    public void testDelayedSaveCreatesDocumentOnce() throws Exception {
+        final int[] documents = new int[1];
+        persistenceManager = new IndexedXMLContentPersistenceManager(file, 60000) {
+            @Override
+            protected Document toDocument() {
+                documents[0]++;
+                return super.toDocument();
+            }
+        };
+        try {
+            persistenceManager.addContent(Content.ContentType.URL, "url");
+            persistenceManager.addPosition(Content.ContentType.URL, "url", "position");
+            persistenceManager.removeContent(Content.ContentType.TITLE, "title");
+            assertEquals(0, documents[0]);
+            assertEquals(1, new IndexedXMLContentPersistenceManager(file).getConnectedContents().get("position").size());
+            persistenceManager.flush();
+            assertEquals(1, documents[0]);
+            persistenceManager.flush();
+            assertEquals(1, documents[0]);
+            assertEquals(2, new IndexedXMLContentPersistenceManager(file).getConnectedContents().get("position").size());
+        } finally {
+            persistenceManager.close();
+        }
+    }
+
+    public void testKeepContentsIfReloadFails() throws Exception {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        try {
+            persistenceManager.reload();
+            fail();
+        } catch (ContentPersistenceException e) {
+        }
+        assertEquals(2, persistenceManager.getAllContents().size());
+        assertTrue(persistenceManager.addContent(Content.ContentType.URL, "url"));
+        assertEquals(3, new IndexedXMLContentPersistenceManager(file).getAllContents().size());
+    }
+}
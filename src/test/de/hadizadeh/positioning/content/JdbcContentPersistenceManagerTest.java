@@ -0,0 +1,140 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentOperation;
+import de.hadizadeh.positioning.content.JdbcContentPersistenceManager;
+import de.hadizadeh.positioning.content.exceptions.ContentAlreadyExistsException;
+import de.hadizadeh.positioning.content.exceptions.ContentSameDataException;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs against the database of the system property content.jdbc.url, by default an H2 file database. The tests are
+ * reported as skipped, if there is no JDBC driver for the url on the class path.
+ */
+public class JdbcContentPersistenceManagerTest {
+    private static final String URL = System.getProperty("content.jdbc.url", "jdbc:h2:./jdbcContentTest");
+
+    private JdbcContentPersistenceManager persistenceManager;
+
+    @Before
+    public void setUp() throws Exception {
+        Assume.assumeTrue("No JDBC driver for " + URL, hasDriver());
+        persistenceManager = new JdbcContentPersistenceManager(URL);
+        persistenceManager.removeAllContent();
+        persistenceManager.addContent(Content.ContentType.TITLE, "title");
+        persistenceManager.addContent(Content.ContentType.HTML_TEXT, "<b>text</b>");
+        persistenceManager.addPosition(Content.ContentType.HTML_TEXT, "<b>text</b>", "position");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (persistenceManager != null) {
+            persistenceManager.close();
+        }
+        for (File file : new File(".").listFiles()) {
+            if (file.getName().startsWith("jdbcContentTest")) {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testAddContent() throws Exception {
+        assertFalse(persistenceManager.addContent(Content.ContentType.TITLE, "title"));
+        assertTrue(persistenceManager.addContent(Content.ContentType.DESCRIPTION, "title"));
+        assertEquals(3, persistenceManager.getAllContents().size());
+    }
+
+    @Test
+    public void testPositions() throws Exception {
+        assertFalse(persistenceManager.addPosition(Content.ContentType.HTML_TEXT, "<b>text</b>", "position"));
+        assertFalse(persistenceManager.addPosition(Content.ContentType.URL, "missing", "position"));
+        assertFalse(persistenceManager.addPositions(Arrays.asList(Content.ContentType.TITLE, Content.ContentType.TITLE, Content.ContentType.URL),
+                Arrays.asList("title", "title", "missing"), Arrays.asList("position", "position", "position")));
+        assertEquals(2, persistenceManager.getContents("position").size());
+        assertEquals(Collections.singletonList("position"), persistenceManager.getPositions(Content.ContentType.TITLE, "title"));
+        assertTrue(persistenceManager.removePosition(Content.ContentType.TITLE, "title", "position"));
+        assertFalse(persistenceManager.removePosition(Content.ContentType.TITLE, "title", "position"));
+        assertTrue(persistenceManager.removeAllPositions(Content.ContentType.HTML_TEXT, "<b>text</b>"));
+        assertFalse(persistenceManager.removeAllPositions(Content.ContentType.HTML_TEXT, "<b>text</b>"));
+        assertTrue(persistenceManager.getConnectedContents().isEmpty());
+        assertEquals(2, persistenceManager.getAllContents().size());
+    }
+
+    @Test
+    public void testUpdateContent() throws Exception {
+        assertTrue(persistenceManager.updateContent(Content.ContentType.HTML_TEXT, "<b>text</b>", Content.ContentType.HTML_TEXT, "<i>text</i>"));
+        assertEquals("<i>text</i>", persistenceManager.getContents("position").get(0).getData());
+        try {
+            persistenceManager.updateContent(Content.ContentType.TITLE, "title", Content.ContentType.TITLE, "title");
+            fail();
+        } catch (ContentSameDataException e) {
+            // expected
+        }
+        try {
+            persistenceManager.updateContent(Content.ContentType.TITLE, "title", Content.ContentType.HTML_TEXT, "<i>text</i>");
+            fail();
+        } catch (ContentAlreadyExistsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBatchIsAtomic() throws Exception {
+        try {
+            persistenceManager.executeBatch(Arrays.asList(ContentOperation.addContent(Content.ContentType.URL, "url"),
+                    ContentOperation.updateContent(Content.ContentType.TITLE, "title", Content.ContentType.URL, "url")));
+            fail();
+        } catch (ContentAlreadyExistsException e) {
+            // expected
+        }
+        assertEquals(2, persistenceManager.getAllContents().size());
+        assertEquals(Arrays.asList(true, true), persistenceManager.executeBatch(Arrays.asList(
+                ContentOperation.addContent(Content.ContentType.URL, "url"), ContentOperation.addPosition(Content.ContentType.URL, "url", "position2"))));
+        assertEquals(2, persistenceManager.getConnectedContents().size());
+    }
+
+    @Test
+    public void testSharedContents() throws Exception {
+        persistenceManager.addPosition(Content.ContentType.HTML_TEXT, "<b>text</b>", "position2");
+        Content content = persistenceManager.getContents("position").get(0);
+        assertSame(content, persistenceManager.getContents("position2").get(0));
+        assertSame(content, persistenceManager.getConnectedContents().get("position").get(0));
+        assertSame(content.getData(), persistenceManager.getAllContents().getContent(Content.ContentType.HTML_TEXT).getData());
+        try {
+            content.setData("changed");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        persistenceManager.close();
+        persistenceManager = new JdbcContentPersistenceManager(URL);
+        assertTrue(persistenceManager.addContent(Content.ContentType.URL, "url"));
+        assertEquals(3, persistenceManager.getAllContents().size());
+        assertEquals(1, persistenceManager.getConnectedContents().get("position").size());
+    }
+
+    private static boolean hasDriver() {
+        try {
+            DriverManager.getDriver(URL);
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+}
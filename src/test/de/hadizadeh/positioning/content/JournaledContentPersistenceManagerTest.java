@@ -0,0 +1,120 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.JournaledContentPersistenceManager;
+import de.hadizadeh.positioning.content.XMLContentPersistenceManager;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import junit.framework.TestCase;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+
+public class JournaledContentPersistenceManagerTest extends TestCase {
+    private File file;
+    private File journalFile;
+    private JournaledContentPersistenceManager persistenceManager;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        file = new File("journaledContentTest.xml");
+        journalFile = new File("journaledContentTest.xml.journal");
+        file.delete();
+        journalFile.delete();
+        persistenceManager = new JournaledContentPersistenceManager(file, JournaledContentPersistenceManager.SyncMode.BATCH, 10, 100);
+        persistenceManager.addContent(Content.ContentType.TITLE, "title");
+        persistenceManager.addContent(Content.ContentType.DESCRIPTION, "description");
+        persistenceManager.addPosition(Content.ContentType.DESCRIPTION, "description", "position");
+        persistenceManager.updateContent(Content.ContentType.TITLE, "title", Content.ContentType.TITLE, "title2");
+    }
+
+    public void tearDown() throws Exception {
+        persistenceManager.close();
+        file.delete();
+        journalFile.delete();
+        super.tearDown();
+    }
+
+    public void testReplayJournal() throws Exception {
+        assertEquals(0, new XMLContentPersistenceManager(file).getAllContents().size());
+        persistenceManager.close();
+        persistenceManager = new JournaledContentPersistenceManager(file);
+        assertEquals(2, persistenceManager.getAllContents().size());
+        assertEquals("description", persistenceManager.getConnectedContents().get("position").get(0).getData());
+        assertFalse(persistenceManager.addContent(Content.ContentType.TITLE, "title2"));
+    }
+
+    public void testCompact() throws Exception {
+        persistenceManager.compact();
+        assertEquals(0, journalFile.length());
+        assertEquals(2, new XMLContentPersistenceManager(file).getAllContents().size());
+    }
+
+    public void testIgnoreIncompleteRecord() throws Exception {
+        persistenceManager.close();
+        long length = journalFile.length();
+        FileOutputStream out = new FileOutputStream(journalFile, true);
+        out.write(new byte[]{0, 0, 0, 42, 1});
+        out.close();
+        persistenceManager = new JournaledContentPersistenceManager(file);
+        assertEquals(2, persistenceManager.getAllContents().size());
+        assertEquals(length, journalFile.length());
+    }
+
+    public void testSkipCompactedRecordsAfterCrash() throws Exception {
+        persistenceManager.removeAllContent();
+        persistenceManager.addContent(Content.ContentType.TITLE, "a");
+        persistenceManager.addPosition(Content.ContentType.TITLE, "a", "p");
+        persistenceManager.addContent(Content.ContentType.TITLE, "b");
+        persistenceManager.compact();
+        persistenceManager.removeContent(Content.ContentType.TITLE, "b");
+        persistenceManager.updateContent(Content.ContentType.TITLE, "a", Content.ContentType.TITLE, "b");
+        persistenceManager.addContent(Content.ContentType.TITLE, "a");
+        persistenceManager.sync();
+        byte[] journal = Files.readAllBytes(journalFile.toPath());
+        persistenceManager.compact();
+        persistenceManager.close();
+        // crash after writing the snapshot, but before emptying the journal
+        Files.write(journalFile.toPath(), journal);
+
+        persistenceManager = new JournaledContentPersistenceManager(file);
+        assertEquals(2, persistenceManager.getAllContents().size());
+        assertEquals("b", persistenceManager.getConnectedContents().get("p").get(0).getData());
+        persistenceManager.addContent(Content.ContentType.TITLE, "c");
+        persistenceManager.close();
+        persistenceManager = new JournaledContentPersistenceManager(file);
+        assertEquals(3, persistenceManager.getAllContents().size());
+        assertEquals("b", persistenceManager.getConnectedContents().get("p").get(0).getData());
+    }
+
+    public void testRejectTimedSyncWithoutInterval() throws Exception {
+        try {
+            new JournaledContentPersistenceManager(file, JournaledContentPersistenceManager.SyncMode.TIMED, 0, 100);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testRejectUnknownRecordType() throws Exception {
+        persistenceManager.close();
+        byte[] record = new byte[]{0, 0, 0, 0, 0, 0, 0, 99, 42};
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(journalFile, true));
+        out.writeInt(record.length);
+        out.writeInt((int) crc.getValue());
+        out.write(record);
+        out.close();
+        try {
+            persistenceManager = new JournaledContentPersistenceManager(file);
+            fail();
+        } catch (ContentPersistenceException e) {
+            assertTrue(e.getMessage().contains("unknown type"));
+        }
+        journalFile.delete();
+        persistenceManager = new JournaledContentPersistenceManager(file);
+    }
+}
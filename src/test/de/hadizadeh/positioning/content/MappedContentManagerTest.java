@@ -0,0 +1,74 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentList;
+import de.hadizadeh.positioning.content.IndexedXMLContentPersistenceManager;
+import de.hadizadeh.positioning.content.MappedContentManager;
+import de.hadizadeh.positioning.controller.MappedPositionManager;
+import de.hadizadeh.positioning.model.MappingPoint;
+import de.hadizadeh.positioning.model.PositionInformation;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Map;
+
+public class MappedContentManagerTest extends TestCase {
+    private File file;
+    private MappedContentManager contentManager;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        file = new File("mappedContentTest.xml");
+        file.delete();
+        contentManager = new MappedContentManager(new IndexedXMLContentPersistenceManager(file));
+        contentManager.addContent(Content.ContentType.TITLE, "entrance");
+        contentManager.addContent(Content.ContentType.TITLE, "office");
+        contentManager.addPosition(Content.ContentType.TITLE, "entrance", name(0, 0, 0));
+        contentManager.addPosition(Content.ContentType.TITLE, "office", name(10, 2, 0));
+        contentManager.addPosition(Content.ContentType.TITLE, "office", "unmapped");
+    }
+
+    public void tearDown() throws Exception {
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testGetContents() throws Exception {
+        assertEquals("office", contentManager.getContents(new MappingPoint(10, 2, 0)).get(0).getData());
+        assertNull(contentManager.getContents(10, 3, 0));
+        contentManager.removeContent(Content.ContentType.TITLE, "office");
+        assertNull(contentManager.getContents(10, 2, 0));
+        contentManager.addPosition(Content.ContentType.TITLE, "entrance", name(-5, 7, 1));
+        assertSame(contentManager.getContents(new PositionInformation(name(-5, 7, 1), null)), contentManager.getContents(-5, 7, 1));
+    }
+
+    public void testGetNearestContents() throws Exception {
+        Map<String, ContentList<Content>> nearest = contentManager.getNearestContents(new MappingPoint(8, 1, 0), 2);
+        assertEquals(2, nearest.size());
+        assertEquals(name(10, 2, 0), nearest.keySet().iterator().next());
+        assertEquals("entrance", new ArrayList<ContentList<Content>>(nearest.values()).get(1).get(0).getData());
+    }
+
+    public void testGetContentsWithinRadius() throws Exception {
+        assertTrue(contentManager.getContents(new MappingPoint(1, 1, 0), 1.0).isEmpty());
+        assertEquals(1, contentManager.getContents(new MappingPoint(1, 1, 0), 1.5).size());
+        contentManager.removePosition(Content.ContentType.TITLE, "entrance", new MappingPoint(0, 0, 0));
+        assertTrue(contentManager.getContents(new MappingPoint(1, 1, 0), 1.5).isEmpty());
+        contentManager.addPosition(Content.ContentType.TITLE, "entrance", name(1, 2, 0));
+        assertEquals("entrance", contentManager.getContents(new MappingPoint(1, 1, 0), 1.5).get(name(1, 2, 0)).get(0).getData());
+    }
+
+    public void testRemoveAllPositions() throws Exception {
+        contentManager.removeAllPositions();
+        assertNull(contentManager.getContents(0, 0, 0));
+        assertTrue(contentManager.getNearestContents(new MappingPoint(0, 0, 0), 2).isEmpty());
+        contentManager.addPosition(Content.ContentType.TITLE, "office", name(3, 0, 0));
+        assertEquals("office", contentManager.getContents(3, 0, 0).get(0).getData());
+        assertEquals(1, contentManager.getNearestContents(new MappingPoint(0, 0, 0), 2).size());
+    }
+
+    private static String name(int x, int y, int z) {
+        return MappedPositionManager.mappingPointToName(new MappingPoint(x, y, z));
+    }
+}
@@ -0,0 +1,78 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.MappingPointIndex;
+import de.hadizadeh.positioning.model.MappingPoint;
+import junit.framework.TestCase;
+
+import java.util.*;
+
+public class MappingPointIndexTest extends TestCase {
+    private MappingPointIndex index;
+    private Map<String, MappingPoint> points;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        index = new MappingPointIndex(3);
+        points = new HashMap<String, MappingPoint>();
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            MappingPoint point = new MappingPoint(random.nextInt(60) - 30, random.nextInt(60) - 30, random.nextInt(3));
+            String name = point.getX() + "_" + point.getY() + "_" + point.getZ();
+            points.put(name, point);
+            index.add(name, point);
+        }
+    }
+
+    public void testAddAndRemove() throws Exception {
+        assertEquals(points.size(), index.size());
+        String name = points.keySet().iterator().next();
+        assertFalse(index.add(name, points.get(name)));
+        assertTrue(index.remove(name, points.get(name)));
+        assertFalse(index.remove(name, points.get(name)));
+        assertEquals(points.size() - 1, index.size());
+        assertFalse(index.getNearest(points.get(name), 1).contains(name));
+    }
+
+    public void testGetNearest() throws Exception {
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            MappingPoint point = new MappingPoint(random.nextInt(100) - 50, random.nextInt(100) - 50, random.nextInt(5) - 1);
+            List<String> nearest = index.getNearest(point, 5);
+            assertEquals(5, nearest.size());
+            assertEquals(bruteForce(point, Double.MAX_VALUE).subList(0, 5), nearest);
+        }
+    }
+
+    public void testGetWithin() throws Exception {
+        Random random = new Random(11);
+        for (int i = 0; i < 50; i++) {
+            MappingPoint point = new MappingPoint(random.nextInt(60) - 30, random.nextInt(60) - 30, random.nextInt(3));
+            assertEquals(bruteForce(point, 4.5), index.getWithin(point, 4.5));
+        }
+    }
+
+    private List<String> bruteForce(final MappingPoint point, double radius) {
+        List<String> names = new ArrayList<String>();
+        for (Map.Entry<String, MappingPoint> entry : points.entrySet()) {
+            if (distance(entry.getValue(), point) <= radius * radius) {
+                names.add(entry.getKey());
+            }
+        }
+        Collections.sort(names, new Comparator<String>() {
+            @Override
+            public int compare(String name1, String name2) {
+                long distance1 = distance(points.get(name1), point);
+                long distance2 = distance(points.get(name2), point);
+                return distance1 != distance2 ? (distance1 < distance2 ? -1 : 1) : name1.compareTo(name2);
+            }
+        });
+        return names;
+    }
+
+    private static long distance(MappingPoint point1, MappingPoint point2) {
+        long dx = point1.getX() - point2.getX();
+        long dy = point1.getY() - point2.getY();
+        long dz = point1.getZ() - point2.getZ();
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
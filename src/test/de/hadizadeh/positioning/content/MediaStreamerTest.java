@@ -0,0 +1,116 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.AssetLoader;
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.MediaStreamer;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class MediaStreamerTest extends TestCase {
+    private File file;
+    private byte[] bytes;
+    private ExecutorService executor;
+    private MediaStreamer mediaStreamer;
+    private Content movie;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        file = new File("mediaStreamerTest.mp4");
+        bytes = new byte[10000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(bytes);
+        out.close();
+        executor = Executors.newFixedThreadPool(2);
+        mediaStreamer = new MediaStreamer(new AssetLoader(new File("."), 0), executor, 1024);
+        movie = new Content(Content.ContentType.MOVIE, file.getName());
+    }
+
+    public void tearDown() throws Exception {
+        executor.shutdown();
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testStreamRange() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(500, mediaStreamer.stream(movie, 9500, 1000, Channels.newChannel(out)));
+        assertTrue(Arrays.equals(Arrays.copyOfRange(bytes, 9500, 10000), out.toByteArray()));
+        assertEquals(0, mediaStreamer.getActiveTransfers());
+    }
+
+    public void testStreamAsync() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MediaStreamer.Transfer transfer = mediaStreamer.streamAsync(movie, 100, Long.MAX_VALUE, Channels.newChannel(out));
+        assertEquals(9900, transfer.get().longValue());
+        assertEquals(10000, transfer.getPosition());
+        assertTrue(Arrays.equals(Arrays.copyOfRange(bytes, 100, 10000), out.toByteArray()));
+        assertEquals(9900, mediaStreamer.getTransferredBytes());
+        assertEquals(0, mediaStreamer.getActiveTransfers());
+    }
+
+    public void testStreamTruncatedFile() throws Exception {
+        try {
+            mediaStreamer.stream(movie, 0, Long.MAX_VALUE, new TruncatingChannel());
+            fail();
+        } catch (IOException e) {
+        }
+        assertEquals(0, mediaStreamer.getActiveTransfers());
+    }
+
+    public void testStreamAsyncTruncatedFile() throws Exception {
+        MediaStreamer.Transfer transfer = mediaStreamer.streamAsync(movie, 0, Long.MAX_VALUE, new TruncatingChannel());
+        try {
+            transfer.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(2000, transfer.getPosition());
+        assertEquals(0, mediaStreamer.getActiveTransfers());
+    }
+
+    /**
+     * Channel which truncates the streamed file after the first write
+     */
+    private class TruncatingChannel implements WritableByteChannel {
+        private boolean truncated;
+
+        @Override
+        public int write(ByteBuffer buffer) throws IOException {
+            int bytes = buffer.remaining();
+            buffer.position(buffer.limit());
+            if (!truncated) {
+                truncated = true;
+                RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+                randomAccessFile.setLength(2000);
+                randomAccessFile.close();
+            }
+            return bytes;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.PersistentHashMap;
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class PersistentHashMapTest extends TestCase {
+
+    public void testMatchesHashMap() throws Exception {
+        PersistentHashMap<Object, String> map = PersistentHashMap.empty();
+        Map<Object, String> expected = new HashMap<Object, String>();
+        Random random = new Random(5);
+        for (int i = 0; i < 20000; i++) {
+            Object key = random.nextBoolean() ? "position" + random.nextInt(1000) : new CollidingKey(random.nextInt(20));
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.without(key);
+            } else {
+                expected.put(key, "value" + i);
+                map = map.with(key, "value" + i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        assertEquals(expected, new HashMap<Object, String>(map));
+        for (Object key : expected.keySet()) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertNull(map.get("missing"));
+    }
+
+    public void testSharesUnchangedMap() throws Exception {
+        PersistentHashMap<String, String> map = PersistentHashMap.<String, String>empty().with("a", "1").with("b", "2");
+        PersistentHashMap<String, String> changed = map.with("c", "3").without("a");
+        assertEquals(2, map.size());
+        assertEquals("1", map.get("a"));
+        assertNull(map.get("c"));
+        assertEquals(2, changed.size());
+        assertNull(changed.get("a"));
+        assertSame(map, map.without("missing"));
+        assertSame(map, map.with("a", "1"));
+        try {
+            map.put("d", "4");
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    private static class CollidingKey {
+        private final int id;
+
+        private CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 3;
+        }
+    }
+}
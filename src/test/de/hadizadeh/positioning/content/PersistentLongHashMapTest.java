@@ -0,0 +1,62 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.PersistentLongHashMap;
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class PersistentLongHashMapTest extends TestCase {
+
+    public void testMatchesHashMap() throws Exception {
+        PersistentLongHashMap<String> map = PersistentLongHashMap.empty();
+        Map<Long, String> expected = new HashMap<Long, String>();
+        Random random = new Random(3);
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                boolean contained = expected.remove(key) != null;
+                PersistentLongHashMap<String> changed = map.without(key);
+                assertEquals(contained, changed != map);
+                map = changed;
+            } else {
+                map = map.with(key, "value" + i);
+                expected.put(key, "value" + i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = -1000; key < 1000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    public void testChangesKeepPreviousMap() throws Exception {
+        PersistentLongHashMap<String> map = PersistentLongHashMap.<String>empty().with(1L, "one");
+        PersistentLongHashMap<String> changed = map.with(2L, "two").without(1L);
+        assertEquals("one", map.get(1L));
+        assertNull(map.get(2L));
+        assertEquals(1, map.size());
+        assertNull(changed.get(1L));
+        assertEquals("two", changed.get(2L));
+        assertEquals(1, changed.size());
+        assertSame(map, map.with(1L, map.get(1L)));
+    }
+
+    public void testExtremeKeys() throws Exception {
+        long[] keys = new long[]{0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, 1L << 63 >>> 1, 1L << 42, (1L << 42) + 1};
+        PersistentLongHashMap<Long> map = PersistentLongHashMap.empty();
+        for (long key : keys) {
+            map = map.with(key, key);
+        }
+        assertEquals(keys.length, map.size());
+        for (long key : keys) {
+            assertEquals(Long.valueOf(key), map.get(key));
+        }
+        for (long key : keys) {
+            map = map.without(key);
+            assertFalse(map.containsKey(key));
+        }
+        assertEquals(0, map.size());
+    }
+}
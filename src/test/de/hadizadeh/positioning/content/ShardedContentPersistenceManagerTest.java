@@ -0,0 +1,169 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentList;
+import de.hadizadeh.positioning.content.ContentManager;
+import de.hadizadeh.positioning.content.ContentOperation;
+import de.hadizadeh.positioning.content.IndexedXMLContentPersistenceManager;
+import de.hadizadeh.positioning.content.ShardedContentPersistenceManager;
+import de.hadizadeh.positioning.content.XMLContentPersistenceManager;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import de.hadizadeh.positioning.model.PositionInformation;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeSet;
+
+public class ShardedContentPersistenceManagerTest extends TestCase {
+    private File directory;
+    private File file;
+    private ShardedContentPersistenceManager persistenceManager;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        directory = new File("shardedContentTest");
+        deleteDirectory();
+        directory.mkdir();
+        file = new File(directory, "positionContent.xml");
+        persistenceManager = new ShardedContentPersistenceManager(file, ShardedContentPersistenceManager.byFloor());
+        persistenceManager.addContent(Content.ContentType.TITLE, "title");
+        persistenceManager.addContent(Content.ContentType.DESCRIPTION, "description");
+        persistenceManager.addPosition(Content.ContentType.TITLE, "title", "1_1_0");
+        persistenceManager.addPosition(Content.ContentType.TITLE, "title", "2_2_1");
+        persistenceManager.addPosition(Content.ContentType.DESCRIPTION, "description", "3_3_1");
+    }
+
+    public void tearDown() throws Exception {
+        persistenceManager.close();
+        deleteDirectory();
+        super.tearDown();
+    }
+
+    public void testLoad() throws Exception {
+        assertEquals(2, persistenceManager.getShardFiles().size());
+        ShardedContentPersistenceManager loaded = new ShardedContentPersistenceManager(file, ShardedContentPersistenceManager.byFloor());
+        assertEquals(toString(persistenceManager.getConnectedContents()), toString(loaded.getConnectedContents()));
+        assertEquals(2, loaded.getAllContents().size());
+        assertEquals(0, new XMLContentPersistenceManager(file).getConnectedContents().size());
+    }
+
+    public void testWritesOnlyAffectedShard() throws Exception {
+        File floor0 = new File(directory, "positionContent.shard-0.xml");
+        File floor1 = new File(directory, "positionContent.shard-1.xml");
+        byte[] catalogBytes = Files.readAllBytes(file.toPath());
+        byte[] floor1Bytes = Files.readAllBytes(floor1.toPath());
+        assertTrue(persistenceManager.addPosition(Content.ContentType.DESCRIPTION, "description", "4_4_0"));
+        assertTrue(Arrays.equals(catalogBytes, Files.readAllBytes(file.toPath())));
+        assertTrue(Arrays.equals(floor1Bytes, Files.readAllBytes(floor1.toPath())));
+        assertEquals(2, new XMLContentPersistenceManager(floor0).getAllContents().size());
+
+        assertTrue(persistenceManager.removePosition(Content.ContentType.TITLE, "title", "1_1_0"));
+        assertEquals(1, new XMLContentPersistenceManager(floor0).getAllContents().size());
+        assertTrue(Arrays.equals(floor1Bytes, Files.readAllBytes(floor1.toPath())));
+    }
+
+    public void testUpdateAndRemove() throws Exception {
+        assertTrue(persistenceManager.updateContent(Content.ContentType.TITLE, "title", Content.ContentType.TITLE, "title2"));
+        assertTrue(persistenceManager.removeContent(Content.ContentType.DESCRIPTION, "description"));
+        ShardedContentPersistenceManager loaded = new ShardedContentPersistenceManager(file, ShardedContentPersistenceManager.byFloor());
+        ContentList<Content> contents = loaded.getAllContents();
+        assertEquals(1, contents.size());
+        assertEquals("title2", contents.get(0).getData());
+        assertEquals(2, contents.get(0).getPositions().size());
+        loaded.removeAllPositions();
+        assertTrue(new ShardedContentPersistenceManager(file, ShardedContentPersistenceManager.byFloor()).getConnectedContents().isEmpty());
+    }
+
+    public void testMoveSingleFile() throws Exception {
+        File singleFile = new File(directory, "single.xml");
+        IndexedXMLContentPersistenceManager single = new IndexedXMLContentPersistenceManager(singleFile);
+        single.addContent(Content.ContentType.TITLE, "title");
+        single.addPosition(Content.ContentType.TITLE, "title", "1_1_0");
+        single.addPosition(Content.ContentType.TITLE, "title", "2_2_5");
+        ShardedContentPersistenceManager sharded = new ShardedContentPersistenceManager(singleFile, ShardedContentPersistenceManager.byFloor());
+        assertEquals(toString(single.getConnectedContents()), toString(sharded.getConnectedContents()));
+        assertEquals(2, sharded.getShardFiles().size());
+        assertEquals(0, new XMLContentPersistenceManager(singleFile).getConnectedContents().size());
+    }
+
+    public void testFailedBatchChangesNoFile() throws Exception {
+        File floor0 = new File(directory, "positionContent.shard-0.xml");
+        File floor1 = new File(directory, "positionContent.shard-1.xml");
+        byte[] floor0Bytes = Files.readAllBytes(floor0.toPath());
+        byte[] floor1Bytes = Files.readAllBytes(floor1.toPath());
+        File blockedTempFile = new File(directory, "positionContent.shard-1.xml.tmp");
+        blockedTempFile.mkdir();
+        try {
+            persistenceManager.executeBatch(Arrays.asList(
+                    ContentOperation.addPosition(Content.ContentType.DESCRIPTION, "description", "4_4_0"),
+                    ContentOperation.addPosition(Content.ContentType.DESCRIPTION, "description", "5_5_1")));
+            fail();
+        } catch (ContentPersistenceException e) {
+        }
+        assertTrue(Arrays.equals(floor0Bytes, Files.readAllBytes(floor0.toPath())));
+        assertTrue(Arrays.equals(floor1Bytes, Files.readAllBytes(floor1.toPath())));
+        assertFalse(new File(directory, "positionContent.shard-0.xml.tmp").exists());
+        assertEquals(3, persistenceManager.getConnectedContents().size());
+        blockedTempFile.delete();
+        assertTrue(persistenceManager.addPosition(Content.ContentType.DESCRIPTION, "description", "5_5_1"));
+        assertEquals(2, new XMLContentPersistenceManager(floor1).getAllContents().size());
+    }
+
+    public void testDelayedSave() throws Exception {
+        persistenceManager.close();
+        persistenceManager = new ShardedContentPersistenceManager(file, ShardedContentPersistenceManager.byFloor(), 60000, 1);
+        persistenceManager.addPosition(Content.ContentType.DESCRIPTION, "description", "4_4_0");
+        persistenceManager.addPosition(Content.ContentType.DESCRIPTION, "description", "5_5_1");
+        assertEquals(1, new XMLContentPersistenceManager(new File(directory, "positionContent.shard-0.xml")).getAllContents().size());
+        persistenceManager.flush();
+        ShardedContentPersistenceManager loaded = new ShardedContentPersistenceManager(file, ShardedContentPersistenceManager.byFloor());
+        assertEquals(toString(persistenceManager.getConnectedContents()), toString(loaded.getConnectedContents()));
+    }
+
+    public void testRefreshContents() throws Exception {
+        ContentManager contentManager = new ContentManager(persistenceManager);
+        IndexedXMLContentPersistenceManager floor0 = new IndexedXMLContentPersistenceManager(new File(directory, "positionContent.shard-0.xml"));
+        floor0.addPosition(Content.ContentType.TITLE, "title", "5_5_0");
+        assertEquals(1, contentManager.refreshContents());
+        assertEquals(1, contentManager.getContents(new PositionInformation("5_5_0", null)).size());
+
+        File floor1 = new File(directory, "positionContent.shard-1.xml");
+        byte[] bytes = Files.readAllBytes(floor1.toPath());
+        Files.write(floor1.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        try {
+            contentManager.refreshContents();
+            fail();
+        } catch (ContentPersistenceException e) {
+        }
+        assertEquals(4, persistenceManager.getConnectedContents().size());
+        Files.write(floor1.toPath(), bytes);
+        assertTrue(persistenceManager.addPosition(Content.ContentType.DESCRIPTION, "description", "6_6_0"));
+        ShardedContentPersistenceManager loaded = new ShardedContentPersistenceManager(file, ShardedContentPersistenceManager.byFloor());
+        assertEquals(toString(persistenceManager.getConnectedContents()), toString(loaded.getConnectedContents()));
+        assertEquals(5, loaded.getConnectedContents().size());
+    }
+
+    private static String toString(Map<String, ContentList<Content>> connectedContents) {
+        StringBuilder text = new StringBuilder();
+        for (String positionName : new TreeSet<String>(connectedContents.keySet())) {
+            text.append(positionName).append(':');
+            for (Content content : connectedContents.get(positionName)) {
+                text.append(content.getType()).append('=').append(content.getData()).append(',');
+            }
+        }
+        return text.toString();
+    }
+
+    private void deleteDirectory() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                child.delete();
+            }
+        }
+        directory.delete();
+    }
+}
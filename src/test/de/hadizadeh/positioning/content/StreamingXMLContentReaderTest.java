@@ -0,0 +1,96 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.StreamingXMLContentReader;
+import junit.framework.TestCase;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.input.SAXBuilder;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class StreamingXMLContentReaderTest extends TestCase {
+    private static final String CONTENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<positionContent>\n"
+            + "  <item type=\"HTML_TEXT\">\n"
+            + "    <data><![CDATA[<b>text</b> & more]]></data>\n"
+            + "    <position>position1</position>\n"
+            + "    <position>position2</position>\n"
+            + "  </item>\n"
+            + "  <item type=\"TITLE\">\n"
+            + "    <data>Caf&#233; &amp; &lt;bar&gt; \u00e4</data>\n"
+            + "  </item>\n"
+            + "  <item type=\"URL\"><data>http://hadizadeh.de/?a=1&amp;b=2</data><position>position1</position></item>\n"
+            + "</positionContent>\n";
+
+    private StreamingXMLContentReader reader;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        reader = new StreamingXMLContentReader();
+    }
+
+    public void testReadItems() throws Exception {
+        List<String> items = read(CONTENT);
+        assertEquals(Arrays.asList(
+                "HTML_TEXT|<b>text</b> & more|[position1, position2]",
+                "TITLE|Caf\u00e9 & <bar> \u00e4|[]",
+                "URL|http://hadizadeh.de/?a=1&b=2|[position1]"), items);
+    }
+
+    public void testMatchesDocument() throws Exception {
+        List<String> items = new ArrayList<String>();
+        Document doc = new SAXBuilder().build(new ByteArrayInputStream(CONTENT.getBytes("UTF-8")));
+        for (Element item : doc.getRootElement().getChildren()) {
+            List<String> positions = new ArrayList<String>();
+            for (Element position : item.getChildren("position")) {
+                positions.add(position.getValue());
+            }
+            items.add(describe(Content.ContentType.valueOf(item.getAttributeValue("type")), item.getChild("data").getValue(), positions));
+        }
+        assertEquals(items, read(CONTENT));
+    }
+
+    public void testEmptyRoot() throws Exception {
+        assertEquals(Collections.<String>emptyList(), read("<positionContent/>"));
+        assertEquals(Collections.<String>emptyList(), read("<?xml version=\"1.0\"?><positionContent>\n</positionContent>"));
+    }
+
+    public void testMalformedFile() throws Exception {
+        try {
+            read(CONTENT.substring(0, CONTENT.length() / 2));
+            fail();
+        } catch (XMLStreamException e) {
+        }
+        try {
+            read("<positionContent><item type=\"TITLE\"><position>position</position></item></positionContent>");
+            fail();
+        } catch (XMLStreamException e) {
+        }
+        try {
+            read("<positionContent><item type=\"UNKNOWN\"><data>data</data></item></positionContent>");
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    private List<String> read(String xml) throws Exception {
+        final List<String> items = new ArrayList<String>();
+        reader.read(new ByteArrayInputStream(xml.getBytes("UTF-8")), new StreamingXMLContentReader.ItemHandler() {
+            @Override
+            public void onItem(Content.ContentType contentType, String data, List<String> positions) {
+                items.add(describe(contentType, data, positions));
+            }
+        });
+        return items;
+    }
+
+    private static String describe(Content.ContentType contentType, String data, List<String> positions) {
+        return contentType + "|" + data + "|" + positions;
+    }
+}
@@ -0,0 +1,64 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.TypedContentList;
+import junit.framework.TestCase;
+
+import java.util.Iterator;
+import java.util.List;
+
+public class TypedContentListTest extends TestCase {
+    private TypedContentList contentList;
+    private Content description1;
+    private Content description2;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        description1 = new Content(Content.ContentType.DESCRIPTION, "Description1");
+        description2 = new Content(Content.ContentType.DESCRIPTION, "Description2");
+        contentList = new TypedContentList();
+        contentList.add(new Content(Content.ContentType.TITLE, "Title"));
+        contentList.add(description1);
+        contentList.add(description2);
+        contentList.add(new Content(Content.ContentType.TEXTFILE, "file.txt"));
+    }
+
+    public void testGetContent() throws Exception {
+        assertSame(description1, contentList.getContent(Content.ContentType.DESCRIPTION));
+        assertNull(contentList.getContent(Content.ContentType.IMAGE));
+    }
+
+    public void testGetContentsFollowsChanges() throws Exception {
+        List<Content> descriptions = contentList.getContents(Content.ContentType.DESCRIPTION);
+        assertEquals(2, descriptions.size());
+        contentList.add(1, new Content(Content.ContentType.DESCRIPTION, "Description0"));
+        assertEquals("Description0", descriptions.get(0).getData());
+        contentList.set(0, new Content(Content.ContentType.DESCRIPTION, "Title"));
+        assertEquals(4, contentList.count(Content.ContentType.DESCRIPTION));
+        assertEquals(0, contentList.count(Content.ContentType.TITLE));
+        Iterator<Content> iterator = contentList.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(3, descriptions.size());
+        contentList.subList(0, 2).clear();
+        assertSame(description2, contentList.getContent(Content.ContentType.DESCRIPTION));
+        contentList.subList(0, 1).set(0, new Content(Content.ContentType.IMAGE, "image.png"));
+        assertTrue(descriptions.isEmpty());
+        assertEquals("image.png", contentList.getContent(Content.ContentType.IMAGE).getData());
+        try {
+            descriptions.add(description1);
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    public void testGetContentsOfMissingType() throws Exception {
+        List<Content> images = contentList.getContents(Content.ContentType.IMAGE);
+        assertTrue(images.isEmpty());
+        TypedContentList clone = (TypedContentList) contentList.clone();
+        contentList.add(new Content(Content.ContentType.IMAGE, "image.png"));
+        assertEquals(1, images.size());
+        assertTrue(clone.getContents(Content.ContentType.IMAGE).isEmpty());
+        assertEquals(2, clone.count(Content.ContentType.DESCRIPTION));
+    }
+}
@@ -0,0 +1,144 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentOperation;
+import de.hadizadeh.positioning.content.IndexedXMLContentPersistenceManager;
+import de.hadizadeh.positioning.content.WriteBehindContentManager;
+import de.hadizadeh.positioning.content.exceptions.ContentAlreadyExistsException;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import de.hadizadeh.positioning.content.exceptions.ContentSameDataException;
+import de.hadizadeh.positioning.model.PositionInformation;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class WriteBehindContentManagerTest extends TestCase {
+    private File file;
+    private WriteBehindContentManager contentManager;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        file = new File("writeBehindContentTest.xml");
+        file.delete();
+        contentManager = new WriteBehindContentManager(new IndexedXMLContentPersistenceManager(file), 10, 3);
+        contentManager.addContent(Content.ContentType.TITLE, "title");
+    }
+
+    public void tearDown() throws Exception {
+        contentManager.close();
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testSubmit() throws Exception {
+        Future<Boolean> result = contentManager.submit(ContentOperation.addPosition(Content.ContentType.TITLE, "title", "position"));
+        assertEquals(1, contentManager.getContents(new PositionInformation("position", null)).size());
+        assertTrue(result.get());
+        assertFalse(contentManager.submit(ContentOperation.addContent(Content.ContentType.TITLE, "title")).get());
+    }
+
+    public void testChangesArePersisted() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            contentManager.submit(ContentOperation.addContent(Content.ContentType.DESCRIPTION, "description" + i));
+        }
+        contentManager.submitBatch(Arrays.asList(
+                ContentOperation.addPosition(Content.ContentType.TITLE, "title", "position"),
+                ContentOperation.removeContent(Content.ContentType.DESCRIPTION, "description0")));
+        contentManager.close();
+        IndexedXMLContentPersistenceManager persistenceManager = new IndexedXMLContentPersistenceManager(file);
+        assertEquals(20, persistenceManager.getAllContents().size());
+        assertEquals(1, persistenceManager.getConnectedContents().get("position").size());
+    }
+
+    public void testFailingUpdate() throws Exception {
+        contentManager.addContent(Content.ContentType.DESCRIPTION, "description");
+        try {
+            contentManager.updateContent(Content.ContentType.DESCRIPTION, "description", Content.ContentType.TITLE, "title");
+            fail();
+        } catch (ContentAlreadyExistsException e) {
+        }
+        assertEquals(2, contentManager.getAllContents().size());
+        contentManager.flush();
+        assertEquals(2, new IndexedXMLContentPersistenceManager(file).getAllContents().size());
+    }
+
+    public void testWriterSurvivesErrors() throws Exception {
+        contentManager.close();
+        final boolean[] broken = new boolean[]{true};
+        contentManager = new WriteBehindContentManager(new IndexedXMLContentPersistenceManager(file) {
+            @Override
+            public synchronized List<Boolean> executeBatch(List<ContentOperation> operations) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+                if (broken[0]) {
+                    throw new AssertionError("broken");
+                }
+                return super.executeBatch(operations);
+            }
+        }, 10, 3);
+        Future<Boolean> result = contentManager.submit(ContentOperation.addContent(Content.ContentType.URL, "url"));
+        try {
+            result.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+        try {
+            contentManager.flush();
+            fail();
+        } catch (ContentPersistenceException e) {
+        }
+        broken[0] = false;
+        contentManager.reload();
+        assertTrue(contentManager.submit(ContentOperation.addContent(Content.ContentType.URL, "url")).get(10, TimeUnit.SECONDS));
+    }
+
+    public void testWaitForQueueSpaceBeforeChanging() throws Exception {
+        contentManager.close();
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        contentManager = new WriteBehindContentManager(new IndexedXMLContentPersistenceManager(file) {
+            @Override
+            public synchronized List<Boolean> executeBatch(List<ContentOperation> operations) throws ContentPersistenceException, ContentSameDataException, ContentAlreadyExistsException {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new ContentPersistenceException(e.getMessage());
+                }
+                return super.executeBatch(operations);
+            }
+        }, 1, 1);
+        contentManager.submit(ContentOperation.addContent(Content.ContentType.URL, "url1"));
+        writing.await();
+        contentManager.submit(ContentOperation.addContent(Content.ContentType.URL, "url2"));
+        final Exception[] error = new Exception[1];
+        Thread submitter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    contentManager.submit(ContentOperation.addContent(Content.ContentType.URL, "url3"));
+                } catch (Exception e) {
+                    error[0] = e;
+                }
+            }
+        });
+        submitter.start();
+        while (submitter.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        assertEquals(3, contentManager.getAllContents().size());
+        submitter.interrupt();
+        submitter.join();
+        assertTrue(error[0] instanceof ContentPersistenceException);
+        assertEquals(3, contentManager.getAllContents().size());
+        release.countDown();
+        contentManager.flush();
+        assertEquals(3, new IndexedXMLContentPersistenceManager(file).getAllContents().size());
+        assertTrue(contentManager.submit(ContentOperation.addContent(Content.ContentType.URL, "url3")).get(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,110 @@
+package test.de.hadizadeh.positioning.content;
+
+import de.hadizadeh.positioning.content.Content;
+import de.hadizadeh.positioning.content.ContentOperation;
+import de.hadizadeh.positioning.content.XMLContentPersistenceManager;
+import de.hadizadeh.positioning.content.exceptions.ContentAlreadyExistsException;
+import de.hadizadeh.positioning.content.exceptions.ContentPersistenceException;
+import de.hadizadeh.positioning.content.exceptions.ContentSameDataException;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.Arrays;
+
+public class XMLContentPersistenceManagerTest extends TestCase {
+    private File file;
+    private XMLContentPersistenceManager persistenceManager;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        file = new File("xmlContentTest.xml");
+        file.delete();
+        persistenceManager = new XMLContentPersistenceManager(file, 60000);
+    }
+
+    public void tearDown() throws Exception {
+        persistenceManager.close();
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testDelayedSave() throws Exception {
+        persistenceManager.addContent(Content.ContentType.TITLE, "title");
+        persistenceManager.addPosition(Content.ContentType.TITLE, "title", "position");
+        assertEquals(0, new XMLContentPersistenceManager(file).getAllContents().size());
+        assertEquals(1, persistenceManager.getConnectedContents().get("position").size());
+        assertEquals(1, new XMLContentPersistenceManager(file).getAllContents().size());
+    }
+
+    public void testFailedDelayedSaveIsReported() throws Exception {
+        File tempFile = new File("xmlContentTest.xml.tmp");
+        persistenceManager.close();
+        persistenceManager = new XMLContentPersistenceManager(file, 10);
+        tempFile.mkdir();
+        try {
+            persistenceManager.addContent(Content.ContentType.TITLE, "title");
+            Thread.sleep(200);
+            try {
+                persistenceManager.addContent(Content.ContentType.URL, "url");
+                fail();
+            } catch (ContentPersistenceException e) {
+            }
+        } finally {
+            tempFile.delete();
+        }
+        assertTrue(persistenceManager.addContent(Content.ContentType.URL, "url"));
+        persistenceManager.flush();
+        assertEquals(2, new XMLContentPersistenceManager(file).getAllContents().size());
+    }
+
+    public void testCloseWritesChanges() throws Exception {
+        persistenceManager.addContent(Content.ContentType.TITLE, "title");
+        persistenceManager.close();
+        assertEquals(1, new XMLContentPersistenceManager(file).getAllContents().size());
+        assertFalse(new File("xmlContentTest.xml.tmp").exists());
+    }
+
+    public void testUnchangedFileIsNotWritten() throws Exception {
+        file.setLastModified(1000000000000L);
+        persistenceManager = new XMLContentPersistenceManager(file);
+        assertFalse(persistenceManager.removeContent(Content.ContentType.TITLE, "title"));
+        assertFalse(persistenceManager.removePosition(Content.ContentType.TITLE, "title", "position"));
+        persistenceManager.removeAllPositions();
+        assertEquals(1000000000000L, file.lastModified());
+    }
+
+    public void testRemoveAllPositionsWithoutPositions() throws Exception {
+        persistenceManager.addContent(Content.ContentType.TITLE, "title");
+        assertFalse(persistenceManager.removeAllPositions(Content.ContentType.TITLE, "title"));
+        assertFalse(persistenceManager.removeAllPositions(Content.ContentType.TITLE, "missing"));
+        persistenceManager.addPosition(Content.ContentType.TITLE, "title", "position");
+        assertTrue(persistenceManager.removeAllPositions(Content.ContentType.TITLE, "title"));
+        assertFalse(persistenceManager.removeAllPositions(Content.ContentType.TITLE, "title"));
+    }
+
+    public void testFailingBatchKeepsCollectedChanges() throws Exception {
+        persistenceManager.addContent(Content.ContentType.TITLE, "title");
+        persistenceManager.addContent(Content.ContentType.DESCRIPTION, "description");
+        try {
+            persistenceManager.executeBatch(Arrays.asList(
+                    ContentOperation.addPosition(Content.ContentType.TITLE, "title", "position"),
+                    ContentOperation.removeContent(Content.ContentType.DESCRIPTION, "description"),
+                    ContentOperation.updateContent(Content.ContentType.TITLE, "title", Content.ContentType.TITLE, "title2"),
+                    ContentOperation.updateContent(Content.ContentType.TITLE, "title2", Content.ContentType.TITLE, "title2")));
+            fail();
+        } catch (ContentSameDataException e) {
+        }
+        persistenceManager.addContent(Content.ContentType.URL, "url");
+        try {
+            persistenceManager.executeBatch(Arrays.asList(
+                    ContentOperation.removeContent(Content.ContentType.URL, "url"),
+                    ContentOperation.updateContent(Content.ContentType.TITLE, "title", Content.ContentType.DESCRIPTION, "description")));
+            fail();
+        } catch (ContentAlreadyExistsException e) {
+        }
+        persistenceManager.close();
+        persistenceManager = new XMLContentPersistenceManager(file);
+        assertEquals(3, persistenceManager.getAllContents().size());
+        assertTrue(persistenceManager.getConnectedContents().isEmpty());
+    }
+}